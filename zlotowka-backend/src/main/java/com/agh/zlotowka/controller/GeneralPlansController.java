@@ -2,11 +2,20 @@ package com.agh.zlotowka.controller;
 
 
 import com.agh.zlotowka.dto.GeneralPlanDTO;
+import com.agh.zlotowka.dto.ScenarioRequest;
+import com.agh.zlotowka.dto.ScenarioResultDTO;
+import com.agh.zlotowka.exception.CurrencyConversionException;
+import com.agh.zlotowka.security.CustomUserDetails;
 import com.agh.zlotowka.service.GeneralPlansService;
+import com.agh.zlotowka.service.ScenarioService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -17,10 +26,19 @@ import java.util.List;
 @RequiredArgsConstructor
 public class GeneralPlansController {
     private final GeneralPlansService generalPlansService;
+    private final ScenarioService scenarioService;
 
     @GetMapping("/chart-data/{id}")
     public ResponseEntity<List<GeneralPlanDTO>> getPlansChartData(@PathVariable Integer id) {
         List<GeneralPlanDTO> plans = generalPlansService.getAllUncompletedPlans(id);
         return ResponseEntity.ok(plans);
     }
+
+    @PostMapping("/scenarios")
+    public ResponseEntity<List<ScenarioResultDTO>> simulateScenarios(
+            @Valid @RequestBody ScenarioRequest request,
+            @AuthenticationPrincipal CustomUserDetails userDetails) throws CurrencyConversionException {
+        scenarioService.validateUserId(request.userId(), userDetails);
+        return ResponseEntity.ok(scenarioService.simulate(request));
+    }
 }
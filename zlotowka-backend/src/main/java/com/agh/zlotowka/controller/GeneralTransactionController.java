@@ -3,8 +3,12 @@ package com.agh.zlotowka.controller;
 import com.agh.zlotowka.dto.*;
 import com.agh.zlotowka.service.GeneralTransactionService;
 import com.agh.zlotowka.validation.DateAfter2000;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -13,11 +17,13 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import com.agh.zlotowka.security.CustomUserDetails;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 
 import java.time.LocalDate;
 import java.math.BigDecimal;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -26,13 +32,41 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class GeneralTransactionController {
     private final GeneralTransactionService generalTransactionService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/plot-data")
     public ResponseEntity<List<SinglePlotData>> getUserBudgetInDateRange(
             @Valid @RequestBody UserDataInDateRangeRequest request,
+            @RequestParam(required = false) Integer maxPoints,
             @AuthenticationPrincipal CustomUserDetails userDetails) {
         generalTransactionService.validateUserId(request.userId(), userDetails);
-        return ResponseEntity.ok(generalTransactionService.getEstimatedBudgetInDateRange(request));
+        return ResponseEntity.ok(generalTransactionService.getEstimatedBudgetInDateRange(request, maxPoints));
+    }
+
+    @PostMapping(value = "/plot-data/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamUserBudgetInDateRange(
+            @Valid @RequestBody UserDataInDateRangeRequest request,
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
+        generalTransactionService.validateUserId(request.userId(), userDetails);
+        Iterator<SinglePlotData> points = generalTransactionService.iterateEstimatedBudgetInDateRange(request);
+
+        StreamingResponseBody body = outputStream -> {
+            JsonGenerator generator = objectMapper.createGenerator(outputStream);
+            generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+            boolean first = true;
+            while (points.hasNext()) {
+                generator.writeObject(points.next());
+                if (first) {
+                    generator.flush();
+                    first = false;
+                }
+            }
+            generator.writeRaw('\n');
+            generator.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
     }
 
     @GetMapping("/next-transaction/{userId}")
@@ -78,6 +112,16 @@ public class GeneralTransactionController {
         return ResponseEntity.ok(Map.of("currentBalance", currentBalance));
     }
 
+    @GetMapping("/balance-at/{userId}")
+    public ResponseEntity<Map<String, BigDecimal>> getBalanceAt(
+            @PathVariable Integer userId,
+            @RequestParam @DateAfter2000 LocalDate date,
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
+        generalTransactionService.validateUserId(userId, userDetails);
+        BigDecimal balance = generalTransactionService.getBalanceAt(userId, date);
+        return ResponseEntity.ok(Map.of("balance", balance));
+    }
+
     @GetMapping("/all/{userId}")
     public ResponseEntity<PaginatedTransactionsDTO> getAllTransactions(
             @PathVariable Integer userId,
@@ -0,0 +1,131 @@
+package com.agh.zlotowka.currency;
+
+import com.agh.zlotowka.model.Currency;
+import com.agh.zlotowka.repository.CurrencyRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CurrencyRegistry {
+    private static final int MAX_MISSING_KEYS = 1024;
+
+    private final CurrencyRepository currencyRepository;
+
+    private volatile Entries entries;
+
+    public Optional<Currency> findById(Integer currencyId) {
+        if (currencyId == null) {
+            return Optional.empty();
+        }
+        Entries current = current();
+        Currency currency = current.byId(currencyId);
+        if (currency == null && !current.isMissing(currencyId)) {
+            Entries reloaded = reload(current);
+            currency = reloaded.byId(currencyId);
+            if (currency == null) {
+                reloaded.markMissing(currencyId);
+            }
+        }
+        return Optional.ofNullable(currency).map(CurrencyRegistry::copy);
+    }
+
+    public Optional<Currency> findByIsoCode(String isoCode) {
+        if (isoCode == null) {
+            return Optional.empty();
+        }
+        String key = isoCode.toUpperCase();
+        Entries current = current();
+        Currency currency = current.byIsoCode(key);
+        if (currency == null && !current.isMissing(key)) {
+            Entries reloaded = reload(current);
+            currency = reloaded.byIsoCode(key);
+            if (currency == null) {
+                reloaded.markMissing(key);
+            }
+        }
+        return Optional.ofNullable(currency).map(CurrencyRegistry::copy);
+    }
+
+    public List<Currency> getAll() {
+        return current().all().stream()
+                .map(CurrencyRegistry::copy)
+                .toList();
+    }
+
+    @Scheduled(fixedDelayString = "${currency.registry.refresh-period:PT10M}", initialDelayString = "${currency.registry.refresh-period:PT10M}")
+    public void scheduledRefresh() {
+        refresh();
+    }
+
+    public void refresh() {
+        load();
+    }
+
+    private synchronized Entries load() {
+        List<Currency> currencies = currencyRepository.findAll().stream()
+                .map(CurrencyRegistry::copy)
+                .toList();
+
+        int maxId = currencies.stream().mapToInt(Currency::getCurrencyId).max().orElse(-1);
+        Currency[] byId = new Currency[maxId + 1];
+        Map<String, Currency> byIsoCode = new HashMap<>();
+        for (Currency currency : currencies) {
+            byId[currency.getCurrencyId()] = currency;
+            byIsoCode.put(currency.getIsoCode().toUpperCase(), currency);
+        }
+
+        entries = new Entries(byId, Map.copyOf(byIsoCode), currencies, ConcurrentHashMap.newKeySet());
+        log.info("CurrencyRegistry: Loaded {} currencies", currencies.size());
+        return entries;
+    }
+
+    private synchronized Entries reload(Entries seen) {
+        if (entries != seen) {
+            return entries;
+        }
+        Entries reloaded = load();
+        reloaded.missing().addAll(seen.missing());
+        return reloaded;
+    }
+
+    private Entries current() {
+        Entries current = entries;
+        return current != null ? current : load();
+    }
+
+    private static Currency copy(Currency currency) {
+        return new Currency(currency.getCurrencyId(), currency.getIsoCode());
+    }
+
+    private record Entries(Currency[] currenciesById, Map<String, Currency> currenciesByIsoCode, List<Currency> all,
+                          Set<Object> missing) {
+        Currency byId(int currencyId) {
+            return currencyId >= 0 && currencyId < currenciesById.length ? currenciesById[currencyId] : null;
+        }
+
+        Currency byIsoCode(String isoCode) {
+            return currenciesByIsoCode.get(isoCode.toUpperCase());
+        }
+
+        boolean isMissing(Object key) {
+            return missing.contains(key);
+        }
+
+        void markMissing(Object key) {
+            if (missing.size() < MAX_MISSING_KEYS) {
+                missing.add(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.agh.zlotowka.currency;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class ExchangeRateCache implements MeterBinder {
+    private final Duration ttl;
+    private final int maxSize;
+    private final Clock clock;
+    private final LinkedHashMap<String, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public ExchangeRateCache(
+            @Value("${currency.cache.ttl:PT1H}") Duration ttl,
+            @Value("${currency.cache.max-size:32}") int maxSize) {
+        this(ttl, maxSize, Clock.systemUTC());
+    }
+
+    public ExchangeRateCache(Duration ttl, int maxSize, Clock clock) {
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Czas życia wpisu w cache musi być dodatni");
+        }
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Rozmiar cache musi być dodatni");
+        }
+        this.ttl = ttl;
+        this.maxSize = maxSize;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > ExchangeRateCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized Optional<Map<String, BigDecimal>> get(String baseCurrency) {
+        Entry entry = entries.get(key(baseCurrency));
+        if (entry == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        if (entry.isExpired(clock.instant())) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        return Optional.of(entry.rates());
+    }
+
+    public synchronized Optional<Map<String, BigDecimal>> getStale(String baseCurrency) {
+        return Optional.ofNullable(entries.get(key(baseCurrency))).map(Entry::rates);
+    }
+
+    public synchronized void put(String baseCurrency, Map<String, BigDecimal> rates) {
+        entries.put(key(baseCurrency), new Entry(Map.copyOf(rates), clock.instant().plus(ttl)));
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public CacheStats getStats() {
+        return new CacheStats(hits.get(), misses.get(), evictions.get(), size());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("currency.rates.cache.hits", hits, AtomicLong::get).register(registry);
+        FunctionCounter.builder("currency.rates.cache.misses", misses, AtomicLong::get).register(registry);
+        FunctionCounter.builder("currency.rates.cache.evictions", evictions, AtomicLong::get).register(registry);
+        Gauge.builder("currency.rates.cache.size", this, ExchangeRateCache::size).register(registry);
+    }
+
+    private static String key(String baseCurrency) {
+        return baseCurrency.toLowerCase();
+    }
+
+    private record Entry(Map<String, BigDecimal> rates, Instant expiresAt) {
+        boolean isExpired(Instant now) {
+            return !now.isBefore(expiresAt);
+        }
+    }
+
+    public record CacheStats(long hits, long misses, long evictions, int size) {
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+}
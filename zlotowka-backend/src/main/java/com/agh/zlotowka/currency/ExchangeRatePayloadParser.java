@@ -0,0 +1,65 @@
+package com.agh.zlotowka.currency;
+
+import com.agh.zlotowka.exception.CurrencyConversionException;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+public final class ExchangeRatePayloadParser {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private ExchangeRatePayloadParser() {
+    }
+
+    public static Map<String, BigDecimal> parseRates(byte[] payload, String baseCurrency)
+            throws IOException, CurrencyConversionException {
+        return parseRates(payload, baseCurrency, null);
+    }
+
+    public static Map<String, BigDecimal> parseRates(byte[] payload, String baseCurrency, Set<String> targetCurrencies)
+            throws IOException, CurrencyConversionException {
+        String base = baseCurrency.toLowerCase();
+
+        try (JsonParser parser = JSON_FACTORY.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Niepoprawny format odpowiedzi serwisu kursów walut");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.START_OBJECT && field.equals(base)) {
+                    return readRates(parser, targetCurrencies);
+                }
+                parser.skipChildren();
+            }
+        }
+
+        throw new CurrencyConversionException("Taka waluta nie jest dostępna");
+    }
+
+    private static Map<String, BigDecimal> readRates(JsonParser parser, Set<String> targetCurrencies) throws IOException {
+        Map<String, BigDecimal> rates = new HashMap<>(targetCurrencies == null ? 512 : targetCurrencies.size() * 2);
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String currency = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            if (value.isNumeric() && (targetCurrencies == null || targetCurrencies.contains(currency))) {
+                rates.put(currency, parser.getDecimalValue());
+                if (targetCurrencies != null && rates.size() == targetCurrencies.size()) {
+                    break;
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return rates;
+    }
+}
@@ -0,0 +1,205 @@
+package com.agh.zlotowka.currency;
+
+import com.agh.zlotowka.exception.CurrencyConversionException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Slf4j
+@Component
+public class ExchangeRateProvider implements MeterBinder {
+    private final String apiUrl;
+    private final Duration requestTimeout;
+    private final Semaphore bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final ThreadPoolExecutor executor;
+    private final HttpClient httpClient;
+
+    @Autowired
+    public ExchangeRateProvider(
+            @Value("${CURRENCY_API_URL}") String apiUrl,
+            @Value("${currency.client.connect-timeout:PT5S}") Duration connectTimeout,
+            @Value("${currency.client.request-timeout:PT5S}") Duration requestTimeout,
+            @Value("${currency.client.max-concurrent-requests:4}") int maxConcurrentRequests,
+            @Value("${currency.client.circuit.failure-threshold:5}") int failureThreshold,
+            @Value("${currency.client.circuit.open-duration:PT30S}") Duration openDuration) {
+        this(apiUrl, connectTimeout, requestTimeout, maxConcurrentRequests,
+                new CircuitBreaker(failureThreshold, openDuration, Clock.systemUTC()));
+    }
+
+    public ExchangeRateProvider(String apiUrl, Duration connectTimeout, Duration requestTimeout,
+                                int maxConcurrentRequests, CircuitBreaker circuitBreaker) {
+        this.apiUrl = apiUrl;
+        this.requestTimeout = requestTimeout;
+        this.bulkhead = new Semaphore(maxConcurrentRequests);
+        this.circuitBreaker = circuitBreaker;
+        this.executor = createExecutor(maxConcurrentRequests);
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .executor(executor)
+                .build();
+    }
+
+    public Map<String, BigDecimal> fetchRates(String baseCurrency) throws IOException, CurrencyConversionException {
+        return fetchRates(baseCurrency, null);
+    }
+
+    public Map<String, BigDecimal> fetchRates(String baseCurrency, Set<String> targetCurrencies)
+            throws IOException, CurrencyConversionException {
+        try {
+            return fetchRatesAsync(baseCurrency, targetCurrencies).get(requestTimeout.toMillis() * 2, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CurrencyConversionException("Pobieranie kursów walut zostało przerwane");
+        } catch (TimeoutException e) {
+            throw new IOException("Przekroczono czas oczekiwania na kursy walut", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    public CompletableFuture<Map<String, BigDecimal>> fetchRatesAsync(String baseCurrency) {
+        return fetchRatesAsync(baseCurrency, null);
+    }
+
+    public CompletableFuture<Map<String, BigDecimal>> fetchRatesAsync(String baseCurrency, Set<String> targetCurrencies) {
+        String base = baseCurrency.toLowerCase();
+
+        if (!bulkhead.tryAcquire()) {
+            return CompletableFuture.failedFuture(
+                    new CurrencyConversionException("Zbyt wiele równoczesnych zapytań o kursy walut"));
+        }
+        if (!circuitBreaker.tryAcquirePermission()) {
+            bulkhead.release();
+            return CompletableFuture.failedFuture(
+                    new CurrencyConversionException("Serwis kursów walut jest chwilowo niedostępny"));
+        }
+
+        CompletableFuture<HttpResponse<byte[]>> sent;
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(String.format("%s/%s.json", apiUrl, base)))
+                    .timeout(requestTimeout)
+                    .GET()
+                    .build();
+            sent = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (RuntimeException e) {
+            bulkhead.release();
+            circuitBreaker.onFailure();
+            log.warn("ExchangeRateProvider: Sending rate request for {} failed: {}", base, e.getMessage());
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return sent
+                .thenApply(response -> parseResponse(base, targetCurrencies, response))
+                .whenComplete((rates, error) -> {
+                    bulkhead.release();
+                    if (error == null || !isProviderFailure(error)) {
+                        circuitBreaker.onSuccess();
+                    } else {
+                        circuitBreaker.onFailure();
+                    }
+                    if (error != null) {
+                        log.warn("ExchangeRateProvider: Fetching rates for {} failed: {}", base, error.getMessage());
+                    }
+                });
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("currency.rates.client.circuit.open", this,
+                provider -> provider.getCircuitState() == CircuitBreaker.State.CLOSED ? 0 : 1).register(registry);
+        Gauge.builder("currency.rates.client.available-permits", bulkhead, Semaphore::availablePermits).register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static Map<String, BigDecimal> parseResponse(String baseCurrency, Set<String> targetCurrencies,
+                                                         HttpResponse<byte[]> response) {
+        if (response.statusCode() != 200) {
+            String message = "Nie udało się pobrać kursu wymiany. Kod odpowiedzi HTTP: " + response.statusCode();
+            throw new CompletionException(isServerError(response.statusCode()) ?
+                    new IOException(message) : new RejectedRequestException(message));
+        }
+
+        try {
+            return ExchangeRatePayloadParser.parseRates(response.body(), baseCurrency, targetCurrencies);
+        } catch (CurrencyConversionException e) {
+            log.error("ExchangeRateProvider: No currencies available for {}", baseCurrency);
+            throw new CompletionException(e);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static boolean isServerError(int statusCode) {
+        return statusCode >= 500 || statusCode == 408 || statusCode == 429;
+    }
+
+    private static boolean isProviderFailure(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return !(cause instanceof RejectedRequestException) && !(cause instanceof CurrencyConversionException);
+    }
+
+    private static IOException unwrap(Throwable cause) throws CurrencyConversionException {
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof CurrencyConversionException conversionException) throw conversionException;
+        if (cause instanceof IOException ioException) return ioException;
+        return new IOException("Nie udało się pobrać kursu wymiany", cause);
+    }
+
+    private static ThreadPoolExecutor createExecutor(int maxConcurrentRequests) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                maxConcurrentRequests,
+                maxConcurrentRequests,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxConcurrentRequests * 16),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "currency-client-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static final class RejectedRequestException extends IOException {
+        private RejectedRequestException(String message) {
+            super(message);
+        }
+    }
+}
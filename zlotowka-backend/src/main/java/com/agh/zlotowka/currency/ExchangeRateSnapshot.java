@@ -0,0 +1,129 @@
+package com.agh.zlotowka.currency;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class ExchangeRateSnapshot {
+    public static final ExchangeRateSnapshot EMPTY = new ExchangeRateSnapshot(List.of(), new BigDecimal[0], false, Instant.EPOCH);
+    public static final MathContext CROSS_RATE_PRECISION = MathContext.DECIMAL64;
+
+    private final List<String> codes;
+    private final Map<String, Integer> index;
+    private final BigDecimal[] rates;
+    private final boolean pivoted;
+    private final Instant refreshedAt;
+
+    private ExchangeRateSnapshot(List<String> codes, BigDecimal[] rates, boolean pivoted, Instant refreshedAt) {
+        this.codes = codes;
+        this.rates = rates;
+        this.pivoted = pivoted;
+        this.refreshedAt = refreshedAt;
+        this.index = new HashMap<>();
+        for (int i = 0; i < codes.size(); i++) {
+            index.put(codes.get(i), i);
+        }
+    }
+
+    public static Builder builder(List<String> codes) {
+        return new Builder(codes);
+    }
+
+    public static ExchangeRateSnapshot pivot(List<String> codes, String pivotCurrency,
+                                             Map<String, BigDecimal> pivotRates, Instant refreshedAt) {
+        List<String> lowerCodes = codes.stream().map(String::toLowerCase).toList();
+        String pivot = pivotCurrency.toLowerCase();
+        BigDecimal[] rates = new BigDecimal[lowerCodes.size()];
+        for (int i = 0; i < lowerCodes.size(); i++) {
+            BigDecimal rate = lowerCodes.get(i).equals(pivot) ? BigDecimal.ONE : pivotRates.get(lowerCodes.get(i));
+            rates[i] = rate == null || rate.signum() <= 0 ? null : rate;
+        }
+        return new ExchangeRateSnapshot(lowerCodes, rates, true, refreshedAt);
+    }
+
+    public static BigDecimal crossRate(BigDecimal pivotToFrom, BigDecimal pivotToTo) {
+        return pivotToTo.divide(pivotToFrom, CROSS_RATE_PRECISION);
+    }
+
+    public BigDecimal getRate(String fromCurrency, String toCurrency) {
+        Integer from = index.get(fromCurrency.toLowerCase());
+        Integer to = index.get(toCurrency.toLowerCase());
+        if (from == null || to == null) {
+            return null;
+        }
+        if (!pivoted) {
+            return rates[from * codes.size() + to];
+        }
+        if (from.equals(to)) {
+            return BigDecimal.ONE;
+        }
+        if (rates[from] == null || rates[to] == null) {
+            return null;
+        }
+        return crossRate(rates[from], rates[to]);
+    }
+
+    public List<String> getCodes() {
+        return codes;
+    }
+
+    public Instant getRefreshedAt() {
+        return refreshedAt;
+    }
+
+    public boolean isPivoted() {
+        return pivoted;
+    }
+
+    public boolean isEmpty() {
+        return codes.isEmpty();
+    }
+
+    public static final class Builder {
+        private final List<String> codes;
+        private final BigDecimal[] rates;
+
+        private Builder(List<String> codes) {
+            this.codes = codes.stream().map(String::toLowerCase).toList();
+            this.rates = new BigDecimal[this.codes.size() * this.codes.size()];
+            for (int i = 0; i < this.codes.size(); i++) {
+                rates[i * this.codes.size() + i] = BigDecimal.ONE;
+            }
+        }
+
+        public Builder row(String baseCurrency, Map<String, BigDecimal> baseRates) {
+            int from = codes.indexOf(baseCurrency.toLowerCase());
+            if (from < 0) {
+                return this;
+            }
+            for (int to = 0; to < codes.size(); to++) {
+                BigDecimal rate = from == to ? BigDecimal.ONE : baseRates.get(codes.get(to));
+                if (rate != null) {
+                    rates[from * codes.size() + to] = rate;
+                }
+            }
+            return this;
+        }
+
+        public Builder rowFrom(String baseCurrency, ExchangeRateSnapshot previous) {
+            int from = codes.indexOf(baseCurrency.toLowerCase());
+            if (from < 0) {
+                return this;
+            }
+            for (int to = 0; to < codes.size(); to++) {
+                BigDecimal rate = previous.getRate(codes.get(from), codes.get(to));
+                if (rate != null) {
+                    rates[from * codes.size() + to] = rate;
+                }
+            }
+            return this;
+        }
+
+        public ExchangeRateSnapshot build(Instant refreshedAt) {
+            return new ExchangeRateSnapshot(codes, rates.clone(), false, refreshedAt);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.agh.zlotowka.currency;
+
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+public class HistoricalRateIndex {
+    private final Map<String, Series> series = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void put(String currencyCode, long epochDay, BigDecimal rate) {
+        lock.writeLock().lock();
+        try {
+            series.computeIfAbsent(currencyCode.toLowerCase(), code -> new Series(epochDay)).put(epochDay, rate);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public BigDecimal getRate(String currencyCode, long epochDay) {
+        lock.readLock().lock();
+        try {
+            Series currencySeries = series.get(currencyCode.toLowerCase());
+            return currencySeries == null ? null : currencySeries.get(epochDay);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(String currencyCode, long epochDay) {
+        lock.readLock().lock();
+        try {
+            Series currencySeries = series.get(currencyCode.toLowerCase());
+            return currencySeries != null && currencySeries.isKnown(epochDay);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return series.values().stream().mapToInt(s -> s.known.cardinality()).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static final class Series {
+        private long firstDay;
+        private BigDecimal[] values = new BigDecimal[64];
+        private BitSet known = new BitSet();
+        private int length;
+
+        private Series(long firstDay) {
+            this.firstDay = firstDay;
+        }
+
+        private void put(long epochDay, BigDecimal rate) {
+            if (epochDay < firstDay) {
+                shiftStart(epochDay);
+            }
+            int index = (int) (epochDay - firstDay);
+            if (index >= values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length * 2, index + 1));
+            }
+            if (index >= length) {
+                BigDecimal carried = length == 0 ? null : values[length - 1];
+                Arrays.fill(values, length, index, carried);
+                length = index + 1;
+            }
+
+            values[index] = rate;
+            known.set(index);
+            for (int i = index + 1; i < length && !known.get(i); i++) {
+                values[i] = rate;
+            }
+        }
+
+        private BigDecimal get(long epochDay) {
+            long index = epochDay - firstDay;
+            if (index < 0 || length == 0) {
+                return null;
+            }
+            return index >= length ? values[length - 1] : values[(int) index];
+        }
+
+        private boolean isKnown(long epochDay) {
+            long index = epochDay - firstDay;
+            return index >= 0 && index < length && known.get((int) index);
+        }
+
+        private void shiftStart(long newFirstDay) {
+            int shift = (int) (firstDay - newFirstDay);
+            BigDecimal[] shifted = new BigDecimal[Math.max(values.length, length + shift)];
+            System.arraycopy(values, 0, shifted, shift, length);
+            BitSet shiftedKnown = new BitSet();
+            known.stream().forEach(i -> shiftedKnown.set(i + shift));
+            values = shifted;
+            known = shiftedKnown;
+            length += shift;
+            firstDay = newFirstDay;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.agh.zlotowka.currency;
+
+import com.agh.zlotowka.exception.CurrencyConversionException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+@Component
+public class RateFetchCoalescer implements MeterBinder {
+    private final ConcurrentHashMap<Key, CompletableFuture<Map<String, BigDecimal>>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    @FunctionalInterface
+    public interface RatesLoader {
+        Map<String, BigDecimal> load() throws IOException, CurrencyConversionException;
+    }
+
+    public Map<String, BigDecimal> fetch(String baseCurrency, RatesLoader loader) throws IOException, CurrencyConversionException {
+        return fetch(baseCurrency, null, loader);
+    }
+
+    public Map<String, BigDecimal> fetch(String baseCurrency, Set<String> targetCurrencies, RatesLoader loader)
+            throws IOException, CurrencyConversionException {
+        Key key = Key.of(baseCurrency, targetCurrencies);
+        CompletableFuture<Map<String, BigDecimal>> created = new CompletableFuture<>();
+        CompletableFuture<Map<String, BigDecimal>> existing = inFlight.putIfAbsent(key, created);
+
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return await(existing);
+        }
+
+        executed.incrementAndGet();
+        try {
+            created.complete(loader.load());
+        } catch (IOException | CurrencyConversionException | RuntimeException e) {
+            created.completeExceptionally(e);
+        } finally {
+            inFlight.remove(key, created);
+        }
+        return await(created);
+    }
+
+    public CompletableFuture<Map<String, BigDecimal>> fetchAsync(String baseCurrency,
+                                                                 Supplier<CompletableFuture<Map<String, BigDecimal>>> loader) {
+        return fetchAsync(baseCurrency, null, loader);
+    }
+
+    public CompletableFuture<Map<String, BigDecimal>> fetchAsync(String baseCurrency, Set<String> targetCurrencies,
+                                                                 Supplier<CompletableFuture<Map<String, BigDecimal>>> loader) {
+        Key key = Key.of(baseCurrency, targetCurrencies);
+        CompletableFuture<Map<String, BigDecimal>> created = new CompletableFuture<>();
+        CompletableFuture<Map<String, BigDecimal>> existing = inFlight.putIfAbsent(key, created);
+
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return existing;
+        }
+
+        executed.incrementAndGet();
+        CompletableFuture<Map<String, BigDecimal>> loading;
+        try {
+            loading = loader.get();
+        } catch (RuntimeException e) {
+            loading = CompletableFuture.failedFuture(e);
+        }
+        loading.whenComplete((rates, error) -> {
+            inFlight.remove(key, created);
+            if (error == null) {
+                created.complete(rates);
+            } else {
+                created.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            }
+        });
+        return created;
+    }
+
+    public static Map<String, BigDecimal> await(CompletableFuture<Map<String, BigDecimal>> future, Duration maxWait)
+            throws IOException, CurrencyConversionException {
+        try {
+            return future.get(maxWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CurrencyConversionException("Pobieranie kursów walut zostało przerwane");
+        } catch (TimeoutException e) {
+            throw new IOException("Przekroczono czas oczekiwania na kursy walut", e);
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+
+    public long getExecutedCount() {
+        return executed.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("currency.rates.fetch.executed", executed, AtomicLong::get).register(registry);
+        FunctionCounter.builder("currency.rates.fetch.coalesced", coalesced, AtomicLong::get).register(registry);
+    }
+
+    private static Map<String, BigDecimal> await(CompletableFuture<Map<String, BigDecimal>> future) throws IOException, CurrencyConversionException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CurrencyConversionException("Pobieranie kursów walut zostało przerwane");
+        } catch (ExecutionException e) {
+            throw rethrow(e.getCause());
+        }
+    }
+
+    private static CurrencyConversionException rethrow(Throwable cause) throws IOException, CurrencyConversionException {
+        if (cause instanceof IOException ioException) throw ioException;
+        if (cause instanceof CurrencyConversionException conversionException) throw conversionException;
+        if (cause instanceof RuntimeException runtimeException) throw runtimeException;
+        return new CurrencyConversionException("Pobieranie kursów walut nie powiodło się");
+    }
+
+    private record Key(String baseCurrency, Set<String> targetCurrencies) {
+        static Key of(String baseCurrency, Set<String> targetCurrencies) {
+            return new Key(baseCurrency.toLowerCase(), targetCurrencies == null ? null : targetCurrencies.stream()
+                    .map(String::toLowerCase)
+                    .collect(Collectors.toUnmodifiableSet()));
+        }
+    }
+}
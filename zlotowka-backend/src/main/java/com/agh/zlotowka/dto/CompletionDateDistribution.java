@@ -0,0 +1,10 @@
+package com.agh.zlotowka.dto;
+
+import java.time.LocalDate;
+
+public record CompletionDateDistribution(
+        LocalDate p10,
+        LocalDate p50,
+        LocalDate p90
+) {
+}
@@ -0,0 +1,14 @@
+package com.agh.zlotowka.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record CurrencyAmount(
+        BigDecimal amount,
+        String currencyIsoCode,
+        LocalDate date
+) {
+    public CurrencyAmount(BigDecimal amount, String currencyIsoCode) {
+        this(amount, currencyIsoCode, null);
+    }
+}
@@ -0,0 +1,13 @@
+package com.agh.zlotowka.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record DailyTransactionSum(
+        LocalDate date,
+        Integer currencyId,
+        Boolean isIncome,
+        BigDecimal amount,
+        Long transactionCount
+) {
+}
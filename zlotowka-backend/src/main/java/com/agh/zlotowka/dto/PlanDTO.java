@@ -17,6 +17,7 @@ public record PlanDTO (
         BigDecimal actualAmount,
         Boolean canBeCompleted,
         Double subplansCompleted,
-        LocalDate estimatedCompletionDate
+        LocalDate estimatedCompletionDate,
+        CompletionDateDistribution completionDateDistribution
 )
 {}
@@ -0,0 +1,19 @@
+package com.agh.zlotowka.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record ScenarioDefinition(
+        @NotBlank(message = "Nazwa nie może być pusta")
+        @Size(max = 512, message = "Nazwa nie może przekraczać 512 znaków")
+        String name,
+
+        @NotNull(message = "Lista zmian nie może być pusta")
+        @Size(max = 100, message = "Scenariusz może zawierać co najwyżej 100 zmian")
+        List<@Valid @NotNull ScenarioModification> modifications
+) {
+}
@@ -0,0 +1,42 @@
+package com.agh.zlotowka.dto;
+
+import com.agh.zlotowka.model.ScenarioOperation;
+import com.agh.zlotowka.validation.DateAfter2000;
+import com.agh.zlotowka.validation.MaxDecimalPlaces;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record ScenarioModification(
+        @NotNull(message = "Rodzaj zmiany nie może być pusty")
+        ScenarioOperation operation,
+
+        @NotNull(message = "Informacja o cykliczności transakcji nie może być pusta")
+        Boolean recurring,
+
+        @Positive(message = "ID transakcji musi być liczbą dodatnią")
+        Integer transactionId,
+
+        @Positive(message = "Kwota musi być liczbą dodatnią")
+        @MaxDecimalPlaces(2)
+        BigDecimal amount,
+
+        Integer currencyId,
+
+        Boolean isIncome,
+
+        String interval,
+
+        @DateAfter2000
+        LocalDate date,
+
+        @DateAfter2000(message = "Data ostatniej płatności musi być po 2000-01-01")
+        LocalDate lastPaymentDate,
+
+        @PositiveOrZero(message = "Mnożnik nie może być ujemny")
+        BigDecimal factor
+) {
+}
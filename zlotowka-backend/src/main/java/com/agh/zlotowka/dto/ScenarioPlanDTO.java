@@ -0,0 +1,15 @@
+package com.agh.zlotowka.dto;
+
+import com.agh.zlotowka.model.PlanType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record ScenarioPlanDTO(
+        Integer id,
+        String name,
+        PlanType planType,
+        BigDecimal requiredAmount,
+        LocalDate estimatedCompletionDate
+) {
+}
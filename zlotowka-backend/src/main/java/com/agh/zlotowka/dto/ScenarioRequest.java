@@ -0,0 +1,20 @@
+package com.agh.zlotowka.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record ScenarioRequest(
+        @NotNull(message = "ID użytkownika nie może być puste")
+        @Positive(message = "ID użytkownika musi być liczbą dodatnią")
+        Integer userId,
+
+        @NotEmpty(message = "Lista scenariuszy nie może być pusta")
+        @Size(max = 32, message = "Można porównać co najwyżej 32 scenariusze")
+        List<@Valid @NotNull ScenarioDefinition> scenarios
+) {
+}
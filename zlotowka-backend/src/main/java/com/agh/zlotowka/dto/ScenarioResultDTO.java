@@ -0,0 +1,12 @@
+package com.agh.zlotowka.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record ScenarioResultDTO(
+        String name,
+        BigDecimal finalBalance,
+        List<ScenarioPlanDTO> plans,
+        List<SinglePlotData> balance
+) {
+}
@@ -0,0 +1,12 @@
+package com.agh.zlotowka.dto;
+
+import java.math.BigDecimal;
+
+public record SubplanAggregate(
+        Integer planId,
+        Long subplanCount,
+        Long completedCount,
+        BigDecimal totalAmount,
+        BigDecimal completedAmount
+) {
+}
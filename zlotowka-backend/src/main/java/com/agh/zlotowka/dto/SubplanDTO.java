@@ -16,6 +16,7 @@ public record SubplanDTO (
         BigDecimal actualAmount,
         Boolean canBeCompleted,
         LocalDate date,
-        LocalDate estimatedCompletionDate
+        LocalDate estimatedCompletionDate,
+        CompletionDateDistribution completionDateDistribution
 )
 {}
@@ -0,0 +1,69 @@
+package com.agh.zlotowka.forecast;
+
+import com.agh.zlotowka.dto.SinglePlotData;
+import com.agh.zlotowka.model.Money;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class BalanceCurve {
+    private final LocalDate start;
+    private final long[] balances;
+    private final long[] runningMaximum;
+
+    private BalanceCurve(LocalDate start, long[] balances, long[] runningMaximum) {
+        this.start = start;
+        this.balances = balances;
+        this.runningMaximum = runningMaximum;
+    }
+
+    public static BalanceCurve build(LocalDate start, LocalDate end, List<CashflowEvent> oneTimeEvents,
+                                     List<ScheduledCashflow> scheduledCashflows, long openingBalance) {
+        return of(start, openingBalance,
+                CashflowSweep.dailyDeltas(start.plusDays(1), end, oneTimeEvents, scheduledCashflows));
+    }
+
+    public static BalanceCurve of(LocalDate start, long openingBalance, long[] dailyDeltas) {
+        long[] balances = new long[dailyDeltas.length + 1];
+        long[] runningMaximum = new long[dailyDeltas.length + 1];
+        balances[0] = openingBalance;
+        runningMaximum[0] = openingBalance;
+        for (int i = 0; i < dailyDeltas.length; i++) {
+            balances[i + 1] = Math.addExact(balances[i], dailyDeltas[i]);
+            runningMaximum[i + 1] = Math.max(runningMaximum[i], balances[i + 1]);
+        }
+        return new BalanceCurve(start, balances, runningMaximum);
+    }
+
+    public long finalBalance() {
+        return balances[balances.length - 1];
+    }
+
+    public List<SinglePlotData> points(String currencyIsoCode) {
+        List<SinglePlotData> points = new ArrayList<>();
+        for (int i = 0; i < balances.length; i++) {
+            if (i == 0 || i == balances.length - 1 || balances[i] != balances[i - 1]) {
+                points.add(new SinglePlotData(start.plusDays(i), Money.toBigDecimal(balances[i]), currencyIsoCode));
+            }
+        }
+        return points;
+    }
+
+    public LocalDate firstReaching(long target) {
+        if (runningMaximum[runningMaximum.length - 1] < target) {
+            return null;
+        }
+        int low = 0;
+        int high = runningMaximum.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (runningMaximum[middle] >= target) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return start.plusDays(low);
+    }
+}
@@ -0,0 +1,86 @@
+package com.agh.zlotowka.forecast;
+
+import com.agh.zlotowka.dto.SinglePlotData;
+import com.agh.zlotowka.model.Money;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public final class BalanceIndex {
+    private final long originDay;
+    private final long openingBalance;
+    private long[] deltas;
+    private long[] tree;
+
+    public BalanceIndex(LocalDate origin, long openingBalance, int initialCapacity) {
+        this.originDay = origin.toEpochDay();
+        this.openingBalance = openingBalance;
+        this.deltas = new long[Math.max(1, initialCapacity)];
+        this.tree = new long[deltas.length + 1];
+    }
+
+    public LocalDate getOrigin() {
+        return LocalDate.ofEpochDay(originDay);
+    }
+
+    public boolean add(LocalDate date, long delta) {
+        long offset = date.toEpochDay() - originDay;
+        if (offset < 0) {
+            return false;
+        }
+        if (offset >= deltas.length) {
+            grow(Math.toIntExact(offset + 1));
+        }
+        int index = (int) offset;
+        deltas[index] = Math.addExact(deltas[index], delta);
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] = Math.addExact(tree[i], delta);
+        }
+        return true;
+    }
+
+    public long balanceAt(LocalDate date) {
+        long offset = date.toEpochDay() - originDay;
+        if (offset < 0) {
+            return openingBalance;
+        }
+        int end = (int) Math.min(offset + 1, deltas.length);
+        long sum = openingBalance;
+        for (int i = end; i > 0; i -= i & -i) {
+            sum = Math.addExact(sum, tree[i]);
+        }
+        return sum;
+    }
+
+    public List<SinglePlotData> points(LocalDate startDate, LocalDate endDate, String currencyIsoCode) {
+        long first = Math.max(0, startDate.toEpochDay() - originDay);
+        long last = Math.min(deltas.length - 1, endDate.toEpochDay() - originDay);
+        List<SinglePlotData> points = new ArrayList<>();
+        if (first > last) {
+            return points;
+        }
+
+        long balance = balanceAt(LocalDate.ofEpochDay(originDay + first - 1));
+        for (int i = (int) first; i <= last; i++) {
+            if (deltas[i] != 0) {
+                balance = Math.addExact(balance, deltas[i]);
+                points.add(new SinglePlotData(LocalDate.ofEpochDay(originDay + i), Money.toBigDecimal(balance), currencyIsoCode));
+            }
+        }
+        return points;
+    }
+
+    private void grow(int minimumCapacity) {
+        deltas = Arrays.copyOf(deltas, Math.max(minimumCapacity, deltas.length * 2));
+        tree = new long[deltas.length + 1];
+        for (int i = 1; i < tree.length; i++) {
+            tree[i] = Math.addExact(tree[i], deltas[i - 1]);
+            int parent = i + (i & -i);
+            if (parent < tree.length) {
+                tree[parent] = Math.addExact(tree[parent], tree[i]);
+            }
+        }
+    }
+}
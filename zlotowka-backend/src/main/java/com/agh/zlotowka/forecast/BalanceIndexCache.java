@@ -0,0 +1,142 @@
+package com.agh.zlotowka.forecast;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+@Component
+public class BalanceIndexCache {
+    private final boolean enabled;
+    private final LinkedHashMap<Integer, Entry> indexes;
+    private final ConcurrentHashMap<Integer, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public BalanceIndexCache(
+            @Value("${balance-index.enabled:true}") boolean enabled,
+            @Value("${balance-index.max-users:1024}") int maxUsers) {
+        if (maxUsers <= 0) {
+            throw new IllegalArgumentException("Liczba indeksów sald musi być dodatnia");
+        }
+        this.enabled = enabled;
+        this.indexes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public <T> T query(int userId, Supplier<BalanceIndex> loader, Function<BalanceIndex, T> query) {
+        synchronized (this) {
+            Entry entry = indexes.get(userId);
+            if (entry != null) {
+                return query.apply(entry.index());
+            }
+        }
+
+        long version = getVersion(userId);
+        BalanceIndex loaded = loader.get();
+
+        synchronized (this) {
+            if (version == getVersion(userId)) {
+                indexes.put(userId, new Entry(loaded, version));
+            }
+            return query.apply(loaded);
+        }
+    }
+
+    public void recordChange(int userId, LocalDate date, long delta) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(userId, List.of(new Change(date, delta)), bumpVersion(userId));
+            return;
+        }
+        PendingKey key = new PendingKey(this, userId);
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(key);
+        if (pending == null) {
+            pending = new PendingChanges(key, bumpVersion(userId));
+            TransactionSynchronizationManager.bindResource(key, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.changes.add(new Change(date, delta));
+    }
+
+    public synchronized void invalidate(int userId) {
+        bumpVersion(userId);
+        indexes.remove(userId);
+    }
+
+    public long getVersion(int userId) {
+        AtomicLong version = versions.get(userId);
+        return version == null ? 0 : version.get();
+    }
+
+    private synchronized void apply(int userId, List<Change> changes, long changeVersion) {
+        Entry entry = indexes.get(userId);
+        if (entry == null) {
+            return;
+        }
+        if (entry.version() >= changeVersion) {
+            indexes.remove(userId);
+            return;
+        }
+        for (Change change : changes) {
+            if (!entry.index().add(change.date(), change.delta())) {
+                indexes.remove(userId);
+                return;
+            }
+        }
+        indexes.put(userId, new Entry(entry.index(), getVersion(userId)));
+    }
+
+    private long bumpVersion(int userId) {
+        return versions.computeIfAbsent(userId, id -> new AtomicLong()).incrementAndGet();
+    }
+
+    private record Entry(BalanceIndex index, long version) {
+    }
+
+    private record Change(LocalDate date, long delta) {
+    }
+
+    private record PendingKey(BalanceIndexCache cache, int userId) {
+    }
+
+    private final class PendingChanges implements TransactionSynchronization {
+        private final PendingKey key;
+        private final long changeVersion;
+        private final List<Change> changes = new ArrayList<>();
+
+        private PendingChanges(PendingKey key, long changeVersion) {
+            this.key = key;
+            this.changeVersion = changeVersion;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(key);
+            bumpVersion(key.userId());
+            if (status == STATUS_COMMITTED) {
+                apply(key.userId(), changes, changeVersion);
+            } else {
+                invalidate(key.userId());
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.agh.zlotowka.forecast;
+
+import java.time.LocalDate;
+
+public record CashflowEvent(
+        LocalDate date,
+        long amountMinorUnits
+) {
+}
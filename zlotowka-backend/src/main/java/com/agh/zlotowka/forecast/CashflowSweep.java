@@ -0,0 +1,60 @@
+package com.agh.zlotowka.forecast;
+
+import com.agh.zlotowka.model.PeriodEnum;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public final class CashflowSweep {
+
+    private CashflowSweep() {
+    }
+
+    public static long[] dailyDeltas(LocalDate from, LocalDate to, List<CashflowEvent> oneTimeEvents,
+                                     List<ScheduledCashflow> scheduledCashflows) {
+        if (to.isBefore(from)) {
+            return new long[0];
+        }
+        long[] deltas = new long[Math.toIntExact(to.toEpochDay() - from.toEpochDay() + 1)];
+        addDailyDeltas(deltas, from, oneTimeEvents, scheduledCashflows);
+        return deltas;
+    }
+
+    public static void addDailyDeltas(long[] deltas, LocalDate from, List<CashflowEvent> oneTimeEvents,
+                                      List<ScheduledCashflow> scheduledCashflows) {
+        if (deltas.length == 0) {
+            return;
+        }
+        long firstDay = from.toEpochDay();
+        int days = deltas.length;
+        LocalDate to = from.plusDays(days - 1);
+
+        for (CashflowEvent event : oneTimeEvents) {
+            long offset = event.date().toEpochDay() - firstDay;
+            if (offset >= 0 && offset < days) {
+                deltas[(int) offset] = Math.addExact(deltas[(int) offset], event.amountMinorUnits());
+            }
+        }
+
+        for (ScheduledCashflow cashflow : scheduledCashflows) {
+            LocalDate start = cashflow.from().isBefore(from) ? from : cashflow.from();
+            LocalDate end = cashflow.to().isAfter(to) ? to : cashflow.to();
+            if (end.isBefore(start)) {
+                continue;
+            }
+            Recurrence recurrence = cashflow.recurrence();
+            int step = recurrence.getPeriod() == PeriodEnum.DAILY ? 1 : recurrence.getPeriod() == PeriodEnum.WEEKLY ? 7 : 0;
+            if (step > 0) {
+                LocalDate first = recurrence.firstOnOrAfter(start);
+                for (long offset = first.toEpochDay() - firstDay; offset <= end.toEpochDay() - firstDay; offset += step) {
+                    deltas[(int) offset] = Math.addExact(deltas[(int) offset], cashflow.amountMinorUnits());
+                }
+            } else {
+                for (LocalDate date : recurrence.occurrencesBetween(start, end)) {
+                    int offset = (int) (date.toEpochDay() - firstDay);
+                    deltas[offset] = Math.addExact(deltas[offset], cashflow.amountMinorUnits());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.agh.zlotowka.forecast;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+public final class CashflowTimeline {
+    public static final int INCOME = 1;
+    public static final int RECURRING = 1 << 1;
+
+    private static final CashflowTimeline EMPTY = new CashflowTimeline(new int[0], new long[0], new byte[0], new int[0]);
+
+    private final int[] epochDays;
+    private final long[] amounts;
+    private final byte[] flags;
+    private final int[] eventCounts;
+    private final long[] prefixSums;
+    private final long[] incomePrefixSums;
+
+    private CashflowTimeline(int[] epochDays, long[] amounts, byte[] flags, int[] eventCounts) {
+        this.epochDays = epochDays;
+        this.amounts = amounts;
+        this.flags = flags;
+        this.eventCounts = eventCounts;
+        this.prefixSums = new long[epochDays.length];
+        this.incomePrefixSums = new long[epochDays.length];
+
+        long running = 0;
+        long income = 0;
+        for (int i = 0; i < epochDays.length; i++) {
+            running = Math.addExact(running, amounts[i]);
+            if ((flags[i] & INCOME) != 0) {
+                income = Math.addExact(income, amounts[i]);
+            }
+            prefixSums[i] = running;
+            incomePrefixSums[i] = income;
+        }
+    }
+
+    public static CashflowTimeline empty() {
+        return EMPTY;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return epochDays.length;
+    }
+
+    public int epochDay(int index) {
+        return epochDays[index];
+    }
+
+    public long amount(int index) {
+        return amounts[index];
+    }
+
+    public int eventCount(int index) {
+        return eventCounts[index];
+    }
+
+    public boolean isIncome(int index) {
+        return (flags[index] & INCOME) != 0;
+    }
+
+    public boolean isRecurring(int index) {
+        return (flags[index] & RECURRING) != 0;
+    }
+
+    public int indexAfter(LocalDate date) {
+        long day = date.toEpochDay();
+        int low = 0;
+        int high = epochDays.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (epochDays[middle] <= day) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    public long sumThrough(LocalDate date) {
+        return prefixBefore(prefixSums, indexAfter(date));
+    }
+
+    public long sumBetween(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            return 0;
+        }
+        return prefixBefore(prefixSums, indexAfter(to)) - prefixBefore(prefixSums, indexAfter(from.minusDays(1)));
+    }
+
+    public long incomeBetween(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            return 0;
+        }
+        return prefixBefore(incomePrefixSums, indexAfter(to)) - prefixBefore(incomePrefixSums, indexAfter(from.minusDays(1)));
+    }
+
+    public long expensesBetween(LocalDate from, LocalDate to) {
+        return sumBetween(from, to) - incomeBetween(from, to);
+    }
+
+    public CashflowTotals totalsBetween(LocalDate from, LocalDate to) {
+        return new CashflowTotals(incomeBetween(from, to), expensesBetween(from, to));
+    }
+
+    public long[] dailyDeltas(LocalDate from, LocalDate to) {
+        return daily(from, to, 0, 0);
+    }
+
+    public long[] dailyOneTimeExpenses(LocalDate from, LocalDate to) {
+        return daily(from, to, INCOME | RECURRING, 0);
+    }
+
+    private long[] daily(LocalDate from, LocalDate to, int mask, int expectedFlags) {
+        if (to.isBefore(from)) {
+            return new long[0];
+        }
+        long firstDay = from.toEpochDay();
+        long[] deltas = new long[Math.toIntExact(to.toEpochDay() - firstDay + 1)];
+        int end = indexAfter(to);
+        for (int i = indexAfter(from.minusDays(1)); i < end; i++) {
+            if ((flags[i] & mask) == expectedFlags) {
+                int offset = (int) (epochDays[i] - firstDay);
+                deltas[offset] = Math.addExact(deltas[offset], amounts[i]);
+            }
+        }
+        return deltas;
+    }
+
+    private static long prefixBefore(long[] prefix, int index) {
+        return index == 0 ? 0 : prefix[index - 1];
+    }
+
+    public static final class Builder {
+        private int[] epochDays = new int[16];
+        private long[] amounts = new long[16];
+        private byte[] flags = new byte[16];
+        private int[] eventCounts = new int[16];
+        private int size;
+
+        private Builder() {
+        }
+
+        public Builder add(LocalDate date, long amountMinorUnits, int eventFlags) {
+            return add(date, amountMinorUnits, eventFlags, 1);
+        }
+
+        public Builder add(LocalDate date, long amountMinorUnits, int eventFlags, int eventCount) {
+            if (size == epochDays.length) {
+                epochDays = Arrays.copyOf(epochDays, size * 2);
+                amounts = Arrays.copyOf(amounts, size * 2);
+                flags = Arrays.copyOf(flags, size * 2);
+                eventCounts = Arrays.copyOf(eventCounts, size * 2);
+            }
+            epochDays[size] = Math.toIntExact(date.toEpochDay());
+            amounts[size] = amountMinorUnits;
+            flags[size] = (byte) eventFlags;
+            eventCounts[size] = eventCount;
+            size++;
+            return this;
+        }
+
+        public Builder addOccurrences(Recurrence recurrence, LocalDate from, LocalDate to, long amountMinorUnits, int eventFlags) {
+            for (LocalDate date : recurrence.occurrencesBetween(from, to)) {
+                add(date, amountMinorUnits, eventFlags | RECURRING);
+            }
+            return this;
+        }
+
+        public CashflowTimeline build() {
+            long[] order = new long[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = ((long) epochDays[i] << 32) | i;
+            }
+            Arrays.sort(order);
+
+            int[] sortedDays = new int[size];
+            long[] sortedAmounts = new long[size];
+            byte[] sortedFlags = new byte[size];
+            int[] sortedCounts = new int[size];
+            for (int i = 0; i < size; i++) {
+                int source = (int) order[i];
+                sortedDays[i] = epochDays[source];
+                sortedAmounts[i] = amounts[source];
+                sortedFlags[i] = flags[source];
+                sortedCounts[i] = eventCounts[source];
+            }
+            return new CashflowTimeline(sortedDays, sortedAmounts, sortedFlags, sortedCounts);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.agh.zlotowka.forecast;
+
+public record CashflowTotals(
+        long incomeMinorUnits,
+        long expensesMinorUnits
+) {
+    public static final CashflowTotals ZERO = new CashflowTotals(0, 0);
+
+    public long netMinorUnits() {
+        return Math.addExact(incomeMinorUnits, expensesMinorUnits);
+    }
+}
@@ -0,0 +1,116 @@
+package com.agh.zlotowka.forecast;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.IntStream;
+
+public final class CompletionSimulation {
+    public static final int TRIALS_PER_CHUNK = 256;
+    public static final int NEVER = -1;
+
+    private final int trials;
+    private final int[][] histograms;
+
+    private CompletionSimulation(int trials, int[][] histograms) {
+        this.trials = trials;
+        this.histograms = histograms;
+    }
+
+    public static CompletionSimulation run(long openingBalance, long[] dailyDeltas, long[] dailyNoise, long[] targets,
+                                           int trials, long seed, Executor executor) {
+        if (trials <= 0) {
+            throw new IllegalArgumentException("Liczba prób symulacji musi być dodatnia");
+        }
+        if (dailyNoise.length == 0) {
+            dailyNoise = new long[1];
+        }
+        int[] order = IntStream.range(0, targets.length).boxed()
+                .sorted(Comparator.comparingLong(i -> targets[i]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        long[] sortedTargets = new long[targets.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedTargets[i] = targets[order[i]];
+        }
+
+        int chunks = (trials + TRIALS_PER_CHUNK - 1) / TRIALS_PER_CHUNK;
+        SplittableRandom root = new SplittableRandom(seed);
+        List<CompletableFuture<int[][]>> results = new ArrayList<>(chunks);
+        long[] noise = dailyNoise;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            SplittableRandom random = root.split();
+            int chunkTrials = Math.min(TRIALS_PER_CHUNK, trials - chunk * TRIALS_PER_CHUNK);
+            results.add(CompletableFuture.supplyAsync(
+                    () -> simulateChunk(openingBalance, dailyDeltas, noise, sortedTargets, chunkTrials, random), executor));
+        }
+
+        int[][] histograms = new int[targets.length][dailyDeltas.length + 1];
+        for (CompletableFuture<int[][]> result : results) {
+            int[][] chunkHistograms = result.join();
+            for (int i = 0; i < order.length; i++) {
+                int[] merged = histograms[order[i]];
+                int[] partial = chunkHistograms[i];
+                for (int day = 0; day < merged.length; day++) {
+                    merged[day] += partial[day];
+                }
+            }
+        }
+        return new CompletionSimulation(trials, histograms);
+    }
+
+    public int trials() {
+        return trials;
+    }
+
+    public int percentileDay(int target, double percentile) {
+        int required = Math.max(1, (int) Math.ceil(percentile * trials));
+        int[] histogram = histograms[target];
+        int completed = 0;
+        for (int day = 0; day < histogram.length; day++) {
+            completed += histogram[day];
+            if (completed >= required) {
+                return day;
+            }
+        }
+        return NEVER;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CompletionSimulation that)) return false;
+        return trials == that.trials && Arrays.deepEquals(histograms, that.histograms);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * trials + Arrays.deepHashCode(histograms);
+    }
+
+    private static int[][] simulateChunk(long openingBalance, long[] dailyDeltas, long[] dailyNoise, long[] sortedTargets,
+                                         int trials, SplittableRandom random) {
+        int[][] histograms = new int[sortedTargets.length][dailyDeltas.length + 1];
+        int targets = sortedTargets.length;
+        int noiseSize = dailyNoise.length;
+
+        for (int trial = 0; trial < trials; trial++) {
+            long balance = openingBalance;
+            int next = 0;
+            while (next < targets && balance >= sortedTargets[next]) {
+                histograms[next++][0]++;
+            }
+            for (int day = 0; day < dailyDeltas.length && next < targets; day++) {
+                balance += dailyDeltas[day] + dailyNoise[random.nextInt(noiseSize)];
+                while (next < targets && balance >= sortedTargets[next]) {
+                    histograms[next++][day + 1]++;
+                }
+            }
+        }
+        return histograms;
+    }
+}
@@ -0,0 +1,262 @@
+package com.agh.zlotowka.forecast;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+@Component
+public class ForecastCache implements MeterBinder {
+    private final Duration ttl;
+    private final int maxSize;
+    private final Clock clock;
+    private final LinkedHashMap<Key, Entry> entries;
+    private final LinkedHashMap<Integer, SeriesEntry> series;
+    private final ConcurrentHashMap<Integer, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong seriesBuilds = new AtomicLong();
+    private final AtomicLong seriesPatches = new AtomicLong();
+
+    @Autowired
+    public ForecastCache(
+            @Value("${forecast.cache.ttl:PT10M}") Duration ttl,
+            @Value("${forecast.cache.max-size:512}") int maxSize) {
+        this(ttl, maxSize, Clock.systemDefaultZone());
+    }
+
+    public ForecastCache(Duration ttl, int maxSize, Clock clock) {
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Czas życia wpisu w cache musi być dodatni");
+        }
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Rozmiar cache musi być dodatni");
+        }
+        this.ttl = ttl;
+        this.maxSize = maxSize;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > ForecastCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.series = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, SeriesEntry> eldest) {
+                return size() > ForecastCache.this.maxSize;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(int userId, String kind, Object parameters, Supplier<T> loader) {
+        Key key = new Key(userId, kind, parameters, getVersion(userId), LocalDate.now(clock));
+
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && !entry.isExpired(clock.instant())) {
+                hits.incrementAndGet();
+                return (T) entry.value();
+            }
+        }
+
+        misses.incrementAndGet();
+        T value = loader.get();
+
+        if (key.version() == getVersion(userId)) {
+            synchronized (this) {
+                entries.put(key, new Entry(value, clock.instant().plus(ttl)));
+            }
+        }
+        return value;
+    }
+
+    public void invalidate(int userId) {
+        bumpVersion(userId);
+        dropSeries(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    bumpVersion(userId);
+                    dropSeries(userId);
+                }
+            });
+        }
+    }
+
+    public ForecastSeries getSeries(int userId, LocalDate from, LocalDate requiredTo, Supplier<ForecastSeries> loader) {
+        synchronized (this) {
+            SeriesEntry entry = series.get(userId);
+            if (entry != null && entry.version() == getVersion(userId)
+                    && entry.series().getFrom().equals(from) && entry.series().covers(requiredTo)) {
+                return entry.series();
+            }
+        }
+
+        long version = getVersion(userId);
+        ForecastSeries loaded = loader.get();
+        seriesBuilds.incrementAndGet();
+
+        if (version == getVersion(userId)) {
+            synchronized (this) {
+                series.put(userId, new SeriesEntry(loaded, version));
+            }
+        }
+        return loaded;
+    }
+
+    public void patchSeries(int userId, Supplier<ForecastChange> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            applyPatch(userId, List.of(change), bumpVersion(userId));
+            return;
+        }
+        PendingKey key = new PendingKey(this, userId);
+        PendingPatches pending = (PendingPatches) TransactionSynchronizationManager.getResource(key);
+        if (pending == null) {
+            pending = new PendingPatches(key, bumpVersion(userId));
+            TransactionSynchronizationManager.bindResource(key, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.changes.add(change);
+    }
+
+    public synchronized void dropSeries(int userId) {
+        series.remove(userId);
+    }
+
+    public synchronized void invalidateAll() {
+        versions.values().forEach(AtomicLong::incrementAndGet);
+        entries.clear();
+        series.clear();
+    }
+
+    public long getVersion(int userId) {
+        AtomicLong version = versions.get(userId);
+        return version == null ? 0 : version.get();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public CacheStats getStats() {
+        return new CacheStats(hits.get(), misses.get(), evictions.get(), size());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("forecast.cache.hits", hits, AtomicLong::get).register(registry);
+        FunctionCounter.builder("forecast.cache.misses", misses, AtomicLong::get).register(registry);
+        FunctionCounter.builder("forecast.cache.evictions", evictions, AtomicLong::get).register(registry);
+        Gauge.builder("forecast.cache.size", this, ForecastCache::size).register(registry);
+        FunctionCounter.builder("forecast.series.builds", seriesBuilds, AtomicLong::get).register(registry);
+        FunctionCounter.builder("forecast.series.patches", seriesPatches, AtomicLong::get).register(registry);
+    }
+
+    private void applyPatch(int userId, List<Supplier<ForecastChange>> changes, long changeVersion) {
+        SeriesEntry entry;
+        synchronized (this) {
+            entry = series.get(userId);
+            if (entry == null) {
+                return;
+            }
+            if (entry.version() >= changeVersion) {
+                series.remove(userId);
+                return;
+            }
+        }
+
+        try {
+            ForecastSeries patched = entry.series();
+            for (Supplier<ForecastChange> change : changes) {
+                ForecastChange computed = change.get();
+                if (computed == null) {
+                    dropSeries(userId);
+                    return;
+                }
+                patched = patched.patch(computed);
+            }
+            synchronized (this) {
+                if (series.get(userId) == entry) {
+                    series.put(userId, new SeriesEntry(patched, getVersion(userId)));
+                    seriesPatches.incrementAndGet();
+                }
+            }
+        } catch (RuntimeException e) {
+            dropSeries(userId);
+        }
+    }
+
+    private long bumpVersion(int userId) {
+        return versions.computeIfAbsent(userId, id -> new AtomicLong()).incrementAndGet();
+    }
+
+    private record Key(int userId, String kind, Object parameters, long version, LocalDate today) {
+    }
+
+    private record SeriesEntry(ForecastSeries series, long version) {
+    }
+
+    private record PendingKey(ForecastCache cache, int userId) {
+    }
+
+    private final class PendingPatches implements TransactionSynchronization {
+        private final PendingKey key;
+        private final long changeVersion;
+        private final List<Supplier<ForecastChange>> changes = new ArrayList<>();
+
+        private PendingPatches(PendingKey key, long changeVersion) {
+            this.key = key;
+            this.changeVersion = changeVersion;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(key);
+            bumpVersion(key.userId());
+            if (status == STATUS_COMMITTED) {
+                applyPatch(key.userId(), changes, changeVersion);
+            } else {
+                dropSeries(key.userId());
+            }
+        }
+    }
+
+    private record Entry(Object value, Instant expiresAt) {
+        boolean isExpired(Instant now) {
+            return !now.isBefore(expiresAt);
+        }
+    }
+
+    public record CacheStats(long hits, long misses, long evictions, int size) {
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.agh.zlotowka.forecast;
+
+import java.util.List;
+
+public record ForecastChange(
+        List<CashflowEvent> removedEvents,
+        List<CashflowEvent> addedEvents,
+        List<ScheduledCashflow> removedSchedules,
+        List<ScheduledCashflow> addedSchedules
+) {
+    public static ForecastChange ofEvents(CashflowEvent removed, CashflowEvent added) {
+        return new ForecastChange(listOf(removed), listOf(added), List.of(), List.of());
+    }
+
+    public static ForecastChange ofSchedules(ScheduledCashflow removed, ScheduledCashflow added) {
+        return new ForecastChange(List.of(), List.of(), listOf(removed), listOf(added));
+    }
+
+    private static <T> List<T> listOf(T element) {
+        return element == null ? List.of() : List.of(element);
+    }
+}
@@ -0,0 +1,201 @@
+package com.agh.zlotowka.forecast;
+
+import com.agh.zlotowka.dto.SinglePlotData;
+import com.agh.zlotowka.model.Money;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+public final class ForecastSeries {
+    private final LocalDate from;
+    private final LocalDate to;
+    private final long[] epochDays;
+    private final long[] cumulative;
+    private final int[] eventCounts;
+
+    private ForecastSeries(LocalDate from, LocalDate to, long[] epochDays, long[] cumulative, int[] eventCounts) {
+        this.from = from;
+        this.to = to;
+        this.epochDays = epochDays;
+        this.cumulative = cumulative;
+        this.eventCounts = eventCounts;
+    }
+
+    public static ForecastSeries build(LocalDate from, LocalDate to, CashflowTimeline timeline) {
+        int first = timeline.indexAfter(from);
+        int last = timeline.indexAfter(to);
+        long[] days = new long[last - first];
+        long[] sums = new long[last - first];
+        int[] counts = new int[last - first];
+        int size = 0;
+        long running = 0;
+
+        for (int i = first; i < last; i++) {
+            running = Math.addExact(running, timeline.amount(i));
+            if (size > 0 && days[size - 1] == timeline.epochDay(i)) {
+                sums[size - 1] = running;
+                counts[size - 1] += timeline.eventCount(i);
+                continue;
+            }
+            days[size] = timeline.epochDay(i);
+            sums[size] = running;
+            counts[size] = timeline.eventCount(i);
+            size++;
+        }
+
+        return new ForecastSeries(from, to, Arrays.copyOf(days, size), Arrays.copyOf(sums, size), Arrays.copyOf(counts, size));
+    }
+
+    public ForecastSeries patch(ForecastChange change) {
+        TreeMap<Long, long[]> deltas = new TreeMap<>();
+        for (CashflowEvent event : change.removedEvents()) {
+            addDelta(deltas, event.date(), -event.amountMinorUnits(), -1);
+        }
+        for (CashflowEvent event : change.addedEvents()) {
+            addDelta(deltas, event.date(), event.amountMinorUnits(), 1);
+        }
+        for (ScheduledCashflow cashflow : change.removedSchedules()) {
+            ScheduledCashflow clamped = clamp(cashflow, from, to);
+            for (LocalDate date : clamped.recurrence().occurrencesBetween(clamped.from(), clamped.to())) {
+                addDelta(deltas, date, -cashflow.amountMinorUnits(), -1);
+            }
+        }
+        for (ScheduledCashflow cashflow : change.addedSchedules()) {
+            ScheduledCashflow clamped = clamp(cashflow, from, to);
+            for (LocalDate date : clamped.recurrence().occurrencesBetween(clamped.from(), clamped.to())) {
+                addDelta(deltas, date, cashflow.amountMinorUnits(), 1);
+            }
+        }
+
+        if (deltas.isEmpty()) {
+            return this;
+        }
+
+        int capacity = epochDays.length + deltas.size();
+        long[] days = new long[capacity];
+        long[] sums = new long[capacity];
+        int[] counts = new int[capacity];
+        int size = 0;
+
+        Iterator<Map.Entry<Long, long[]>> pending = deltas.entrySet().iterator();
+        Map.Entry<Long, long[]> delta = pending.next();
+        long shift = 0;
+        long previousCumulative = 0;
+        int index = 0;
+
+        while (index < epochDays.length || delta != null) {
+            long day;
+            int baseCount;
+
+            if (delta == null || (index < epochDays.length && epochDays[index] < delta.getKey())) {
+                day = epochDays[index];
+                previousCumulative = cumulative[index];
+                baseCount = eventCounts[index];
+                index++;
+            } else {
+                day = delta.getKey();
+                baseCount = (int) delta.getValue()[1];
+                shift = Math.addExact(shift, delta.getValue()[0]);
+                if (index < epochDays.length && epochDays[index] == day) {
+                    previousCumulative = cumulative[index];
+                    baseCount += eventCounts[index];
+                    index++;
+                }
+                delta = pending.hasNext() ? pending.next() : null;
+            }
+
+            if (baseCount < 0) {
+                throw new IllegalStateException("Usunięto zdarzenie, którego nie ma w prognozie");
+            }
+            if (baseCount > 0) {
+                days[size] = day;
+                sums[size] = Math.addExact(previousCumulative, shift);
+                counts[size] = baseCount;
+                size++;
+            }
+        }
+
+        return new ForecastSeries(from, to, Arrays.copyOf(days, size), Arrays.copyOf(sums, size), Arrays.copyOf(counts, size));
+    }
+
+    public boolean covers(LocalDate date) {
+        return !date.isAfter(to);
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public int size() {
+        return epochDays.length;
+    }
+
+    public long cumulativeThrough(LocalDate date) {
+        int index = Arrays.binarySearch(epochDays, date.toEpochDay());
+        int last = index >= 0 ? index : -index - 2;
+        return last < 0 ? 0 : cumulative[last];
+    }
+
+    public Iterator<SinglePlotData> points(long openingMinorUnits, LocalDate startDate, LocalDate endDate, String currencyIsoCode) {
+        int startIndex = Arrays.binarySearch(epochDays, startDate.toEpochDay());
+        int first = startIndex >= 0 ? startIndex : -startIndex - 1;
+        long endDay = endDate.toEpochDay();
+
+        return new Iterator<>() {
+            private int next = first;
+
+            @Override
+            public boolean hasNext() {
+                return next < epochDays.length && epochDays[next] <= endDay;
+            }
+
+            @Override
+            public SinglePlotData next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int current = next++;
+                return new SinglePlotData(LocalDate.ofEpochDay(epochDays[current]),
+                        Money.toBigDecimal(Math.addExact(openingMinorUnits, cumulative[current])), currencyIsoCode);
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ForecastSeries that)) return false;
+        return from.equals(that.from) && to.equals(that.to)
+                && Arrays.equals(epochDays, that.epochDays)
+                && Arrays.equals(cumulative, that.cumulative)
+                && Arrays.equals(eventCounts, that.eventCounts);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(epochDays) + Arrays.hashCode(cumulative);
+    }
+
+    private void addDelta(TreeMap<Long, long[]> deltas, LocalDate date, long amount, int count) {
+        if (!date.isAfter(from) || date.isAfter(to)) {
+            return;
+        }
+        long[] delta = deltas.computeIfAbsent(date.toEpochDay(), day -> new long[2]);
+        delta[0] = Math.addExact(delta[0], amount);
+        delta[1] += count;
+    }
+
+    private static ScheduledCashflow clamp(ScheduledCashflow cashflow, LocalDate from, LocalDate to) {
+        LocalDate start = cashflow.from().isAfter(from) ? cashflow.from() : from.plusDays(1);
+        LocalDate end = cashflow.to().isAfter(to) ? to : cashflow.to();
+        return new ScheduledCashflow(cashflow.recurrence(), start, end, cashflow.amountMinorUnits());
+    }
+}
@@ -0,0 +1,74 @@
+package com.agh.zlotowka.forecast;
+
+import com.agh.zlotowka.dto.SinglePlotData;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class PlotDownsampler {
+    public static final int MIN_POINTS = 3;
+
+    private PlotDownsampler() {
+    }
+
+    public static List<SinglePlotData> downsample(List<SinglePlotData> points, int maxPoints) {
+        if (maxPoints < MIN_POINTS) {
+            throw new IllegalArgumentException(String.format("Liczba punktów wykresu musi wynosić co najmniej %d", MIN_POINTS));
+        }
+        if (points.size() <= maxPoints) {
+            return points;
+        }
+
+        int size = points.size();
+        double[] x = new double[size];
+        double[] y = new double[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = points.get(i).date().toEpochDay();
+            y[i] = points.get(i).amount().doubleValue();
+        }
+
+        List<SinglePlotData> sampled = new ArrayList<>(maxPoints);
+        sampled.add(points.getFirst());
+
+        int buckets = maxPoints - 2;
+        int selected = 0;
+
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            int bucketStart = bucketBoundary(bucket, size, buckets);
+            int bucketEnd = bucketBoundary(bucket + 1, size, buckets);
+
+            int nextStart = bucketEnd;
+            int nextEnd = Math.min(bucketBoundary(bucket + 2, size, buckets), size);
+            double nextX = 0;
+            double nextY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                nextX += x[i];
+                nextY += y[i];
+            }
+            int nextCount = nextEnd - nextStart;
+            nextX /= nextCount;
+            nextY /= nextCount;
+
+            double maxArea = -1;
+            int chosen = bucketStart;
+            for (int i = bucketStart; i < bucketEnd; i++) {
+                double area = Math.abs((x[selected] - nextX) * (y[i] - y[selected])
+                        - (x[selected] - x[i]) * (nextY - y[selected]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+
+            sampled.add(points.get(chosen));
+            selected = chosen;
+        }
+
+        sampled.add(points.getLast());
+        return sampled;
+    }
+
+    private static int bucketBoundary(int bucket, int size, int buckets) {
+        return 1 + (int) ((long) bucket * (size - 2) / buckets);
+    }
+}
@@ -0,0 +1,132 @@
+package com.agh.zlotowka.forecast;
+
+import com.agh.zlotowka.dto.SinglePlotData;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+public final class PlotSeries {
+
+    private PlotSeries() {
+    }
+
+    public static Iterator<SinglePlotData> mergeByDate(List<Iterator<SinglePlotData>> sourcesByPrecedence) {
+        return new MergingIterator(sourcesByPrecedence);
+    }
+
+    public static Iterator<SinglePlotData> lazy(Supplier<Iterator<SinglePlotData>> source) {
+        return new Iterator<>() {
+            private Iterator<SinglePlotData> delegate;
+
+            @Override
+            public boolean hasNext() {
+                if (delegate == null) {
+                    delegate = source.get();
+                }
+                return delegate.hasNext();
+            }
+
+            @Override
+            public SinglePlotData next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return delegate.next();
+            }
+        };
+    }
+
+    public static Iterator<SinglePlotData> paged(LocalDate after, LocalDate endDate, int pageDays,
+                                                 BiFunction<LocalDate, LocalDate, List<SinglePlotData>> page) {
+        if (pageDays < 1) {
+            throw new IllegalArgumentException("pageDays must be positive");
+        }
+        return new Iterator<>() {
+            private LocalDate cursor = after;
+            private Iterator<SinglePlotData> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && cursor.isBefore(endDate)) {
+                    LocalDate pageEnd = cursor.plusDays(pageDays).isBefore(endDate) ? cursor.plusDays(pageDays) : endDate;
+                    current = page.apply(cursor, pageEnd).iterator();
+                    cursor = pageEnd;
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public SinglePlotData next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    public static List<SinglePlotData> toList(Iterator<SinglePlotData> points) {
+        List<SinglePlotData> result = new ArrayList<>();
+        points.forEachRemaining(result::add);
+        return result;
+    }
+
+    private static final class MergingIterator implements Iterator<SinglePlotData> {
+        private final List<Iterator<SinglePlotData>> sources;
+        private final SinglePlotData[] heads;
+        private boolean started;
+
+        private MergingIterator(List<Iterator<SinglePlotData>> sources) {
+            this.sources = sources;
+            this.heads = new SinglePlotData[sources.size()];
+        }
+
+        @Override
+        public boolean hasNext() {
+            start();
+            for (SinglePlotData head : heads) {
+                if (head != null) return true;
+            }
+            return false;
+        }
+
+        private void start() {
+            if (started) {
+                return;
+            }
+            started = true;
+            for (int i = 0; i < heads.length; i++) {
+                heads[i] = sources.get(i).hasNext() ? sources.get(i).next() : null;
+            }
+        }
+
+        @Override
+        public SinglePlotData next() {
+            start();
+            LocalDate date = null;
+            for (SinglePlotData head : heads) {
+                if (head != null && (date == null || head.date().isBefore(date))) {
+                    date = head.date();
+                }
+            }
+            if (date == null) {
+                throw new NoSuchElementException();
+            }
+
+            SinglePlotData point = null;
+            for (int i = 0; i < heads.length; i++) {
+                while (heads[i] != null && heads[i].date().equals(date)) {
+                    point = heads[i];
+                    heads[i] = sources.get(i).hasNext() ? sources.get(i).next() : null;
+                }
+            }
+            return point;
+        }
+    }
+}
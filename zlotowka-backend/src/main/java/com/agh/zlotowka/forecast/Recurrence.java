@@ -0,0 +1,123 @@
+package com.agh.zlotowka.forecast;
+
+import com.agh.zlotowka.model.PeriodEnum;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public final class Recurrence {
+    private final PeriodEnum period;
+    private final LocalDate anchor;
+
+    private Recurrence(PeriodEnum period, LocalDate anchor) {
+        this.period = period;
+        this.anchor = anchor;
+    }
+
+    public static Recurrence of(PeriodEnum period, LocalDate anchor) {
+        if (period == null || anchor == null) {
+            throw new IllegalArgumentException("Okres i data początkowa nie mogą być puste");
+        }
+        return new Recurrence(period, anchor);
+    }
+
+    public LocalDate occurrence(long index) {
+        if (index < 0) {
+            throw new IllegalArgumentException("Numer wystąpienia nie może być ujemny");
+        }
+        return switch (period) {
+            case DAILY -> anchor.plusDays(index);
+            case WEEKLY -> anchor.plusWeeks(index);
+            case MONTHLY -> anchor.plusMonths(index);
+            case YEARLY -> index > 0 && anchor.getMonth() == Month.FEBRUARY && anchor.getDayOfMonth() == 29
+                    ? LocalDate.of(Math.toIntExact(anchor.getYear() + index), Month.FEBRUARY, 28)
+                    : anchor.plusYears(index);
+            case ONCE -> {
+                if (index > 0) throw new IllegalArgumentException("Transakcja jednorazowa ma tylko jedno wystąpienie");
+                yield anchor;
+            }
+        };
+    }
+
+    public long indexOnOrAfter(LocalDate date) {
+        if (!date.isAfter(anchor)) {
+            return 0;
+        }
+        long index = switch (period) {
+            case DAILY -> ChronoUnit.DAYS.between(anchor, date);
+            case WEEKLY -> Math.ceilDiv(ChronoUnit.DAYS.between(anchor, date), 7);
+            case MONTHLY -> monthIndex(date);
+            case YEARLY -> date.getYear() - anchor.getYear();
+            case ONCE -> 1;
+        };
+        if (period != PeriodEnum.ONCE && occurrence(index).isBefore(date)) {
+            index++;
+        }
+        return index;
+    }
+
+    public LocalDate firstOnOrAfter(LocalDate date) {
+        long index = indexOnOrAfter(date);
+        return period == PeriodEnum.ONCE && index > 0 ? null : occurrence(index);
+    }
+
+    public LocalDate nextAfter(LocalDate date) {
+        return firstOnOrAfter(date.plusDays(1));
+    }
+
+    public long countBetween(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            return 0;
+        }
+        return Math.max(0, indexOnOrAfter(to.plusDays(1)) - indexOnOrAfter(from));
+    }
+
+    public Iterable<LocalDate> occurrencesFrom(LocalDate from) {
+        return () -> new OccurrenceIterator(indexOnOrAfter(from), period == PeriodEnum.ONCE ? 1 : Long.MAX_VALUE);
+    }
+
+    public Iterable<LocalDate> occurrencesBetween(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            return () -> new OccurrenceIterator(0, 0);
+        }
+        return () -> new OccurrenceIterator(indexOnOrAfter(from), indexOnOrAfter(to.plusDays(1)));
+    }
+
+    public PeriodEnum getPeriod() {
+        return period;
+    }
+
+    public LocalDate getAnchor() {
+        return anchor;
+    }
+
+    private long monthIndex(LocalDate date) {
+        return (date.getYear() - anchor.getYear()) * 12L + date.getMonthValue() - anchor.getMonthValue();
+    }
+
+    private final class OccurrenceIterator implements Iterator<LocalDate> {
+        private long next;
+        private final long end;
+
+        private OccurrenceIterator(long start, long end) {
+            this.next = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < end;
+        }
+
+        @Override
+        public LocalDate next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return occurrence(next++);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.agh.zlotowka.forecast;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public final class ScenarioSimulator {
+    private final LocalDate start;
+    private final long openingBalance;
+    private final long[] baseDeltas;
+
+    public ScenarioSimulator(LocalDate start, LocalDate end, CashflowTimeline timeline, long openingBalance) {
+        this.start = start;
+        this.openingBalance = openingBalance;
+        this.baseDeltas = timeline.dailyDeltas(start.plusDays(1), end);
+    }
+
+    public BalanceCurve simulate(List<CashflowEvent> eventChanges, List<ScheduledCashflow> scheduleChanges) {
+        long[] deltas = baseDeltas.clone();
+        CashflowSweep.addDailyDeltas(deltas, start.plusDays(1), eventChanges, scheduleChanges);
+        return BalanceCurve.of(start, openingBalance, deltas);
+    }
+}
@@ -0,0 +1,11 @@
+package com.agh.zlotowka.forecast;
+
+import java.time.LocalDate;
+
+public record ScheduledCashflow(
+        Recurrence recurrence,
+        LocalDate from,
+        LocalDate to,
+        long amountMinorUnits
+) {
+}
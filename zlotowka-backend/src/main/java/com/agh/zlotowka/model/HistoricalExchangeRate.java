@@ -0,0 +1,38 @@
+package com.agh.zlotowka.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "historical_exchange_rates",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"currency_code", "epoch_day"}))
+public class HistoricalExchangeRate {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "rate_id")
+    private Long rateId;
+
+    @Column(name = "currency_code", nullable = false, length = 16)
+    private String currencyCode;
+
+    @Column(name = "epoch_day", nullable = false)
+    private Long epochDay;
+
+    @Column(name = "rate", nullable = false, precision = 30, scale = 12)
+    private BigDecimal rate;
+}
@@ -0,0 +1,20 @@
+package com.agh.zlotowka.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+public final class Money {
+    public static final int SCALE = 2;
+    public static final RoundingMode ROUNDING = RoundingMode.HALF_UP;
+
+    private Money() {
+    }
+
+    public static long toMinorUnits(BigDecimal amount) {
+        return amount.setScale(SCALE, ROUNDING).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+}
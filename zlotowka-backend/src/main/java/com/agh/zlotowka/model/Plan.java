@@ -12,6 +12,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -22,6 +24,7 @@ import java.time.LocalDate;
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(name = "plans")
+@DynamicUpdate
 public class Plan {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -53,4 +56,24 @@ public class Plan {
 
     @Column(name = "completed")
     private Boolean completed;
+
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(name = "subplan_count", nullable = false)
+    private Integer subplanCount = 0;
+
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(name = "completed_subplan_count", nullable = false)
+    private Integer completedCount = 0;
+
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(name = "total_subplan_amount", nullable = false)
+    private BigDecimal totalSubplanAmount = BigDecimal.ZERO;
+
+    @Builder.Default
+    @ColumnDefault("0")
+    @Column(name = "completed_subplan_amount", nullable = false)
+    private BigDecimal completedAmount = BigDecimal.ZERO;
 }
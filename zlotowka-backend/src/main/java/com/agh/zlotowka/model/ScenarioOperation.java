@@ -0,0 +1,7 @@
+package com.agh.zlotowka.model;
+
+public enum ScenarioOperation {
+    ADD,
+    REMOVE,
+    SCALE
+}
@@ -0,0 +1,48 @@
+package com.agh.zlotowka.repository;
+
+import com.agh.zlotowka.model.BalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+    @Query("SELECT COUNT(s) > 0 FROM BalanceSnapshot s WHERE s.user.userId = :userId")
+    boolean existsByUserId(@Param("userId") int userId);
+
+    @Query("SELECT COUNT(s) > 0 FROM BalanceSnapshot s WHERE s.user.userId = :userId AND s.snapshotDate = :date")
+    boolean existsByUserIdAndDate(@Param("userId") int userId, @Param("date") LocalDate date);
+
+    @Query("SELECT s.balance FROM BalanceSnapshot s WHERE s.user.userId = :userId AND s.snapshotDate <= :date ORDER BY s.snapshotDate DESC LIMIT 1")
+    Optional<BigDecimal> findBalanceAt(@Param("userId") int userId, @Param("date") LocalDate date);
+
+    @Query("SELECT s.balance FROM BalanceSnapshot s WHERE s.user.userId = :userId ORDER BY s.snapshotDate ASC LIMIT 1")
+    Optional<BigDecimal> findOpeningBalance(@Param("userId") int userId);
+
+    @Query("SELECT s FROM BalanceSnapshot s WHERE s.user.userId = :userId AND s.snapshotDate > :startDate AND s.snapshotDate <= :endDate ORDER BY s.snapshotDate ASC")
+    List<BalanceSnapshot> findInRange(
+            @Param("userId") int userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT u.userId FROM User u WHERE NOT EXISTS (SELECT s FROM BalanceSnapshot s WHERE s.user = u)")
+    List<Integer> findUserIdsWithoutSnapshots();
+
+    @Query("SELECT s FROM BalanceSnapshot s WHERE s.user.userId = :userId ORDER BY s.snapshotDate ASC")
+    List<BalanceSnapshot> findAllByUserId(@Param("userId") int userId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE BalanceSnapshot s SET s.balance = s.balance + :delta WHERE s.user.userId = :userId AND s.snapshotDate >= :date")
+    int shiftBalancesFrom(@Param("userId") int userId, @Param("date") LocalDate date, @Param("delta") BigDecimal delta);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM BalanceSnapshot s WHERE s.user.userId = :userId")
+    void deleteAllByUserId(@Param("userId") int userId);
+}
@@ -0,0 +1,9 @@
+package com.agh.zlotowka.repository;
+
+import com.agh.zlotowka.model.HistoricalExchangeRate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface HistoricalExchangeRateRepository extends JpaRepository<HistoricalExchangeRate, Long> {
+}
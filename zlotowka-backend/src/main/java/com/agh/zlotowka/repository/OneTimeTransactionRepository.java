@@ -1,5 +1,6 @@
 package com.agh.zlotowka.repository;
 
+import com.agh.zlotowka.dto.DailyTransactionSum;
 import com.agh.zlotowka.model.OneTimeTransaction;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -19,6 +20,23 @@ public interface OneTimeTransactionRepository extends JpaRepository<OneTimeTrans
             @Param("startDate") LocalDate startDate,
             @Param("endDate") LocalDate endDate);
 
+    @Query("SELECT new com.agh.zlotowka.dto.DailyTransactionSum(t.date, t.currency.currencyId, t.isIncome, SUM(t.amount), COUNT(t)) " +
+            "FROM OneTimeTransaction t " +
+            "WHERE t.user.userId = :userId AND t.date >= :startDate AND t.date <= :endDate " +
+            "GROUP BY t.date, t.currency.currencyId, t.isIncome " +
+            "ORDER BY t.date ASC")
+    List<DailyTransactionSum> sumDailyInRange(
+            @Param("userId") int userId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT new com.agh.zlotowka.dto.DailyTransactionSum(t.date, t.currency.currencyId, t.isIncome, SUM(t.amount), COUNT(t)) " +
+            "FROM OneTimeTransaction t " +
+            "WHERE t.user.userId = :userId AND t.date <= :now " +
+            "GROUP BY t.date, t.currency.currencyId, t.isIncome " +
+            "ORDER BY t.date DESC")
+    List<DailyTransactionSum> sumDailyUpTo(@Param("userId") int userId, @Param("now") LocalDate now);
+
     @Query("SELECT t FROM OneTimeTransaction t WHERE t.user.userId = :userId")
     List<OneTimeTransaction> findAllByUserId(@Param("userId") int userId);
 
@@ -1,12 +1,18 @@
 package com.agh.zlotowka.repository;
 
+import com.agh.zlotowka.dto.SubplanAggregate;
 import com.agh.zlotowka.model.Plan;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PlanRepository extends JpaRepository<Plan, Integer> {
@@ -15,4 +21,29 @@ public interface PlanRepository extends JpaRepository<Plan, Integer> {
 
     @Query("SELECT p FROM Plan p WHERE p.user.userId = :userId AND p.completed = false")
     List<Plan> findAllUncompletedByUser(@Param("userId") Integer userId);
+
+    @Query("SELECT p.planId FROM Plan p")
+    List<Integer> findAllIds();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Plan p WHERE p.planId = :planId")
+    Optional<Plan> findByIdForUpdate(@Param("planId") Integer planId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Plan p SET p.subplanCount = p.subplanCount + :subplanDelta, " +
+            "p.completedCount = p.completedCount + :completedDelta, " +
+            "p.totalSubplanAmount = p.totalSubplanAmount + :amountDelta, " +
+            "p.completedAmount = p.completedAmount + :completedAmountDelta " +
+            "WHERE p.planId = :planId")
+    int addSubplanAggregates(
+            @Param("planId") Integer planId,
+            @Param("subplanDelta") int subplanDelta,
+            @Param("completedDelta") int completedDelta,
+            @Param("amountDelta") BigDecimal amountDelta,
+            @Param("completedAmountDelta") BigDecimal completedAmountDelta);
+
+    @Query("SELECT new com.agh.zlotowka.dto.SubplanAggregate(p.planId, CAST(p.subplanCount AS Long), " +
+            "CAST(p.completedCount AS Long), p.totalSubplanAmount, p.completedAmount) " +
+            "FROM Plan p WHERE p.planId = :planId")
+    SubplanAggregate findSubplanAggregates(@Param("planId") Integer planId);
 }
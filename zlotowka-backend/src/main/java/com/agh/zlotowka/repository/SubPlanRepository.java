@@ -1,30 +1,31 @@
 package com.agh.zlotowka.repository;
 
+import com.agh.zlotowka.dto.SubplanAggregate;
 import com.agh.zlotowka.model.Subplan;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface SubPlanRepository extends JpaRepository<Subplan, Integer> {
     @Query("SELECT sp FROM Subplan sp WHERE sp.plan.planId = :planId")
     List<Subplan> findAllSubPlansByPlanId(@Param("planId") Integer planId);
 
-    @Query("SELECT COALESCE(SUM(sp.requiredAmount), 0) FROM Subplan sp WHERE sp.plan.planId = :planId")
-    BigDecimal getTotalSubPlanAmount(@Param("planId") Integer planId);
-
-    @Query("SELECT COALESCE(SUM(sp.requiredAmount), 0) FROM Subplan sp WHERE sp.plan.planId = :planId AND sp.completed = true")
-    BigDecimal getTotalSubPlanAmountCompleted(@Param("planId") Integer planId);
-
-    @Query("SELECT COUNT(sp) FROM Subplan sp WHERE sp.plan.planId = :planId AND sp.completed = true")
-    Integer getCompletedSubPlanCount(@Param("planId") Integer planId);
-
-    @Query("SELECT COUNT(sp) FROM Subplan sp WHERE sp.plan.planId = :planId")
-    Integer getSubplanCount(@Param("planId") Integer planId);
+    @Query("SELECT new com.agh.zlotowka.dto.SubplanAggregate(sp.plan.planId, COUNT(sp), " +
+            "SUM(CASE WHEN sp.completed = true THEN 1 ELSE 0 END), SUM(sp.requiredAmount), " +
+            "SUM(CASE WHEN sp.completed = true THEN sp.requiredAmount ELSE 0 END)) " +
+            "FROM Subplan sp GROUP BY sp.plan.planId")
+    List<SubplanAggregate> aggregateAllByPlan();
+
+    @Query("SELECT new com.agh.zlotowka.dto.SubplanAggregate(sp.plan.planId, COUNT(sp), " +
+            "SUM(CASE WHEN sp.completed = true THEN 1 ELSE 0 END), SUM(sp.requiredAmount), " +
+            "SUM(CASE WHEN sp.completed = true THEN sp.requiredAmount ELSE 0 END)) " +
+            "FROM Subplan sp WHERE sp.plan.planId = :planId GROUP BY sp.plan.planId")
+    Optional<SubplanAggregate> aggregateByPlan(@Param("planId") Integer planId);
 
     @Query("SELECT sp FROM Subplan sp WHERE sp.plan.planId = :planId AND sp.completed = false")
     List<Subplan> findAllUncompletedSubPlansByPlanId(@Param("planId") Integer planId);
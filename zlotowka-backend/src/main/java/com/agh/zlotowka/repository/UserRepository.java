@@ -1,7 +1,9 @@
 package com.agh.zlotowka.repository;
 
 import com.agh.zlotowka.model.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -14,6 +16,10 @@ public interface UserRepository extends JpaRepository<User, Integer> {
 
     Optional<User> findByEmail(String email);
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.userId = :userId")
+    Optional<User> findByIdForUpdate(@Param("userId") int userId);
+
     @Query("SELECT u.currentBudget FROM User u WHERE u.userId = :userId")
     Optional<BigDecimal> getUserBudget(@Param("userId") int userId);
 
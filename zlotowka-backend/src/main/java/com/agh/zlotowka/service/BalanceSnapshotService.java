@@ -0,0 +1,222 @@
+package com.agh.zlotowka.service;
+
+import com.agh.zlotowka.dto.DailyTransactionSum;
+import com.agh.zlotowka.dto.SinglePlotData;
+import com.agh.zlotowka.exception.CurrencyConversionException;
+import com.agh.zlotowka.forecast.BalanceIndex;
+import com.agh.zlotowka.forecast.BalanceIndexCache;
+import com.agh.zlotowka.model.BalanceSnapshot;
+import com.agh.zlotowka.model.Money;
+import com.agh.zlotowka.model.User;
+import com.agh.zlotowka.repository.BalanceSnapshotRepository;
+import com.agh.zlotowka.repository.OneTimeTransactionRepository;
+import com.agh.zlotowka.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BalanceSnapshotService {
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+    private final OneTimeTransactionRepository oneTimeTransactionRepository;
+    private final UserRepository userRepository;
+    private final CurrencyService currencyService;
+    private final BalanceIndexCache balanceIndexCache;
+    private final PlatformTransactionManager transactionManager;
+
+    @Transactional
+    public void recordChange(User user, LocalDate date, BigDecimal delta) {
+        if (user.getUserId() == null || delta.signum() == 0) {
+            return;
+        }
+
+        int userId = user.getUserId();
+        userRepository.findByIdForUpdate(userId);
+        if (!balanceSnapshotRepository.existsByUserId(userId)) {
+            seedAfterCommit(userId);
+            return;
+        }
+
+        LocalDate today = LocalDate.now();
+        LocalDate effectiveDate = date == null || date.isAfter(today) ? today : date;
+
+        if (!balanceSnapshotRepository.existsByUserIdAndDate(userId, effectiveDate)) {
+            BigDecimal carried = balanceSnapshotRepository.findBalanceAt(userId, effectiveDate).orElse(null);
+            if (carried == null) {
+                carried = balanceSnapshotRepository.findOpeningBalance(userId).orElseThrow();
+                balanceSnapshotRepository.save(snapshot(user, effectiveDate.minusDays(1), carried));
+            }
+            balanceSnapshotRepository.save(snapshot(user, effectiveDate, carried));
+        }
+
+        balanceSnapshotRepository.shiftBalancesFrom(userId, effectiveDate, delta);
+        balanceIndexCache.recordChange(userId, effectiveDate, Money.toMinorUnits(delta));
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal getBalanceAt(User user, LocalDate date) {
+        if (balanceIndexCache.isEnabled()) {
+            return Money.toBigDecimal(balanceIndexCache.query(user.getUserId(), () -> buildIndex(user), index -> index.balanceAt(date)));
+        }
+        return balanceSnapshotRepository.findBalanceAt(user.getUserId(), date)
+                .orElseGet(() -> balanceSnapshotRepository.findOpeningBalance(user.getUserId()).orElse(user.getCurrentBudget()));
+    }
+
+    @Transactional(readOnly = true)
+    public List<BalanceSnapshot> getSnapshotsInRange(User user, LocalDate startDate, LocalDate endDate) {
+        return balanceSnapshotRepository.findInRange(user.getUserId(), startDate, endDate);
+    }
+
+    @Transactional(readOnly = true)
+    public List<SinglePlotData> getBalancePoints(User user, LocalDate startDate, LocalDate endDate) {
+        String currency = user.getCurrency().getIsoCode();
+        if (balanceIndexCache.isEnabled()) {
+            return balanceIndexCache.query(user.getUserId(), () -> buildIndex(user),
+                    index -> index.points(startDate.plusDays(1), endDate, currency));
+        }
+        return balanceSnapshotRepository.findInRange(user.getUserId(), startDate, endDate).stream()
+                .map(snapshot -> new SinglePlotData(snapshot.getSnapshotDate(), snapshot.getBalance(), currency))
+                .toList();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public int seedMissing() {
+        List<Integer> userIds = balanceSnapshotRepository.findUserIdsWithoutSnapshots();
+        int seeded = 0;
+        for (Integer userId : userIds) {
+            if (seed(userId)) {
+                seeded++;
+            }
+        }
+        if (!userIds.isEmpty()) {
+            log.info("BalanceSnapshotService: Seeded balance snapshots for {} of {} users", seeded, userIds.size());
+        }
+        return seeded;
+    }
+
+    @Transactional
+    public void rebuild(User user) {
+        int userId = user.getUserId();
+        userRepository.findByIdForUpdate(userId);
+        rebuildLocked(user);
+    }
+
+    private boolean rebuildLocked(User user) {
+        int userId = user.getUserId();
+        balanceSnapshotRepository.deleteAllByUserId(userId);
+        balanceIndexCache.invalidate(userId);
+
+        LocalDate today = LocalDate.now();
+        List<DailyTransactionSum> pastSums = oneTimeTransactionRepository.sumDailyUpTo(userId, today);
+
+        List<BigDecimal> convertedAmounts;
+        try {
+            convertedAmounts = currencyService.convertDailySums(pastSums, user.getCurrency().getIsoCode());
+        } catch (CurrencyConversionException e) {
+            log.error("BalanceSnapshotService: Currency conversion failed, snapshots for user {} not rebuilt", userId, e);
+            return false;
+        }
+
+        List<BalanceSnapshot> snapshots = new ArrayList<>();
+        BigDecimal balance = user.getCurrentBudget();
+        LocalDate openingDate = today;
+
+        for (int i = 0; i < pastSums.size(); i++) {
+            DailyTransactionSum sum = pastSums.get(i);
+            if (snapshots.isEmpty() || !snapshots.getLast().getSnapshotDate().equals(sum.date())) {
+                snapshots.add(snapshot(user, sum.date(), balance));
+            }
+            BigDecimal amount = convertedAmounts.get(i);
+            balance = sum.isIncome() ? balance.subtract(amount) : balance.add(amount);
+            openingDate = sum.date().minusDays(1);
+        }
+
+        if (snapshots.isEmpty() || !snapshots.getFirst().getSnapshotDate().equals(today)) {
+            snapshots.addFirst(snapshot(user, today, user.getCurrentBudget()));
+        }
+        if (openingDate.isBefore(today)) {
+            snapshots.add(snapshot(user, openingDate, balance));
+        }
+
+        balanceSnapshotRepository.saveAll(snapshots);
+        log.info("BalanceSnapshotService: Rebuilt {} balance snapshots for user {}", snapshots.size(), userId);
+        return true;
+    }
+
+    @Transactional
+    public void invalidate(User user) {
+        if (user.getUserId() != null) {
+            balanceSnapshotRepository.deleteAllByUserId(user.getUserId());
+            balanceIndexCache.invalidate(user.getUserId());
+        }
+    }
+
+    private void seedAfterCommit(int userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            seed(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                seed(userId);
+            }
+        });
+    }
+
+    private boolean seed(int userId) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> userRepository.findByIdForUpdate(userId)
+                    .filter(user -> !balanceSnapshotRepository.existsByUserId(userId))
+                    .map(this::rebuildLocked)
+                    .orElse(false)));
+        } catch (RuntimeException e) {
+            log.error("BalanceSnapshotService: Seeding snapshots for user {} failed", userId, e);
+            return false;
+        }
+    }
+
+    private BalanceIndex buildIndex(User user) {
+        List<BalanceSnapshot> snapshots = balanceSnapshotRepository.findAllByUserId(user.getUserId());
+        if (snapshots.isEmpty()) {
+            return new BalanceIndex(LocalDate.now(), Money.toMinorUnits(user.getCurrentBudget()), 1);
+        }
+
+        LocalDate origin = snapshots.getFirst().getSnapshotDate();
+        long previous = Money.toMinorUnits(snapshots.getFirst().getBalance());
+        BalanceIndex index = new BalanceIndex(origin, previous,
+                Math.toIntExact(ChronoUnit.DAYS.between(origin, LocalDate.now()) + 1));
+        for (BalanceSnapshot snapshot : snapshots) {
+            long balance = Money.toMinorUnits(snapshot.getBalance());
+            index.add(snapshot.getSnapshotDate(), balance - previous);
+            previous = balance;
+        }
+        return index;
+    }
+
+    private static BalanceSnapshot snapshot(User user, LocalDate date, BigDecimal balance) {
+        return BalanceSnapshot.builder()
+                .user(user)
+                .snapshotDate(date)
+                .balance(balance)
+                .build();
+    }
+}
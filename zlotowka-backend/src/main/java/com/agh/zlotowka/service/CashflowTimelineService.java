@@ -0,0 +1,98 @@
+package com.agh.zlotowka.service;
+
+import com.agh.zlotowka.dto.CurrencyAmount;
+import com.agh.zlotowka.dto.DailyTransactionSum;
+import com.agh.zlotowka.forecast.CashflowTimeline;
+import com.agh.zlotowka.forecast.CashflowTotals;
+import com.agh.zlotowka.forecast.Recurrence;
+import com.agh.zlotowka.forecast.ScheduledCashflow;
+import com.agh.zlotowka.model.RecurringTransaction;
+import com.agh.zlotowka.model.User;
+import com.agh.zlotowka.repository.OneTimeTransactionRepository;
+import com.agh.zlotowka.repository.RecurringTransactionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class CashflowTimelineService {
+    private final OneTimeTransactionRepository oneTimeTransactionRepository;
+    private final RecurringTransactionRepository recurringTransactionRepository;
+    private final CurrencyService currencyService;
+
+    public CashflowTimeline load(User user, LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            return CashflowTimeline.empty();
+        }
+        CashflowTimeline.Builder builder = CashflowTimeline.builder();
+
+        List<DailyTransactionSum> dailySums = oneTimeTransactionRepository.sumDailyInRange(user.getUserId(), startDate, endDate);
+        List<BigDecimal> dailyAmounts = currencyService.convertAvailableDailySums(dailySums, user.getCurrency().getIsoCode());
+        for (int i = 0; i < dailySums.size(); i++) {
+            DailyTransactionSum sum = dailySums.get(i);
+            if (dailyAmounts.get(i) == null) {
+                continue;
+            }
+            builder.add(sum.date(),
+                    ForecastUpdateService.signedMinorUnits(dailyAmounts.get(i), sum.isIncome()),
+                    flags(sum.isIncome()),
+                    Math.toIntExact(sum.transactionCount()));
+        }
+
+        for (ScheduledCashflow cashflow : scheduledCashflows(user, startDate, endDate)) {
+            builder.addOccurrences(cashflow.recurrence(), cashflow.from(), cashflow.to(), cashflow.amountMinorUnits(),
+                    flags(cashflow.amountMinorUnits() > 0));
+        }
+
+        return builder.build();
+    }
+
+    public CashflowTotals totals(User user, LocalDate startDate, LocalDate endDate) {
+        return load(user, startDate, endDate).totalsBetween(startDate, endDate);
+    }
+
+    public List<ScheduledCashflow> scheduledCashflows(User user, LocalDate startDate, LocalDate endDate) {
+        LocalDate today = LocalDate.now();
+        if (endDate.isBefore(today)) {
+            return List.of();
+        }
+
+        List<RecurringTransaction> recurringTransactions = recurringTransactionRepository.getActiveTransactionsByUser(
+                user.getUserId(), startDate.isBefore(today) ? startDate : today, endDate);
+        List<BigDecimal> recurringAmounts = currencyService.convertAvailable(recurringTransactions.stream()
+                .map(t -> new CurrencyAmount(t.getAmount(), t.getCurrency().getIsoCode()))
+                .toList(), user.getCurrency().getIsoCode());
+
+        List<ScheduledCashflow> cashflows = new ArrayList<>(recurringTransactions.size());
+        for (int i = 0; i < recurringTransactions.size(); i++) {
+            RecurringTransaction transaction = recurringTransactions.get(i);
+            if (recurringAmounts.get(i) == null) {
+                continue;
+            }
+            cashflows.add(scheduledCashflow(transaction,
+                    ForecastUpdateService.signedMinorUnits(recurringAmounts.get(i), transaction.getIsIncome()),
+                    startDate, endDate));
+        }
+        return cashflows;
+    }
+
+    static ScheduledCashflow scheduledCashflow(RecurringTransaction transaction, long amountMinorUnits,
+                                               LocalDate startDate, LocalDate endDate) {
+        LocalDate from = transaction.getNextPaymentDate().isBefore(startDate) ? startDate : transaction.getNextPaymentDate();
+        LocalDate lastPayment = transaction.getFinalPaymentDate().minusDays(1);
+        return new ScheduledCashflow(
+                Recurrence.of(transaction.getInterval(), transaction.getFirstPaymentDate()),
+                from,
+                lastPayment.isAfter(endDate) ? endDate : lastPayment,
+                amountMinorUnits);
+    }
+
+    private static int flags(boolean isIncome) {
+        return isIncome ? CashflowTimeline.INCOME : 0;
+    }
+}
@@ -1,32 +1,54 @@
 package com.agh.zlotowka.service;
 
+import com.agh.zlotowka.currency.CurrencyRegistry;
+import com.agh.zlotowka.currency.ExchangeRateCache;
+import com.agh.zlotowka.currency.ExchangeRateProvider;
+import com.agh.zlotowka.currency.ExchangeRateSnapshot;
+import com.agh.zlotowka.currency.RateFetchCoalescer;
+import com.agh.zlotowka.dto.CurrencyAmount;
+import com.agh.zlotowka.dto.DailyTransactionSum;
 import com.agh.zlotowka.exception.CurrencyConversionException;
 import com.agh.zlotowka.model.Currency;
 import com.agh.zlotowka.repository.CurrencyRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CurrencyService {
 
-    @Value("${CURRENCY_API_URL}")
-    private String apiUrl;
     private final CurrencyRepository currencyRepository;
+    private final CurrencyRegistry currencyRegistry;
+    private final ExchangeRateCache exchangeRateCache;
+    private final ExchangeRateProvider exchangeRateProvider;
+    private final RateFetchCoalescer rateFetchCoalescer;
+    private final ExchangeRateSnapshotService exchangeRateSnapshotService;
+    private final HistoricalExchangeRateService historicalExchangeRateService;
+
+    @Value("${currency.pivot:}")
+    private String pivotCurrency;
+
+    @Value("${currency.client.request-wait:PT2S}")
+    private Duration requestWait;
 
     @Transactional
     public void addCurrencies() {
@@ -37,16 +59,17 @@ public class CurrencyService {
         currencyRepository.save(currencyPLN);
         currencyRepository.save(currencyUSD);
         currencyRepository.save(currencyEUR);
+        currencyRegistry.refresh();
     }
 
     public List<Currency> getAllCurrencies() {
-        return currencyRepository.findAll();
+        return currencyRegistry.getAll();
     }
 
     public BigDecimal convertCurrency(BigDecimal amount, String fromCurrency, String toCurrency) throws CurrencyConversionException {
         if (fromCurrency.equals(toCurrency)) return amount;
         try {
-            BigDecimal exchangeRate = fetchExchangeRate(fromCurrency.toLowerCase(), toCurrency.toLowerCase());
+            BigDecimal exchangeRate = getExchangeRate(fromCurrency.toLowerCase(), toCurrency.toLowerCase());
             BigDecimal converted = amount.multiply(exchangeRate);
             return converted.setScale(2, RoundingMode.HALF_UP);
         } catch (IOException | CurrencyConversionException e) {
@@ -55,45 +78,172 @@ public class CurrencyService {
         }
     }
 
+    public List<BigDecimal> convertAll(List<CurrencyAmount> amounts, String toCurrency) throws CurrencyConversionException {
+        BigDecimal[] historicalRates = historicalRates(amounts, toCurrency);
+        return applyRates(amounts, historicalRates, resolveExchangeRates(currentRateSources(amounts, historicalRates), toCurrency));
+    }
+
+    public List<BigDecimal> convertAvailable(List<CurrencyAmount> amounts, String toCurrency) {
+        BigDecimal[] historicalRates = historicalRates(amounts, toCurrency);
+        Set<String> fromCurrencies = currentRateSources(amounts, historicalRates);
+        Map<String, BigDecimal> exchangeRates = resolveAvailableExchangeRates(fromCurrencies, toCurrency);
+
+        List<BigDecimal> converted = applyRates(amounts, historicalRates, exchangeRates);
+        for (int i = 0; i < amounts.size(); i++) {
+            String fromCurrency = amounts.get(i).currencyIsoCode();
+            if (historicalRates[i] == null && !fromCurrency.equals(toCurrency) && !exchangeRates.containsKey(fromCurrency)) {
+                converted.set(i, null);
+            }
+        }
+        return converted;
+    }
+
+    public List<BigDecimal> convertDailySums(List<DailyTransactionSum> sums, String toCurrency) throws CurrencyConversionException {
+        List<CurrencyAmount> amounts = new ArrayList<>(sums.size());
+        for (DailyTransactionSum sum : sums) {
+            Currency currency = currencyRegistry.findById(sum.currencyId())
+                    .orElseThrow(() -> new CurrencyConversionException(String.format("Nie znaleziono waluty o ID %d", sum.currencyId())));
+            amounts.add(new CurrencyAmount(sum.amount(), currency.getIsoCode(), sum.date()));
+        }
+        return convertAll(amounts, toCurrency);
+    }
+
+    public List<BigDecimal> convertAvailableDailySums(List<DailyTransactionSum> sums, String toCurrency) {
+        List<CurrencyAmount> amounts = new ArrayList<>(sums.size());
+        List<Integer> positions = new ArrayList<>(sums.size());
+        for (int i = 0; i < sums.size(); i++) {
+            DailyTransactionSum sum = sums.get(i);
+            Optional<Currency> currency = currencyRegistry.findById(sum.currencyId());
+            if (currency.isEmpty()) {
+                log.error("CurrencyService: Currency {} not found, skipping daily sum from {}", sum.currencyId(), sum.date());
+                continue;
+            }
+            amounts.add(new CurrencyAmount(sum.amount(), currency.get().getIsoCode(), sum.date()));
+            positions.add(i);
+        }
+
+        List<BigDecimal> available = convertAvailable(amounts, toCurrency);
+        List<BigDecimal> converted = new ArrayList<>(Collections.nCopies(sums.size(), null));
+        for (int i = 0; i < positions.size(); i++) {
+            converted.set(positions.get(i), available.get(i));
+        }
+        return converted;
+    }
+
+    public Map<String, BigDecimal> resolveExchangeRates(Collection<String> fromCurrencies, String toCurrency) throws CurrencyConversionException {
+        Map<String, BigDecimal> exchangeRates = new HashMap<>();
+        for (String fromCurrency : fromCurrencies) {
+            if (fromCurrency.equals(toCurrency) || exchangeRates.containsKey(fromCurrency)) continue;
+            try {
+                exchangeRates.put(fromCurrency, getExchangeRate(fromCurrency.toLowerCase(), toCurrency.toLowerCase()));
+            } catch (IOException | CurrencyConversionException e) {
+                log.error("CurrencyService: Currency conversion failed: ", e);
+                throw new CurrencyConversionException("Konwersja waluty nie powiodła się");
+            }
+        }
+        return exchangeRates;
+    }
+
+    private Map<String, BigDecimal> resolveAvailableExchangeRates(Collection<String> fromCurrencies, String toCurrency) {
+        Map<String, BigDecimal> exchangeRates = new HashMap<>();
+        for (String fromCurrency : fromCurrencies) {
+            if (fromCurrency.equals(toCurrency)) continue;
+            try {
+                exchangeRates.put(fromCurrency, getExchangeRate(fromCurrency.toLowerCase(), toCurrency.toLowerCase()));
+            } catch (IOException | CurrencyConversionException e) {
+                log.error("CurrencyService: Conversion {} -> {} failed, skipping its amounts: {}", fromCurrency, toCurrency, e.getMessage());
+            }
+        }
+        return exchangeRates;
+    }
+
+    private BigDecimal[] historicalRates(List<CurrencyAmount> amounts, String toCurrency) {
+        LocalDate today = LocalDate.now();
+        BigDecimal[] historicalRates = new BigDecimal[amounts.size()];
+        for (int i = 0; i < amounts.size(); i++) {
+            CurrencyAmount amount = amounts.get(i);
+            if (amount.date() != null && amount.date().isBefore(today) && !amount.currencyIsoCode().equals(toCurrency)) {
+                historicalRates[i] = historicalExchangeRateService.getRate(amount.currencyIsoCode(), toCurrency, amount.date());
+            }
+        }
+        return historicalRates;
+    }
+
+    private static Set<String> currentRateSources(List<CurrencyAmount> amounts, BigDecimal[] historicalRates) {
+        Set<String> fromCurrencies = new HashSet<>();
+        for (int i = 0; i < amounts.size(); i++) {
+            if (historicalRates[i] == null) {
+                fromCurrencies.add(amounts.get(i).currencyIsoCode());
+            }
+        }
+        return fromCurrencies;
+    }
+
+    private static List<BigDecimal> applyRates(List<CurrencyAmount> amounts, BigDecimal[] historicalRates,
+                                               Map<String, BigDecimal> exchangeRates) {
+        List<BigDecimal> converted = new ArrayList<>(amounts.size());
+        for (int i = 0; i < amounts.size(); i++) {
+            CurrencyAmount amount = amounts.get(i);
+            BigDecimal exchangeRate = historicalRates[i] != null ? historicalRates[i] : exchangeRates.get(amount.currencyIsoCode());
+            converted.add(exchangeRate == null ?
+                    amount.amount() :
+                    amount.amount().multiply(exchangeRate).setScale(2, RoundingMode.HALF_UP));
+        }
+        return converted;
+    }
+
+    private BigDecimal getExchangeRate(String fromCurrency, String toCurrency) throws IOException, CurrencyConversionException {
+        BigDecimal snapshotRate = exchangeRateSnapshotService.getSnapshot().getRate(fromCurrency, toCurrency);
+        if (snapshotRate != null) {
+            return snapshotRate;
+        }
+        return fetchExchangeRate(fromCurrency, toCurrency);
+    }
+
     private BigDecimal fetchExchangeRate(String fromCurrency, String toCurrency) throws IOException, CurrencyConversionException {
-        String urlString = String.format("%s/%s.json", apiUrl, fromCurrency);
-        URL url = new URL(urlString);
-        HttpURLConnection connection = getHttpURLConnection(url);
-        JSONObject fromCurrencyData = getJsonObject(fromCurrency, connection);
-        if (fromCurrencyData != null && fromCurrencyData.has(toCurrency)) {
-            Object exchangeRateObj = fromCurrencyData.get(toCurrency);
-
-            return BigDecimal.valueOf(((Number) exchangeRateObj).doubleValue());
-        } else {
+        if (pivotCurrency != null && !pivotCurrency.isBlank()) {
+            return fetchCrossRate(pivotCurrency.toLowerCase(), fromCurrency, toCurrency);
+        }
+
+        Map<String, BigDecimal> fromCurrencyRates = getBaseCurrencyRates(fromCurrency);
+        BigDecimal exchangeRate = fromCurrencyRates.get(toCurrency);
+        if (exchangeRate == null) {
             log.error("CurrencyService: No currencies available");
             throw new CurrencyConversionException("Taka waluta nie jest dostępna");
         }
+        return exchangeRate;
     }
 
-    private static JSONObject getJsonObject(String fromCurrency, HttpURLConnection connection) throws IOException {
-        BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-        String inputLine;
-        StringBuilder response = new StringBuilder();
-
-        while ((inputLine = in.readLine()) != null) {
-            response.append(inputLine);
+    private BigDecimal fetchCrossRate(String pivot, String fromCurrency, String toCurrency) throws IOException, CurrencyConversionException {
+        Map<String, BigDecimal> pivotRates = getBaseCurrencyRates(pivot);
+        BigDecimal pivotToFrom = fromCurrency.equals(pivot) ? BigDecimal.ONE : pivotRates.get(fromCurrency);
+        BigDecimal pivotToTo = toCurrency.equals(pivot) ? BigDecimal.ONE : pivotRates.get(toCurrency);
+        if (pivotToFrom == null || pivotToTo == null || pivotToFrom.signum() <= 0) {
+            log.error("CurrencyService: No {} cross rate available for {} -> {}", pivot, fromCurrency, toCurrency);
+            throw new CurrencyConversionException("Taka waluta nie jest dostępna");
         }
-        in.close();
-
-        JSONObject jsonResponse = new JSONObject(response.toString());
-        return jsonResponse.optJSONObject(fromCurrency);
+        return ExchangeRateSnapshot.crossRate(pivotToFrom, pivotToTo);
     }
 
-    private static HttpURLConnection getHttpURLConnection(URL url) throws IOException {
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.setRequestMethod("GET");
-        connection.setConnectTimeout(5000);
-        connection.setReadTimeout(5000);
+    private Map<String, BigDecimal> getBaseCurrencyRates(String fromCurrency) throws IOException, CurrencyConversionException {
+        Optional<Map<String, BigDecimal>> cachedRates = exchangeRateCache.get(fromCurrency);
+        if (cachedRates.isPresent()) {
+            return cachedRates.get();
+        }
 
-        int responseCode = connection.getResponseCode();
-        if (responseCode != 200) {
-            throw new IOException("Nie udało się pobrać kursu wymiany. Kod odpowiedzi HTTP: " + responseCode);
+        try {
+            return RateFetchCoalescer.await(rateFetchCoalescer.fetchAsync(fromCurrency, () ->
+                    exchangeRateProvider.fetchRatesAsync(fromCurrency).thenApply(rates -> {
+                        exchangeRateCache.put(fromCurrency, rates);
+                        return rates;
+                    })), requestWait);
+        } catch (IOException | CurrencyConversionException e) {
+            Optional<Map<String, BigDecimal>> staleRates = exchangeRateCache.getStale(fromCurrency);
+            if (staleRates.isPresent()) {
+                log.warn("CurrencyService: Serving stale rates for {}: {}", fromCurrency, e.getMessage());
+                return staleRates.get();
+            }
+            throw e;
         }
-        return connection;
     }
 }
@@ -0,0 +1,102 @@
+package com.agh.zlotowka.service;
+
+import com.agh.zlotowka.currency.CurrencyRegistry;
+import com.agh.zlotowka.currency.ExchangeRateProvider;
+import com.agh.zlotowka.currency.ExchangeRateSnapshot;
+import com.agh.zlotowka.currency.RateFetchCoalescer;
+import com.agh.zlotowka.exception.CurrencyConversionException;
+import com.agh.zlotowka.forecast.ForecastCache;
+import com.agh.zlotowka.model.Currency;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExchangeRateSnapshotService {
+    private final ExchangeRateProvider exchangeRateProvider;
+    private final RateFetchCoalescer rateFetchCoalescer;
+    private final CurrencyRegistry currencyRegistry;
+    private final ForecastCache forecastCache;
+
+    @Value("${currency.snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${currency.pivot:}")
+    private String pivotCurrency;
+
+    private volatile ExchangeRateSnapshot snapshot = ExchangeRateSnapshot.EMPTY;
+
+    public ExchangeRateSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Scheduled(fixedDelayString = "${currency.snapshot.refresh-period:PT1H}")
+    public void refreshSnapshot() {
+        if (!enabled) {
+            return;
+        }
+
+        List<String> codes = currencyRegistry.getAll().stream()
+                .map(Currency::getIsoCode)
+                .toList();
+        if (codes.isEmpty()) {
+            return;
+        }
+
+        Set<String> targets = codes.stream()
+                .map(String::toLowerCase)
+                .collect(Collectors.toUnmodifiableSet());
+        if (pivotCurrency != null && !pivotCurrency.isBlank()) {
+            refreshPivotSnapshot(codes, targets);
+            return;
+        }
+
+        ExchangeRateSnapshot previous = snapshot;
+        ExchangeRateSnapshot.Builder builder = ExchangeRateSnapshot.builder(codes);
+        int failed = 0;
+
+        for (String code : codes) {
+            try {
+                Map<String, BigDecimal> rates = rateFetchCoalescer.fetch(code, targets, () -> exchangeRateProvider.fetchRates(code, targets));
+                builder.row(code, rates);
+            } catch (IOException | CurrencyConversionException e) {
+                failed++;
+                log.warn("ExchangeRateSnapshotService: Refreshing rates for {} failed, keeping last known rates", code, e);
+                builder.rowFrom(code, previous);
+            }
+        }
+
+        if (failed == codes.size()) {
+            log.warn("ExchangeRateSnapshotService: Rate provider unavailable, serving snapshot from {}", previous.getRefreshedAt());
+            return;
+        }
+
+        snapshot = builder.build(Instant.now());
+        forecastCache.invalidateAll();
+        log.info("ExchangeRateSnapshotService: Published rate snapshot for {} currencies", codes.size());
+    }
+
+    private void refreshPivotSnapshot(List<String> codes, Set<String> targets) {
+        String pivot = pivotCurrency.toLowerCase();
+        try {
+            Map<String, BigDecimal> pivotRates = rateFetchCoalescer.fetch(pivot, targets, () -> exchangeRateProvider.fetchRates(pivot, targets));
+            snapshot = ExchangeRateSnapshot.pivot(codes, pivot, pivotRates, Instant.now());
+            forecastCache.invalidateAll();
+            log.info("ExchangeRateSnapshotService: Published {}-pivot rate snapshot for {} currencies", pivot, codes.size());
+        } catch (IOException | CurrencyConversionException e) {
+            log.warn("ExchangeRateSnapshotService: Rate provider unavailable, serving snapshot from {}", snapshot.getRefreshedAt(), e);
+        }
+    }
+}
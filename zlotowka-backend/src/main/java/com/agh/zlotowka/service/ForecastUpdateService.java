@@ -0,0 +1,162 @@
+package com.agh.zlotowka.service;
+
+import com.agh.zlotowka.dto.CurrencyAmount;
+import com.agh.zlotowka.dto.DailyTransactionSum;
+import com.agh.zlotowka.exception.CurrencyConversionException;
+import com.agh.zlotowka.forecast.CashflowEvent;
+import com.agh.zlotowka.forecast.ForecastCache;
+import com.agh.zlotowka.forecast.ForecastChange;
+import com.agh.zlotowka.forecast.Recurrence;
+import com.agh.zlotowka.forecast.ScheduledCashflow;
+import com.agh.zlotowka.model.Money;
+import com.agh.zlotowka.model.OneTimeTransaction;
+import com.agh.zlotowka.model.PeriodEnum;
+import com.agh.zlotowka.model.RecurringTransaction;
+import com.agh.zlotowka.model.User;
+import com.agh.zlotowka.repository.OneTimeTransactionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ForecastUpdateService {
+    private final CurrencyService currencyService;
+    private final ForecastCache forecastCache;
+    private final OneTimeTransactionRepository oneTimeTransactionRepository;
+
+    public void oneTimeTransactionChanged(User user, OneTimeCashflow before, OneTimeCashflow after) {
+        int userId = user.getUserId();
+        String userCurrency = user.getCurrency().getIsoCode();
+        PendingEvent removed = removedEvent(user, before, after);
+        PendingEvent added = addedEvent(user, after);
+        forecastCache.patchSeries(userId, () -> {
+            try {
+                return ForecastChange.ofEvents(toEvent(removed, userCurrency), toEvent(added, userCurrency));
+            } catch (CurrencyConversionException e) {
+                log.warn("ForecastUpdateService: Currency conversion failed, dropping forecast series for user {}", userId);
+                return null;
+            }
+        });
+    }
+
+    public void recurringTransactionChanged(User user, RecurringCashflow before, RecurringCashflow after) {
+        int userId = user.getUserId();
+        String userCurrency = user.getCurrency().getIsoCode();
+        RecurringCashflow removed = upcoming(before);
+        RecurringCashflow added = upcoming(after);
+        forecastCache.patchSeries(userId, () -> {
+            try {
+                return ForecastChange.ofSchedules(toSchedule(removed, userCurrency), toSchedule(added, userCurrency));
+            } catch (CurrencyConversionException e) {
+                log.warn("ForecastUpdateService: Currency conversion failed, dropping forecast series for user {}", userId);
+                return null;
+            }
+        });
+    }
+
+    private PendingEvent removedEvent(User user, OneTimeCashflow before, OneTimeCashflow after) {
+        if (before == null || !before.date().isAfter(LocalDate.now())) {
+            return null;
+        }
+        if (isUserCurrency(user, before)) {
+            return new PendingEvent(before, null);
+        }
+        BigDecimal remaining = dailyGroupSum(user, before);
+        if (after != null && before.isSameDailyGroup(after)) {
+            remaining = remaining.subtract(after.amount());
+        }
+        return new PendingEvent(before, remaining);
+    }
+
+    private PendingEvent addedEvent(User user, OneTimeCashflow after) {
+        if (after == null || !after.date().isAfter(LocalDate.now())) {
+            return null;
+        }
+        if (isUserCurrency(user, after)) {
+            return new PendingEvent(after, null);
+        }
+        return new PendingEvent(after, dailyGroupSum(user, after).subtract(after.amount()));
+    }
+
+    private CashflowEvent toEvent(PendingEvent pending, String userCurrency) throws CurrencyConversionException {
+        if (pending == null) {
+            return null;
+        }
+        OneTimeCashflow cashflow = pending.cashflow();
+        if (pending.remaining() == null) {
+            return new CashflowEvent(cashflow.date(), signedMinorUnits(cashflow.amount(), cashflow.isIncome()));
+        }
+        List<BigDecimal> converted = currencyService.convertAll(List.of(
+                new CurrencyAmount(pending.remaining().add(cashflow.amount()), cashflow.currencyIsoCode(), cashflow.date()),
+                new CurrencyAmount(pending.remaining(), cashflow.currencyIsoCode(), cashflow.date())),
+                userCurrency);
+        long delta = Math.subtractExact(Money.toMinorUnits(converted.get(0)), Money.toMinorUnits(converted.get(1)));
+        return new CashflowEvent(cashflow.date(), cashflow.isIncome() ? delta : -delta);
+    }
+
+    private BigDecimal dailyGroupSum(User user, OneTimeCashflow cashflow) {
+        return oneTimeTransactionRepository.sumDailyInRange(user.getUserId(), cashflow.date(), cashflow.date()).stream()
+                .filter(sum -> sum.currencyId().equals(cashflow.currencyId()) && sum.isIncome() == cashflow.isIncome())
+                .map(DailyTransactionSum::amount)
+                .findFirst()
+                .orElse(BigDecimal.ZERO);
+    }
+
+    private static boolean isUserCurrency(User user, OneTimeCashflow cashflow) {
+        return user.getCurrency().getCurrencyId().equals(cashflow.currencyId());
+    }
+
+    private static RecurringCashflow upcoming(RecurringCashflow cashflow) {
+        return cashflow == null || cashflow.nextPaymentDate().isBefore(LocalDate.now()) ? null : cashflow;
+    }
+
+    private ScheduledCashflow toSchedule(RecurringCashflow cashflow, String userCurrency) throws CurrencyConversionException {
+        if (cashflow == null) {
+            return null;
+        }
+        BigDecimal converted = currencyService.convertAll(List.of(
+                new CurrencyAmount(cashflow.amount(), cashflow.currencyIsoCode())),
+                userCurrency).getFirst();
+        return new ScheduledCashflow(
+                Recurrence.of(cashflow.interval(), cashflow.firstPaymentDate()),
+                cashflow.nextPaymentDate(),
+                cashflow.finalPaymentDate().minusDays(1),
+                signedMinorUnits(converted, cashflow.isIncome()));
+    }
+
+    static long signedMinorUnits(BigDecimal amount, boolean isIncome) {
+        long minorUnits = Money.toMinorUnits(amount);
+        return isIncome ? minorUnits : -minorUnits;
+    }
+
+    public record OneTimeCashflow(LocalDate date, BigDecimal amount, Integer currencyId, String currencyIsoCode,
+                                  boolean isIncome) {
+        public static OneTimeCashflow of(OneTimeTransaction transaction) {
+            return new OneTimeCashflow(transaction.getDate(), transaction.getAmount(), transaction.getCurrency().getCurrencyId(),
+                    transaction.getCurrency().getIsoCode(), transaction.getIsIncome());
+        }
+
+        boolean isSameDailyGroup(OneTimeCashflow other) {
+            return date.equals(other.date) && currencyId.equals(other.currencyId) && isIncome == other.isIncome;
+        }
+    }
+
+    private record PendingEvent(OneTimeCashflow cashflow, BigDecimal remaining) {
+    }
+
+    public record RecurringCashflow(PeriodEnum interval, LocalDate firstPaymentDate, LocalDate nextPaymentDate,
+                                    LocalDate finalPaymentDate, BigDecimal amount, String currencyIsoCode,
+                                    boolean isIncome) {
+        public static RecurringCashflow of(RecurringTransaction transaction) {
+            return new RecurringCashflow(transaction.getInterval(), transaction.getFirstPaymentDate(),
+                    transaction.getNextPaymentDate(), transaction.getFinalPaymentDate(), transaction.getAmount(),
+                    transaction.getCurrency().getIsoCode(), transaction.getIsIncome());
+        }
+    }
+}
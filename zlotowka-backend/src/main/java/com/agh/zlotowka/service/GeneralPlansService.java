@@ -1,41 +1,78 @@
 package com.agh.zlotowka.service;
 
+import com.agh.zlotowka.dto.CompletionDateDistribution;
+import com.agh.zlotowka.dto.CurrencyAmount;
 import com.agh.zlotowka.dto.GeneralPlanDTO;
 import com.agh.zlotowka.exception.CurrencyConversionException;
-import com.agh.zlotowka.model.Currency;
-import com.agh.zlotowka.model.OneTimeTransaction;
+import com.agh.zlotowka.forecast.BalanceCurve;
+import com.agh.zlotowka.forecast.CashflowTimeline;
+import com.agh.zlotowka.forecast.CompletionSimulation;
+import com.agh.zlotowka.forecast.ForecastCache;
+import com.agh.zlotowka.model.Money;
 import com.agh.zlotowka.model.Plan;
 import com.agh.zlotowka.model.PlanType;
-import com.agh.zlotowka.model.RecurringTransaction;
 import com.agh.zlotowka.model.Subplan;
-import com.agh.zlotowka.repository.OneTimeTransactionRepository;
+import com.agh.zlotowka.model.User;
 import com.agh.zlotowka.repository.PlanRepository;
-import com.agh.zlotowka.repository.RecurringTransactionRepository;
 import com.agh.zlotowka.repository.SubPlanRepository;
 import com.agh.zlotowka.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
 import jakarta.persistence.EntityNotFoundException;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.time.Period;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class GeneralPlansService {
     private final PlanRepository planRepository;
     private final SubPlanRepository subPlanRepository;
     private final UserRepository userRepository;
     private final CurrencyService currencyService;
-    private final OneTimeTransactionRepository oneTimeTransactionRepository;
-    private final RecurringTransactionRepository recurringTransactionRepository;
+    private final CashflowTimelineService cashflowTimelineService;
+    private final ForecastCache forecastCache;
+    private final ForkJoinPool monteCarloExecutor;
+
+    @Value("${monte-carlo.trials:2000}")
+    private int monteCarloTrials;
+
+    @Value("${monte-carlo.history:P1Y}")
+    private Period monteCarloHistory;
+
+    @Value("${monte-carlo.seed:#{null}}")
+    private Long monteCarloSeed;
+
+    public GeneralPlansService(PlanRepository planRepository,
+                               SubPlanRepository subPlanRepository,
+                               UserRepository userRepository,
+                               CurrencyService currencyService,
+                               CashflowTimelineService cashflowTimelineService,
+                               ForecastCache forecastCache,
+                               @Value("${monte-carlo.parallelism:2}") int monteCarloParallelism) {
+        this.planRepository = planRepository;
+        this.subPlanRepository = subPlanRepository;
+        this.userRepository = userRepository;
+        this.currencyService = currencyService;
+        this.cashflowTimelineService = cashflowTimelineService;
+        this.forecastCache = forecastCache;
+        this.monteCarloExecutor = new ForkJoinPool(monteCarloParallelism > 0
+                ? monteCarloParallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        monteCarloExecutor.shutdownNow();
+    }
 
     public List<GeneralPlanDTO> getAllUncompletedPlans(Integer userId) {
         String userCurrencyCode = userRepository.findById(userId)
@@ -45,31 +82,32 @@ public class GeneralPlansService {
 
         List<Plan> plans = planRepository.findAllUncompletedByUser(userId);
 
-        List<GeneralPlanDTO> result = new ArrayList<>();
+        List<GeneralPlanDTO> unconvertedPlans = new ArrayList<>();
+        List<CurrencyAmount> amounts = new ArrayList<>();
 
         for (Plan plan : plans) {
             String planCurrencyCode = plan.getCurrency().getIsoCode();
 
-            result.add(createPlanDTO(
-                    plan.getPlanId(),
-                    plan.getRequiredAmount().subtract(subPlanRepository.getTotalSubPlanAmountCompleted(plan.getPlanId())),
-                    plan.getName(),
-                    planCurrencyCode,
-                    userCurrencyCode,
-                    PlanType.PLAN)
+            unconvertedPlans.add(new GeneralPlanDTO(plan.getPlanId(), null, plan.getName(), PlanType.PLAN));
+            amounts.add(new CurrencyAmount(
+                    plan.getRequiredAmount().subtract(plan.getCompletedAmount()),
+                    planCurrencyCode)
             );
 
             List<Subplan> subplans = subPlanRepository.findAllUncompletedSubPlansByPlanId(plan.getPlanId());
 
-            for (Subplan subplan : subplans)
-                result.add(createPlanDTO(
-                        subplan.getSubplanId(),
-                        subplan.getRequiredAmount(),
-                        subplan.getName(),
-                        planCurrencyCode,
-                        userCurrencyCode,
-                        PlanType.SUBPLAN)
-                );
+            for (Subplan subplan : subplans) {
+                unconvertedPlans.add(new GeneralPlanDTO(subplan.getSubplanId(), null, subplan.getName(), PlanType.SUBPLAN));
+                amounts.add(new CurrencyAmount(subplan.getRequiredAmount(), planCurrencyCode));
+            }
+        }
+
+        List<BigDecimal> convertedAmounts = convertAmounts(amounts, userCurrencyCode);
+        List<GeneralPlanDTO> result = new ArrayList<>(unconvertedPlans.size());
+
+        for (int i = 0; i < unconvertedPlans.size(); i++) {
+            GeneralPlanDTO plan = unconvertedPlans.get(i);
+            result.add(new GeneralPlanDTO(plan.id(), convertedAmounts.get(i), plan.name(), plan.planType()));
         }
 
         return result.stream()
@@ -77,103 +115,91 @@ public class GeneralPlansService {
                 .toList();
     }
 
-    private GeneralPlanDTO createPlanDTO(
-            Integer id,
-            BigDecimal amount,
-            String name,
-            String planCurrencyCode,
-            String userCurrencyCode,
-            PlanType planType
-    ) {
-        BigDecimal convertedAmount = convertAmount(amount, planCurrencyCode, userCurrencyCode);
-
-        return new GeneralPlanDTO(
-                id,
-                convertedAmount,
-                name,
-                planType
-        );
+    private List<BigDecimal> convertAmounts(List<CurrencyAmount> amounts, String targetCurrencyCode) {
+        List<BigDecimal> converted = currencyService.convertAvailable(amounts, targetCurrencyCode);
+        List<BigDecimal> result = new ArrayList<>(amounts.size());
+        for (int i = 0; i < amounts.size(); i++) {
+            result.add(converted.get(i) != null ? converted.get(i) : BigDecimal.ZERO);
+        }
+        return result;
     }
 
-    private BigDecimal convertAmount(BigDecimal amount, String sourceCurrencyCode, String targetCurrencyCode) {
-        if (sourceCurrencyCode.equals(targetCurrencyCode)) {
-            return amount;
+    protected List<CompletionEstimate> estimateCompletion(User user, List<CurrencyAmount> targets) {
+        if (targets.isEmpty()) {
+            return List.of();
         }
-        BigDecimal convertedAmount = BigDecimal.ZERO;
+        return forecastCache.get(user.getUserId(), "completion-estimates", Arrays.asList(user.getCurrentBudget(), targets),
+                () -> calculateCompletion(user, targets));
+    }
+
+    private List<CompletionEstimate> calculateCompletion(User user, List<CurrencyAmount> targets) {
+        LocalDate today = LocalDate.now();
+        LocalDate from = today.plusDays(1);
+        LocalDate to = today.plusYears(5).minusDays(1);
+
         try {
-            convertedAmount = currencyService.convertCurrency(amount, sourceCurrencyCode, targetCurrencyCode);
+            List<BigDecimal> convertedTargets = currencyService.convertAll(targets, user.getCurrency().getIsoCode());
+            long[] targetMinorUnits = convertedTargets.stream().mapToLong(Money::toMinorUnits).toArray();
+            long openingBalance = Money.toMinorUnits(user.getCurrentBudget());
+            LocalDate historyStart = monteCarloTrials > 0 ? today.minus(monteCarloHistory) : from;
+            CashflowTimeline timeline = cashflowTimelineService.load(user, historyStart, to);
+            long[] dailyDeltas = timeline.dailyDeltas(from, to);
+            BalanceCurve curve = BalanceCurve.of(today, openingBalance, dailyDeltas);
+
+            CompletionSimulation simulation = null;
+            if (monteCarloTrials > 0) {
+                long[] spending = timeline.dailyOneTimeExpenses(historyStart, today);
+                simulation = CompletionSimulation.run(openingBalance, dailyDeltas, centered(spending), targetMinorUnits,
+                        monteCarloTrials, seed(user, today), monteCarloExecutor);
+            }
+
+            List<CompletionEstimate> estimates = new ArrayList<>(targets.size());
+            for (int i = 0; i < targetMinorUnits.length; i++) {
+                estimates.add(new CompletionEstimate(curve.firstReaching(targetMinorUnits[i]),
+                        simulation == null ? null : distribution(simulation, i, today)));
+            }
+            return estimates;
         } catch (CurrencyConversionException e) {
             log.error("Nieoczekiwany błąd w CurrencyService", e);
+            return Collections.nCopies(targets.size(), new CompletionEstimate(null, null));
         }
-        return convertedAmount;
     }
 
-    protected LocalDate estimateCompletionDate(Plan plan, BigDecimal planAmount) {
-        BigDecimal budget = plan.getUser().getCurrentBudget();
-        Currency userCurrency = plan.getUser().getCurrency();
-        Currency planCurrency = plan.getCurrency();
-        LocalDate date = LocalDate.now();
-        LocalDate finalDate = LocalDate.now().plusYears(5);
-        Integer userId = plan.getUser().getUserId();
+    private long seed(User user, LocalDate today) {
+        if (monteCarloSeed != null) {
+            return monteCarloSeed;
+        }
+        return 31 * (31 * (long) user.getUserId() + today.toEpochDay()) + forecastCache.getVersion(user.getUserId());
+    }
 
-        List<OneTimeTransaction> allTransactions = oneTimeTransactionRepository.getTransactionsInRange(userId, date, finalDate);
-        List<OneTimeTransaction> transactions = new ArrayList<>(allTransactions.stream()
-                .sorted(Comparator.comparing(OneTimeTransaction::getDate))
-                .toList());
+    private static CompletionDateDistribution distribution(CompletionSimulation simulation, int target, LocalDate today) {
+        return new CompletionDateDistribution(
+                percentileDate(simulation, target, 0.1, today),
+                percentileDate(simulation, target, 0.5, today),
+                percentileDate(simulation, target, 0.9, today));
+    }
 
-        List<RecurringTransaction> recurringTransactions = recurringTransactionRepository.getActiveTransactionsByUser(userId, date, finalDate);
-        try {
-            planAmount = currencyService.convertCurrency(planAmount, planCurrency.getIsoCode(), userCurrency.getIsoCode());
-            while (date.isBefore(finalDate)) {
-                Iterator<OneTimeTransaction> iterator = transactions.iterator();
-                while (iterator.hasNext()) {
-                    OneTimeTransaction transaction = iterator.next();
-                    if (transaction.getDate().equals(date)) {
-                        BigDecimal amount = currencyService.convertCurrency(
-                                transaction.getAmount(),
-                                transaction.getCurrency().getIsoCode(),
-                                userCurrency.getIsoCode()
-                        );
-
-                        budget = transaction.getIsIncome() ?
-                                budget.add(amount) :
-                                budget.subtract(amount);
-
-                        iterator.remove();
-                    }
-                    else if (transaction.getDate().isAfter(date)) {
-                        break;
-                    }
-                }
-                for (RecurringTransaction transaction : recurringTransactions) {
-                    if (transaction.getFinalPaymentDate().isBefore(date)) continue;
-
-                    long days = ChronoUnit.DAYS.between(transaction.getNextPaymentDate(), date);
-                    if (days < 0) continue;
-
-                    if (days % transaction.getInterval().getPeriod().getDays() == 0) {
-                        BigDecimal amount = currencyService.convertCurrency(
-                                transaction.getAmount(),
-                                transaction.getCurrency().getIsoCode(),
-                                userCurrency.getIsoCode()
-                        );
-
-                        budget = transaction.getIsIncome() ?
-                                budget.add(amount) :
-                                budget.subtract(amount);
-                    }
-                }
-
-                if (budget.compareTo(planAmount) >= 0) {
-                    return date;
-                }
-
-                date = date.plusDays(1);
-            }
+    private static LocalDate percentileDate(CompletionSimulation simulation, int target, double percentile, LocalDate today) {
+        int day = simulation.percentileDay(target, percentile);
+        return day == CompletionSimulation.NEVER ? null : today.plusDays(day);
+    }
+
+    private static long[] centered(long[] dailyAmounts) {
+        if (dailyAmounts.length == 0) {
+            return dailyAmounts;
         }
-        catch (CurrencyConversionException e) {
-            log.error("Nieoczekiwany błąd w CurrencyService", e);
+        long total = 0;
+        for (long amount : dailyAmounts) {
+            total = Math.addExact(total, amount);
         }
-        return null;
+        long mean = Math.round((double) total / dailyAmounts.length);
+        long[] centered = new long[dailyAmounts.length];
+        for (int i = 0; i < dailyAmounts.length; i++) {
+            centered[i] = dailyAmounts[i] - mean;
+        }
+        return centered;
+    }
+
+    public record CompletionEstimate(LocalDate estimatedCompletionDate, CompletionDateDistribution distribution) {
     }
-}
\ No newline at end of file
+}
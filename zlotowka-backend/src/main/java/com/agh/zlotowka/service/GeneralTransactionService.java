@@ -1,7 +1,13 @@
 package com.agh.zlotowka.service;
 
 import com.agh.zlotowka.dto.*;
-import com.agh.zlotowka.exception.CurrencyConversionException;
+import com.agh.zlotowka.forecast.CashflowTotals;
+import com.agh.zlotowka.forecast.ForecastCache;
+import com.agh.zlotowka.forecast.ForecastSeries;
+import com.agh.zlotowka.forecast.PlotDownsampler;
+import com.agh.zlotowka.forecast.PlotSeries;
+import com.agh.zlotowka.forecast.Recurrence;
+import com.agh.zlotowka.model.Money;
 import com.agh.zlotowka.model.OneTimeTransaction;
 import com.agh.zlotowka.model.PeriodEnum;
 import com.agh.zlotowka.model.RecurringTransaction;
@@ -13,14 +19,17 @@ import com.agh.zlotowka.security.CustomUserDetails;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.Period;
 import java.time.temporal.TemporalAdjusters;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -33,7 +42,18 @@ public class GeneralTransactionService {
     private final OneTimeTransactionRepository oneTimeTransactionRepository;
     private final ScheduledTransactionService scheduledTransactionService;
     private final UserRepository userRepository;
-    private final CurrencyService currencyService;
+    private final BalanceSnapshotService balanceSnapshotService;
+    private final ForecastCache forecastCache;
+    private final CashflowTimelineService cashflowTimelineService;
+
+    @Value("${plot.max-points:1000}")
+    private int plotMaxPoints;
+
+    @Value("${plot.snapshot-page-days:92}")
+    private int snapshotPageDays;
+
+    @Value("${forecast.series.horizon:P1Y}")
+    private Period forecastHorizon;
 
     @Scheduled(cron = "00 01 00 * * ?")
     public void addRecurringTransactions() {
@@ -81,155 +101,116 @@ public class GeneralTransactionService {
     }
 
     public BigDecimal getEstimatedBalanceAtTheEndOfTheMonth(int userId) throws EntityNotFoundException {
-        LocalDate endOfMonth = LocalDate.now().with(TemporalAdjusters.lastDayOfMonth());
-        List<SinglePlotData> transactions = getEstimatedBudgetInDateRange(new UserDataInDateRangeRequest(userId, LocalDate.now(), endOfMonth));
-
-        if (transactions.isEmpty()) {
-            return userRepository.getUserBudget(userId)
-                    .orElseThrow(() -> new EntityNotFoundException(String.format("Nie znaleziono użytkownika o ID %d", userId)));
-
-        } else {
-            return transactions.getLast().amount();
-        }
+        return forecastCache.get(userId, "end-of-month-balance", null, () -> calculateEstimatedBalanceAtTheEndOfTheMonth(userId));
     }
 
-    public List<SinglePlotData> getEstimatedBudgetInDateRange(UserDataInDateRangeRequest request) {
-        BigDecimal budget = userRepository.getUserBudget(request.userId())
-                .orElseThrow(() -> new EntityNotFoundException(String.format("Nie znaleziono użytkownika o ID %d", request.userId())));
-        String userCurrency = userRepository.getUserCurrencyName(request.userId())
-                .orElseThrow(() -> new EntityNotFoundException(String.format("Nie znaleziono waluty dla użytkownika o ID %d", request.userId())));
-
-        List<TransactionBudgetInfo> futureTransactions = new ArrayList<>();
-        List<TransactionBudgetInfo> pastTransactions = new ArrayList<>();
-
-        transformOneTimeTransactions(request.userId(), request.startDate(), request.endDate(), userCurrency, futureTransactions, pastTransactions);
-
-        if (request.endDate().isAfter(LocalDate.now())) {
-            recurringTransactionsIntoOneTime(request.userId(), request.startDate(), request.endDate(), userCurrency, futureTransactions);
-        }
-
-        futureTransactions.sort(Comparator.comparing(TransactionBudgetInfo::date));
-        pastTransactions.sort(Comparator.comparing(TransactionBudgetInfo::date).reversed());
-
-        Map<LocalDate, SinglePlotData> uniqueByDateMap = new TreeMap<>();
-        BigDecimal updatedBudget = budget;
-
-        for (TransactionBudgetInfo transaction : pastTransactions) {
-            if (!uniqueByDateMap.containsKey(transaction.date()))
-                uniqueByDateMap.put(transaction.date(), new SinglePlotData(transaction.date(), updatedBudget, userCurrency));
-            updatedBudget = updatedBudget.subtract(transaction.amount());
-        }
-
-        uniqueByDateMap.put(request.startDate(), new SinglePlotData(request.startDate(), updatedBudget, userCurrency));
-        updatedBudget = budget;
-        uniqueByDateMap.put(LocalDate.now(), new SinglePlotData(LocalDate.now(), updatedBudget, userCurrency));
-
-        for (TransactionBudgetInfo transaction : futureTransactions) {
-            updatedBudget = updatedBudget.add(transaction.amount());
-            uniqueByDateMap.put(transaction.date(), new SinglePlotData(transaction.date(), updatedBudget, userCurrency));
-        }
-
-        uniqueByDateMap.put(request.endDate(), new SinglePlotData(request.endDate(), updatedBudget, userCurrency));
+    private BigDecimal calculateEstimatedBalanceAtTheEndOfTheMonth(int userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new EntityNotFoundException(String.format("Nie znaleziono użytkownika o ID %d", userId)));
+        LocalDate today = LocalDate.now();
+        LocalDate endOfMonth = today.with(TemporalAdjusters.lastDayOfMonth());
+        long change = endOfMonth.isAfter(today) ? forecastSeries(user, today, endOfMonth).cumulativeThrough(endOfMonth) : 0;
 
-        return new ArrayList<>(uniqueByDateMap.values());
+        return Money.toBigDecimal(Math.addExact(Money.toMinorUnits(user.getCurrentBudget()), change));
     }
 
-    public void validateUserId(Integer userId, CustomUserDetails userDetails) {
-        if (!userId.equals(userDetails.getUser().getUserId())) {
-            throw new IllegalArgumentException("Dostęp zabroniony");
-        }
+    public List<SinglePlotData> getEstimatedBudgetInDateRange(UserDataInDateRangeRequest request, Integer maxPoints) {
+        int limit = maxPoints == null ? plotMaxPoints : Math.min(maxPoints, plotMaxPoints);
+        return forecastCache.get(request.userId(), "plot-data", List.of(request.startDate(), request.endDate(), limit),
+                () -> List.copyOf(PlotDownsampler.downsample(getEstimatedBudgetInDateRange(request), limit)));
     }
 
-    private void recurringTransactionsIntoOneTime(int userId, LocalDate startDate, LocalDate endDate, String userCurrency, List<TransactionBudgetInfo> allTransactions) {
-        List<RecurringTransaction> rucurringTransactionsList = recurringTransactionRepository.getActiveTransactionsByUser(userId, startDate, endDate);
-
-        for (RecurringTransaction recurringTransaction : rucurringTransactionsList) {
+    public List<SinglePlotData> getEstimatedBudgetInDateRange(UserDataInDateRangeRequest request) {
+        return PlotSeries.toList(iterateEstimatedBudgetInDateRange(request));
+    }
 
-            PeriodEnum period = recurringTransaction.getInterval();
-            LocalDate nextPaymentDate = recurringTransaction.getNextPaymentDate();
-            String transactionCurrency = recurringTransaction.getCurrency().getIsoCode();
+    public Iterator<SinglePlotData> iterateEstimatedBudgetInDateRange(UserDataInDateRangeRequest request) {
+        User user = userRepository.findById(request.userId())
+                .orElseThrow(() -> new EntityNotFoundException(String.format("Nie znaleziono użytkownika o ID %d", request.userId())));
+        String userCurrency = user.getCurrency().getIsoCode();
+        LocalDate today = LocalDate.now();
+        LocalDate startDate = request.startDate();
+        LocalDate endDate = request.endDate();
+
+        long currentBudget = Money.toMinorUnits(user.getCurrentBudget());
+        Supplier<ForecastSeries> series = memoize(() -> forecastSeries(user, today, endDate));
+
+        Iterator<SinglePlotData> pastPoints = startDate.isAfter(today) ? Collections.emptyIterator() :
+                PlotSeries.paged(startDate, min(endDate, today), snapshotPageDays,
+                        (after, through) -> balanceSnapshotService.getBalancePoints(user, after, through));
+
+        return PlotSeries.mergeByDate(List.of(
+                pastPoints,
+                PlotSeries.lazy(() -> {
+                    BigDecimal startBalance = startDate.isAfter(today) ?
+                            Money.toBigDecimal(Math.addExact(currentBudget, series.get().cumulativeThrough(startDate.minusDays(1)))) :
+                            balanceSnapshotService.getBalanceAt(user, startDate.minusDays(1));
+                    return List.of(new SinglePlotData(startDate, startBalance, userCurrency)).iterator();
+                }),
+                List.of(new SinglePlotData(today, Money.toBigDecimal(currentBudget), userCurrency)).iterator(),
+                PlotSeries.lazy(() -> endDate.isAfter(today) ?
+                        series.get().points(currentBudget, max(startDate, today.plusDays(1)), endDate, userCurrency) :
+                        Collections.emptyIterator()),
+                PlotSeries.lazy(() -> {
+                    long endBalance = endDate.isAfter(today) ?
+                            Math.addExact(currentBudget, series.get().cumulativeThrough(endDate)) : currentBudget;
+                    return List.of(new SinglePlotData(endDate, Money.toBigDecimal(endBalance), userCurrency)).iterator();
+                })
+        ));
+    }
 
-            while (!nextPaymentDate.isAfter(endDate) && nextPaymentDate.isBefore(recurringTransaction.getFinalPaymentDate())) {
-                addToAllTransactions(userCurrency, allTransactions, recurringTransaction, transactionCurrency, nextPaymentDate);
+    private static <T> Supplier<T> memoize(Supplier<T> supplier) {
+        return new Supplier<>() {
+            private T value;
 
-                nextPaymentDate = period.addToDate(nextPaymentDate, recurringTransaction.getFirstPaymentDate());
+            @Override
+            public T get() {
+                if (value == null) {
+                    value = supplier.get();
+                }
+                return value;
             }
-        }
+        };
     }
 
-    private void addToAllTransactions(String userCurrency, List<TransactionBudgetInfo> allTransactions, RecurringTransaction recurringTransaction, String transactionCurrency, LocalDate nextPaymentDate) {
-        try {
-            BigDecimal transactionAmount = currencyService.convertCurrency(recurringTransaction.getAmount(), transactionCurrency, userCurrency);
+    private ForecastSeries forecastSeries(User user, LocalDate today, LocalDate endDate) {
+        return forecastCache.getSeries(user.getUserId(), today, endDate, () -> {
+            LocalDate horizon = max(endDate, today.plus(forecastHorizon));
+            return ForecastSeries.build(today, horizon, cashflowTimelineService.load(user, today.plusDays(1), horizon));
+        });
+    }
 
-            allTransactions.add(new TransactionBudgetInfo(
-                    recurringTransaction.getName(),
-                    nextPaymentDate,
-                    recurringTransaction.getIsIncome() ? transactionAmount : transactionAmount.negate(),
-                    recurringTransaction.getIsIncome(),
-                    userCurrency
-            ));
-        } catch (CurrencyConversionException e) {
-            log.error("Currency conversion failed", e);
+    public BigDecimal getBalanceAt(Integer userId, LocalDate date) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new EntityNotFoundException(String.format("Nie znaleziono użytkownika o ID %d", userId)));
+        LocalDate today = LocalDate.now();
+        if (!date.isAfter(today)) {
+            return balanceSnapshotService.getBalanceAt(user, date);
         }
+        long currentBudget = Money.toMinorUnits(user.getCurrentBudget());
+        return Money.toBigDecimal(Math.addExact(currentBudget, forecastSeries(user, today, date).cumulativeThrough(date)));
     }
 
-    private void transformOneTimeTransactions(int userId, LocalDate startDate, LocalDate endDate, String userCurrency, List<TransactionBudgetInfo> futureTransaction, List<TransactionBudgetInfo> pastTransactions) {
-        List<OneTimeTransaction> oneTimeTransactionsList = oneTimeTransactionRepository.getTransactionsInRange(userId, startDate, endDate);
-
-        for (OneTimeTransaction oneTimeTransaction : oneTimeTransactionsList) {
-            String transactionCurrency = oneTimeTransaction.getCurrency().getIsoCode();
-            BigDecimal transactionAmount;
-            try {
-                transactionAmount = currencyService.convertCurrency(oneTimeTransaction.getAmount(), transactionCurrency, userCurrency);
-
-                TransactionBudgetInfo transactionBudgetInfo = new TransactionBudgetInfo(
-                        oneTimeTransaction.getName(),
-                        oneTimeTransaction.getDate(),
-                        oneTimeTransaction.getIsIncome() ? transactionAmount : transactionAmount.negate(),
-                        oneTimeTransaction.getIsIncome(),
-                        userCurrency
-                );
-
-                if (oneTimeTransaction.getDate().isAfter(LocalDate.now())) {
-                    futureTransaction.add(transactionBudgetInfo);
-                } else {
-                    pastTransactions.add(transactionBudgetInfo);
-                }
-
-            } catch (CurrencyConversionException e) {
-                log.error("Currency conversion failed", e);
-            }
+    public void validateUserId(Integer userId, CustomUserDetails userDetails) {
+        if (!userId.equals(userDetails.getUser().getUserId())) {
+            throw new IllegalArgumentException("Dostęp zabroniony");
         }
     }
 
     public RevenuesAndExpensesResponse getRevenuesAndExpensesInRange(UserDataInDateRangeRequest request) {
-        String userCurrency = userRepository.getUserCurrencyName(request.userId())
-                .orElseThrow(() -> new EntityNotFoundException(String.format("Nie znaleziono użytkownika o ID %d", request.userId())));
-
-        List<TransactionBudgetInfo> futureTransactions = new ArrayList<>();
-        List<TransactionBudgetInfo> pastTransactions = new ArrayList<>();
-
-        transformOneTimeTransactions(request.userId(), request.startDate(), request.endDate(), userCurrency, futureTransactions, pastTransactions);
-        if (request.endDate().isAfter(LocalDate.now())) {
-            recurringTransactionsIntoOneTime(request.userId(), request.startDate(), request.endDate(), userCurrency, futureTransactions);
-        }
-
-        List<TransactionBudgetInfo> allTransactions = new ArrayList<>();
-        allTransactions.addAll(futureTransactions);
-        allTransactions.addAll(pastTransactions);
-
-        BigDecimal revenue = BigDecimal.ZERO;
-        BigDecimal expenses = BigDecimal.ZERO;
+        return forecastCache.get(request.userId(), "revenues-expenses", List.of(request.startDate(), request.endDate()),
+                () -> calculateRevenuesAndExpensesInRange(request));
+    }
 
-        for (TransactionBudgetInfo tx : allTransactions) {
-            if (tx.isIncome()) {
-                revenue = revenue.add(tx.amount());
-            } else {
-                expenses = expenses.add(tx.amount());
-            }
-        }
+    private RevenuesAndExpensesResponse calculateRevenuesAndExpensesInRange(UserDataInDateRangeRequest request) {
+        User user = userRepository.findById(request.userId())
+                .orElseThrow(() -> new EntityNotFoundException(String.format("Nie znaleziono użytkownika o ID %d", request.userId())));
+        CashflowTotals totals = cashflowTimelineService.totals(user, request.startDate(), request.endDate());
 
-        return new RevenuesAndExpensesResponse(revenue, expenses, userCurrency);
+        return new RevenuesAndExpensesResponse(
+                Money.toBigDecimal(totals.incomeMinorUnits()),
+                Money.toBigDecimal(totals.expensesMinorUnits()),
+                user.getCurrency().getIsoCode());
     }
 
     public MonthlySummaryDto getMonthlySummary(Integer userId) {
@@ -307,7 +288,7 @@ public class GeneralTransactionService {
     private List<TransactionDTO> generateRecurringTransactionInstances(RecurringTransaction recurringTransaction, LocalDate endDate) {
         List<TransactionDTO> list = new ArrayList<>();
         PeriodEnum period = recurringTransaction.getInterval();
-        LocalDate nextDate = recurringTransaction.getNextPaymentDate();
+        Recurrence recurrence = Recurrence.of(period, recurringTransaction.getFirstPaymentDate());
 
         if (endDate == null) {
             endDate = recurringTransaction.getFinalPaymentDate();
@@ -316,7 +297,8 @@ public class GeneralTransactionService {
             }
         }
 
-        while (!nextDate.isAfter(endDate) && !nextDate.isAfter(recurringTransaction.getFinalPaymentDate())) {
+        LocalDate lastDate = min(endDate, recurringTransaction.getFinalPaymentDate());
+        for (LocalDate nextDate : recurrence.occurrencesBetween(recurringTransaction.getNextPaymentDate(), lastDate)) {
             list.add(new TransactionDTO(
                     recurringTransaction.getTransactionId(),
                     recurringTransaction.getUser().getUserId(),
@@ -328,11 +310,18 @@ public class GeneralTransactionService {
                     recurringTransaction.getDescription(),
                     period
             ));
-            nextDate = period.addToDate(nextDate, recurringTransaction.getFirstPaymentDate());
         }
         return list;
     }
 
+    private static LocalDate min(LocalDate first, LocalDate second) {
+        return first.isBefore(second) ? first : second;
+    }
+
+    private static LocalDate max(LocalDate first, LocalDate second) {
+        return first.isAfter(second) ? first : second;
+    }
+
 
     private void validateFirstAndFinalDates(LocalDate startDate, LocalDate endDate) {
         if (startDate.isAfter(endDate)) {
@@ -0,0 +1,108 @@
+package com.agh.zlotowka.service;
+
+import com.agh.zlotowka.currency.CurrencyRegistry;
+import com.agh.zlotowka.currency.ExchangeRateProvider;
+import com.agh.zlotowka.currency.ExchangeRateSnapshot;
+import com.agh.zlotowka.currency.HistoricalRateIndex;
+import com.agh.zlotowka.exception.CurrencyConversionException;
+import com.agh.zlotowka.model.HistoricalExchangeRate;
+import com.agh.zlotowka.repository.HistoricalExchangeRateRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HistoricalExchangeRateService {
+    private final HistoricalExchangeRateRepository historicalExchangeRateRepository;
+    private final CurrencyRegistry currencyRegistry;
+    private final ExchangeRateProvider exchangeRateProvider;
+    private final HistoricalRateIndex historicalRateIndex;
+    private final HistoricalExchangeRateWriter historicalExchangeRateWriter;
+
+    @Value("${currency.history.enabled:true}")
+    private boolean enabled;
+
+    @Value("${currency.history.base:eur}")
+    private String baseCurrency;
+
+    @Value("${currency.history.backfill-file:}")
+    private String backfillFile;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadHistory() {
+        if (!enabled) {
+            return;
+        }
+
+        historicalExchangeRateRepository.findAll()
+                .forEach(rate -> historicalRateIndex.put(rate.getCurrencyCode(), rate.getEpochDay(), rate.getRate()));
+        log.info("HistoricalExchangeRateService: Loaded {} historical rates", historicalRateIndex.size());
+
+        if (backfillFile != null && !backfillFile.isBlank()) {
+            try {
+                historicalExchangeRateWriter.backfillFromFile(Path.of(backfillFile));
+            } catch (IOException e) {
+                log.error("HistoricalExchangeRateService: Backfill from {} failed", backfillFile, e);
+            }
+        }
+    }
+
+    @Scheduled(cron = "${currency.history.cron:0 30 0 * * ?}")
+    public void recordDailyRates() {
+        if (!enabled) {
+            return;
+        }
+
+        String base = baseCurrency.toLowerCase();
+        Set<String> targets = currencyRegistry.getAll().stream()
+                .map(currency -> currency.getIsoCode().toLowerCase())
+                .collect(Collectors.toUnmodifiableSet());
+        if (targets.isEmpty()) {
+            return;
+        }
+
+        try {
+            Map<String, BigDecimal> rates = exchangeRateProvider.fetchRates(base, targets);
+            long today = LocalDate.now().toEpochDay();
+            List<HistoricalExchangeRate> entries = new ArrayList<>();
+            rates.forEach((code, rate) -> entries.add(HistoricalExchangeRateWriter.entry(code, today, rate)));
+            int saved = historicalExchangeRateWriter.saveMissing(entries);
+            log.info("HistoricalExchangeRateService: Recorded {} rates for {}", saved, LocalDate.now());
+        } catch (IOException | CurrencyConversionException e) {
+            log.warn("HistoricalExchangeRateService: Recording daily rates failed", e);
+        }
+    }
+
+    public BigDecimal getRate(String fromCurrency, String toCurrency, LocalDate date) {
+        String from = fromCurrency.toLowerCase();
+        String to = toCurrency.toLowerCase();
+        if (from.equals(to)) {
+            return BigDecimal.ONE;
+        }
+
+        String base = baseCurrency.toLowerCase();
+        long epochDay = date.toEpochDay();
+        BigDecimal baseToFrom = from.equals(base) ? BigDecimal.ONE : historicalRateIndex.getRate(from, epochDay);
+        BigDecimal baseToTo = to.equals(base) ? BigDecimal.ONE : historicalRateIndex.getRate(to, epochDay);
+        if (baseToFrom == null || baseToTo == null) {
+            return null;
+        }
+        return ExchangeRateSnapshot.crossRate(baseToFrom, baseToTo);
+    }
+}
@@ -0,0 +1,102 @@
+package com.agh.zlotowka.service;
+
+import com.agh.zlotowka.currency.HistoricalRateIndex;
+import com.agh.zlotowka.model.HistoricalExchangeRate;
+import com.agh.zlotowka.repository.HistoricalExchangeRateRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HistoricalExchangeRateWriter {
+    private final HistoricalExchangeRateRepository historicalExchangeRateRepository;
+    private final HistoricalRateIndex historicalRateIndex;
+
+    @Transactional
+    public int backfillFromFile(Path file) throws IOException {
+        List<HistoricalExchangeRate> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#") || line.startsWith("date")) {
+                    continue;
+                }
+                String[] columns = line.split(",");
+                try {
+                    if (columns.length != 3) {
+                        throw new IllegalArgumentException("expected date,currency,rate");
+                    }
+                    long epochDay = LocalDate.parse(columns[0].strip()).toEpochDay();
+                    BigDecimal rate = new BigDecimal(columns[2].strip());
+                    if (rate.signum() <= 0) {
+                        throw new IllegalArgumentException("rate must be positive");
+                    }
+                    entries.add(entry(columns[1].strip(), epochDay, rate));
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    log.warn("HistoricalExchangeRateService: Skipping line {} of {}: {}", lineNumber, file, e.getMessage());
+                }
+            }
+        }
+
+        int saved = saveMissing(entries);
+        log.info("HistoricalExchangeRateService: Backfilled {} historical rates from {}", saved, file);
+        return saved;
+    }
+
+    @Transactional
+    public int saveMissing(List<HistoricalExchangeRate> entries) {
+        List<HistoricalExchangeRate> missing = entries.stream()
+                .filter(entry -> !historicalRateIndex.contains(entry.getCurrencyCode(), entry.getEpochDay()))
+                .collect(Collectors.toMap(
+                        entry -> entry.getCurrencyCode() + ":" + entry.getEpochDay(),
+                        entry -> entry,
+                        (first, second) -> first))
+                .values().stream()
+                .toList();
+
+        historicalExchangeRateRepository.saveAll(missing);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    index(missing);
+                }
+            });
+        } else {
+            index(missing);
+        }
+        return missing.size();
+    }
+
+    private void index(List<HistoricalExchangeRate> entries) {
+        entries.forEach(entry -> historicalRateIndex.put(entry.getCurrencyCode(), entry.getEpochDay(), entry.getRate()));
+    }
+
+    static HistoricalExchangeRate entry(String currencyCode, long epochDay, BigDecimal rate) {
+        return HistoricalExchangeRate.builder()
+                .currencyCode(currencyCode.toLowerCase())
+                .epochDay(epochDay)
+                .rate(rate)
+                .build();
+    }
+}
@@ -1,5 +1,6 @@
 package com.agh.zlotowka.service;
 
+import com.agh.zlotowka.currency.CurrencyRegistry;
 import com.agh.zlotowka.dto.OneTimeTransactionDTO;
 import com.agh.zlotowka.dto.OneTimeTransactionRequest;
 import com.agh.zlotowka.model.Currency;
@@ -7,9 +8,9 @@ import com.agh.zlotowka.model.OneTimeTransaction;
 import com.agh.zlotowka.model.Subplan;
 import com.agh.zlotowka.model.User;
 import com.agh.zlotowka.repository.SubPlanRepository;
-import com.agh.zlotowka.repository.CurrencyRepository;
 import com.agh.zlotowka.repository.OneTimeTransactionRepository;
 import com.agh.zlotowka.repository.UserRepository;
+import com.agh.zlotowka.service.ForecastUpdateService.OneTimeCashflow;
 import com.agh.zlotowka.security.CustomUserDetails;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -28,19 +29,20 @@ public class OneTimeTransactionService {
     private final OneTimeTransactionRepository oneTimeTransactionRepository;
     private final UserService userService;
     private final UserRepository userRepository;
-    private final CurrencyRepository currencyRepository;
+    private final CurrencyRegistry currencyRegistry;
     private final SubPlanRepository subplanRepository;
+    private final ForecastUpdateService forecastUpdateService;
 
     @Transactional
     public OneTimeTransactionDTO createTransaction(OneTimeTransactionRequest request) {
         User user = userRepository.findById(request.userId())
                 .orElseThrow(() -> new EntityNotFoundException(String.format("Nie znaleziono użytkownika o ID %d", request.userId())));
 
-        Currency currency = currencyRepository.findById(request.currencyId())
+        Currency currency = currencyRegistry.findById(request.currencyId())
                 .orElseThrow(() -> new EntityNotFoundException(String.format("Nie znaleziono waluty o ID %d", request.currencyId())));
 
         if (!request.date().isAfter(LocalDate.now())) {
-            userService.addTransactionAmountToBudget(request.currencyId(), request.amount(), request.isIncome(), user);
+            userService.addTransactionAmountToBudget(request.currencyId(), request.amount(), request.isIncome(), user, request.date());
         }
         OneTimeTransaction transaction = OneTimeTransaction.builder()
                 .user(user)
@@ -53,6 +55,7 @@ public class OneTimeTransactionService {
                 .build();
 
         oneTimeTransactionRepository.save((transaction));
+        forecastUpdateService.oneTimeTransactionChanged(user, null, OneTimeCashflow.of(transaction));
         return getOneTimeTransactionDTO(transaction);
     }
 
@@ -67,13 +70,16 @@ public class OneTimeTransactionService {
                 .orElseThrow(() -> new EntityNotFoundException(String.format("Nie znaleziono transakcji o ID %d", transactionId)));
 
         validateTransactionOwnership(request.userId(), transaction.getUser().getUserId());
+        OneTimeCashflow previous = OneTimeCashflow.of(transaction);
 
         if (!request.date().isAfter(LocalDate.now()))
             updateTransactionBeforeCurrentTime(request, transaction);
         else {
             updateTransactionAfterCurrentTime(transaction);
         }
-        return updateTransaction(request, transaction);
+        OneTimeTransactionDTO updated = updateTransaction(request, transaction);
+        forecastUpdateService.oneTimeTransactionChanged(transaction.getUser(), previous, OneTimeCashflow.of(transaction));
+        return updated;
     }
 
     @Transactional
@@ -82,7 +88,7 @@ public class OneTimeTransactionService {
                 .orElseThrow(() -> new EntityNotFoundException(String.format("Nie znaleziono transakcji o ID %d", id)));
 
         if (!transaction.getDate().isAfter(LocalDate.now())) {
-            userService.removeTransactionAmountFromBudget(transaction.getCurrency().getCurrencyId(), transaction.getAmount(), transaction.getIsIncome(), transaction.getUser());
+            userService.removeTransactionAmountFromBudget(transaction.getCurrency().getCurrencyId(), transaction.getAmount(), transaction.getIsIncome(), transaction.getUser(), transaction.getDate());
         }
 
         Subplan subplan = subplanRepository.findByTransactionId(id);
@@ -92,6 +98,7 @@ public class OneTimeTransactionService {
         }
 
         oneTimeTransactionRepository.delete(transaction);
+        forecastUpdateService.oneTimeTransactionChanged(transaction.getUser(), OneTimeCashflow.of(transaction), null);
     }
 
     private List<OneTimeTransaction> getAllTransactionsByUserId(Integer userId) {
@@ -131,17 +138,17 @@ public class OneTimeTransactionService {
     private void updateTransactionBeforeCurrentTime(OneTimeTransactionRequest request, OneTimeTransaction transaction) {
         if (!transaction.getDate().isAfter(LocalDate.now())) {
             if ((!request.amount().equals(transaction.getAmount()) || request.currencyId().equals(transaction.getCurrency().getCurrencyId()))) {
-                userService.removeTransactionAmountFromBudget(transaction.getCurrency().getCurrencyId(), transaction.getAmount(), request.isIncome(), transaction.getUser());
-                userService.addTransactionAmountToBudget(request.currencyId(), request.amount(), request.isIncome(), transaction.getUser());
+                userService.removeTransactionAmountFromBudget(transaction.getCurrency().getCurrencyId(), transaction.getAmount(), request.isIncome(), transaction.getUser(), transaction.getDate());
+                userService.addTransactionAmountToBudget(request.currencyId(), request.amount(), request.isIncome(), transaction.getUser(), request.date());
             }
         } else {
-            userService.addTransactionAmountToBudget(request.currencyId(), request.amount(), request.isIncome(), transaction.getUser());
+            userService.addTransactionAmountToBudget(request.currencyId(), request.amount(), request.isIncome(), transaction.getUser(), request.date());
         }
     }
 
     private void updateTransactionAfterCurrentTime(OneTimeTransaction transaction) {
         if (!transaction.getDate().isAfter(LocalDate.now())) {
-            userService.removeTransactionAmountFromBudget(transaction.getCurrency().getCurrencyId(), transaction.getAmount(), transaction.getIsIncome(), transaction.getUser());
+            userService.removeTransactionAmountFromBudget(transaction.getCurrency().getCurrencyId(), transaction.getAmount(), transaction.getIsIncome(), transaction.getUser(), transaction.getDate());
         }
     }
 
@@ -167,15 +174,16 @@ public class OneTimeTransactionService {
 
         if (transaction.getDate().isBefore(LocalDate.now())) {
             userService.removeTransactionAmountFromBudget(transaction.getCurrency().getCurrencyId(),
-                    transaction.getAmount(), transaction.getIsIncome(), transaction.getUser());
+                    transaction.getAmount(), transaction.getIsIncome(), transaction.getUser(), transaction.getDate());
         }
 
         oneTimeTransactionRepository.delete(transaction);
+        forecastUpdateService.oneTimeTransactionChanged(transaction.getUser(), OneTimeCashflow.of(transaction), null);
     }
 
     private OneTimeTransactionDTO updateTransaction(OneTimeTransactionRequest request, OneTimeTransaction transaction) {
         if (!Objects.equals(request.currencyId(), transaction.getCurrency().getCurrencyId())) {
-            Currency currency = currencyRepository.findById(request.currencyId())
+            Currency currency = currencyRegistry.findById(request.currencyId())
                     .orElseThrow(() -> new EntityNotFoundException(String.format("Nie znaleziono waluty o ID %d", request.currencyId())));
 
             transaction.setCurrency(currency);
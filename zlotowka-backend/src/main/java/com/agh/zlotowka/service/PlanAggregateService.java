@@ -0,0 +1,110 @@
+package com.agh.zlotowka.service;
+
+import com.agh.zlotowka.dto.SubplanAggregate;
+import com.agh.zlotowka.model.Plan;
+import com.agh.zlotowka.repository.PlanRepository;
+import com.agh.zlotowka.repository.SubPlanRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PlanAggregateService {
+    private final PlanRepository planRepository;
+    private final SubPlanRepository subPlanRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    public void subplanAdded(Plan plan, BigDecimal amount) {
+        apply(plan, 1, 0, amount, BigDecimal.ZERO);
+    }
+
+    public void subplanRemoved(Plan plan, BigDecimal amount, boolean completed) {
+        apply(plan, -1, completed ? -1 : 0, amount.negate(), completed ? amount.negate() : BigDecimal.ZERO);
+    }
+
+    public void subplanAmountChanged(Plan plan, BigDecimal oldAmount, BigDecimal newAmount, boolean completed) {
+        BigDecimal delta = newAmount.subtract(oldAmount);
+        apply(plan, 0, 0, delta, completed ? delta : BigDecimal.ZERO);
+    }
+
+    public void subplanCompleted(Plan plan, BigDecimal amount) {
+        apply(plan, 0, 1, BigDecimal.ZERO, amount);
+    }
+
+    public void subplanUncompleted(Plan plan, BigDecimal amount) {
+        apply(plan, 0, -1, BigDecimal.ZERO, amount.negate());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${plan.aggregates.reconcile-cron:0 45 3 * * ?}")
+    public int reconcileAll() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        int repaired = 0;
+        List<Integer> planIds = planRepository.findAllIds();
+        for (Integer planId : planIds) {
+            if (Boolean.TRUE.equals(transactionTemplate.execute(status -> reconcileLocked(planId)))) {
+                repaired++;
+            }
+        }
+        if (repaired > 0) {
+            log.warn("PlanAggregateService: Repaired subplan aggregates of {} out of {} plans", repaired, planIds.size());
+        }
+        return repaired;
+    }
+
+    private boolean reconcileLocked(Integer planId) {
+        Plan plan = planRepository.findByIdForUpdate(planId).orElse(null);
+        if (plan == null || !reconcile(plan, subPlanRepository.aggregateByPlan(planId).orElse(null))) {
+            return false;
+        }
+        planRepository.save(plan);
+        return true;
+    }
+
+    private boolean reconcile(Plan plan, SubplanAggregate aggregate) {
+        int subplanCount = aggregate == null ? 0 : Math.toIntExact(aggregate.subplanCount());
+        int completedCount = aggregate == null ? 0 : Math.toIntExact(aggregate.completedCount());
+        BigDecimal totalAmount = aggregate == null || aggregate.totalAmount() == null ? BigDecimal.ZERO : aggregate.totalAmount();
+        BigDecimal completedAmount = aggregate == null || aggregate.completedAmount() == null ? BigDecimal.ZERO : aggregate.completedAmount();
+
+        boolean drifted = !Integer.valueOf(subplanCount).equals(plan.getSubplanCount())
+                || !Integer.valueOf(completedCount).equals(plan.getCompletedCount())
+                || plan.getTotalSubplanAmount() == null || totalAmount.compareTo(plan.getTotalSubplanAmount()) != 0
+                || plan.getCompletedAmount() == null || completedAmount.compareTo(plan.getCompletedAmount()) != 0;
+        if (!drifted) {
+            return false;
+        }
+
+        log.warn("PlanAggregateService: Plan {} aggregates drifted ({} / {} / {} / {}), expected ({} / {} / {} / {})",
+                plan.getPlanId(), plan.getSubplanCount(), plan.getCompletedCount(), plan.getTotalSubplanAmount(),
+                plan.getCompletedAmount(), subplanCount, completedCount, totalAmount, completedAmount);
+        plan.setSubplanCount(subplanCount);
+        plan.setCompletedCount(completedCount);
+        plan.setTotalSubplanAmount(totalAmount);
+        plan.setCompletedAmount(completedAmount);
+        return true;
+    }
+
+    private void apply(Plan plan, int subplanDelta, int completedDelta, BigDecimal amountDelta, BigDecimal completedAmountDelta) {
+        planRepository.addSubplanAggregates(plan.getPlanId(), subplanDelta, completedDelta, amountDelta, completedAmountDelta);
+
+        SubplanAggregate current = planRepository.findSubplanAggregates(plan.getPlanId());
+        plan.setSubplanCount(Math.toIntExact(current.subplanCount()));
+        plan.setCompletedCount(Math.toIntExact(current.completedCount()));
+        plan.setTotalSubplanAmount(current.totalAmount());
+        plan.setCompletedAmount(current.completedAmount());
+    }
+}
@@ -1,10 +1,14 @@
 package com.agh.zlotowka.service;
 
+import com.agh.zlotowka.currency.CurrencyRegistry;
+import com.agh.zlotowka.dto.CurrencyAmount;
 import com.agh.zlotowka.dto.PlanDTO;
 import com.agh.zlotowka.dto.PlanRequest;
 import com.agh.zlotowka.exception.*;
+import com.agh.zlotowka.forecast.ForecastCache;
 import com.agh.zlotowka.model.*;
 import com.agh.zlotowka.repository.*;
+import com.agh.zlotowka.service.GeneralPlansService.CompletionEstimate;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -13,7 +17,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -22,18 +28,21 @@ import java.util.stream.Collectors;
 public class PlanService {
     private final PlanRepository planRepository;
     private final UserRepository userRepository;
-    private final CurrencyRepository currencyRepository;
+    private final CurrencyRegistry currencyRegistry;
     private final SubPlanRepository subPlanRepository;
     private final CurrencyService currencyService;
     private final OneTimeTransactionRepository oneTimeTransactionRepository;
     private final GeneralPlansService generalPlansService;
+    private final BalanceSnapshotService balanceSnapshotService;
+    private final ForecastCache forecastCache;
+    private final PlanAggregateService planAggregateService;
 
     @Transactional
     public PlanDTO createPlan(PlanRequest request){
         User user = userRepository.findById(request.userId())
                 .orElseThrow(() -> new EntityNotFoundException(String.format("Nie znaleziono użytkownika o ID %d", request.userId())));
         
-        Currency currency = currencyRepository.findById(request.currencyId())
+        Currency currency = currencyRegistry.findById(request.currencyId())
                 .orElseThrow( () -> new EntityNotFoundException(String.format("Nie znaleziono waluty o ID %d", request.currencyId())));
         
         Plan plan = Plan.builder()
@@ -75,21 +84,66 @@ public class PlanService {
             userRepository.findById(userId)
                     .orElseThrow(() -> new EntityNotFoundException(String.format("Nie znaleziono użytkownika o ID %d", userId)));
 
+        Map<String, BigDecimal> budgetInPlanCurrencies = convertBudgetToPlanCurrencies(plans);
+        Map<Integer, CompletionEstimate> completionEstimates = estimateCompletion(plans);
+
         return plans.stream()
-                .map(this::getPlanDTO)
+                .map(plan -> getPlanDTO(plan,
+                        calculateCurrentBudget(plan, budgetInPlanCurrencies.get(plan.getCurrency().getIsoCode())),
+                        plan.getCompleted() ? completedEstimate(plan) : completionEstimates.get(plan.getPlanId())))
                 .collect(Collectors.toList());
     }
 
+    private Map<Integer, CompletionEstimate> estimateCompletion(List<Plan> plans) {
+        List<Plan> uncompletedPlans = plans.stream().filter(plan -> !plan.getCompleted()).toList();
+        Map<Integer, CompletionEstimate> completionEstimates = new HashMap<>();
+        if (uncompletedPlans.isEmpty()) {
+            return completionEstimates;
+        }
+
+        List<CompletionEstimate> estimates = generalPlansService.estimateCompletion(uncompletedPlans.getFirst().getUser(),
+                uncompletedPlans.stream()
+                        .map(plan -> new CurrencyAmount(remainingAmount(plan), plan.getCurrency().getIsoCode()))
+                        .toList());
+        for (int i = 0; i < uncompletedPlans.size(); i++) {
+            completionEstimates.put(uncompletedPlans.get(i).getPlanId(), estimates.get(i));
+        }
+        return completionEstimates;
+    }
+
+    private static CompletionEstimate completedEstimate(Plan plan) {
+        return new CompletionEstimate(plan.getDate(), null);
+    }
+
+    private BigDecimal remainingAmount(Plan plan) {
+        return plan.getRequiredAmount().subtract(plan.getCompletedAmount());
+    }
+
+    private Map<String, BigDecimal> convertBudgetToPlanCurrencies(List<Plan> plans) {
+        Map<String, BigDecimal> budgetInPlanCurrencies = new HashMap<>();
+        for (Plan plan : plans) {
+            String planCurrencyCode = plan.getCurrency().getIsoCode();
+            if (plan.getCompleted() || budgetInPlanCurrencies.containsKey(planCurrencyCode)) continue;
+
+            budgetInPlanCurrencies.put(planCurrencyCode, convertUserBudget(plan));
+        }
+        return budgetInPlanCurrencies;
+    }
 
     private PlanDTO getPlanDTO(Plan plan) {
-        BigDecimal currentAmount = calculateCurrentBudget(plan);
-        LocalDate estimatedCompletionDate = !plan.getCompleted() ?
-                generalPlansService.estimateCompletionDate(
-                        plan,
-                        plan.getRequiredAmount().subtract(subPlanRepository.getTotalSubPlanAmountCompleted(plan.getPlanId()))
-                ) :
-                plan.getDate();
+        return getPlanDTO(plan, calculateCurrentBudget(plan));
+    }
 
+    private PlanDTO getPlanDTO(Plan plan, BigDecimal currentAmount) {
+        CompletionEstimate completionEstimate = !plan.getCompleted() ?
+                generalPlansService.estimateCompletion(plan.getUser(),
+                        List.of(new CurrencyAmount(remainingAmount(plan), plan.getCurrency().getIsoCode()))).getFirst() :
+                completedEstimate(plan);
+
+        return getPlanDTO(plan, currentAmount, completionEstimate);
+    }
+
+    private PlanDTO getPlanDTO(Plan plan, BigDecimal currentAmount, CompletionEstimate completionEstimate) {
         return new PlanDTO(
                 plan.getPlanId(),
                 plan.getUser().getUserId(),
@@ -102,7 +156,8 @@ public class PlanService {
                 currentAmount,
                 currentAmount.compareTo(plan.getRequiredAmount()) >= 0,
                 plan.getSubplansCompleted(),
-                estimatedCompletionDate
+                completionEstimate.estimatedCompletionDate(),
+                completionEstimate.distribution()
         );
     }
 
@@ -116,6 +171,7 @@ public class PlanService {
         subPlanRepository.deleteAll(subPlans);
 
         planRepository.delete(plan);
+        forecastCache.invalidate(plan.getUser().getUserId());
     }
 
     @Transactional
@@ -128,6 +184,7 @@ public class PlanService {
         plan.setCompleted(false);
         plan.setDate(null);
         planRepository.save(plan);
+        forecastCache.invalidate(plan.getUser().getUserId());
         return getPlanDTO(plan);
     }
 
@@ -145,21 +202,22 @@ public class PlanService {
         validateBudgetSufficiency(plan);
         validateCompletionDate(completionDate);
 
+        if (completionDate == null)
+            completionDate = LocalDate.now();
+
         try {
             BigDecimal correctedAmount = currencyService.convertCurrency(
-                    plan.getRequiredAmount().subtract(subPlanRepository.getTotalSubPlanAmountCompleted(plan.getPlanId())),
+                    plan.getRequiredAmount().subtract(plan.getCompletedAmount()),
                     plan.getCurrency().getIsoCode(),
                     plan.getUser().getCurrency().getIsoCode()
             );
 
             plan.getUser().setCurrentBudget(plan.getUser().getCurrentBudget().subtract(correctedAmount));
+            balanceSnapshotService.recordChange(plan.getUser(), completionDate, correctedAmount.negate());
         } catch (CurrencyConversionException e) {
             log.error("Nieoczekiwany błąd w CurrencyService", e);
         }
 
-        if (completionDate == null)
-            completionDate = LocalDate.now();
-
         plan.setCompleted(true);
         plan.setDate(completionDate);
         plan.setSubplansCompleted(100.0);
@@ -170,7 +228,7 @@ public class PlanService {
         OneTimeTransaction transaction = OneTimeTransaction.builder()
                 .user(plan.getUser())
                 .name("Marzenie: " + plan.getName())
-                .amount(plan.getRequiredAmount().subtract(subPlanRepository.getTotalSubPlanAmountCompleted(plan.getPlanId())))
+                .amount(plan.getRequiredAmount().subtract(plan.getCompletedAmount()))
                 .currency(plan.getCurrency())
                 .isIncome(false)
                 .date(plan.getDate())
@@ -179,6 +237,7 @@ public class PlanService {
 
         completeSubPlans(plan);
         oneTimeTransactionRepository.save(transaction);
+        forecastCache.invalidate(plan.getUser().getUserId());
         return getPlanDTO(plan);
     }
 
@@ -207,6 +266,7 @@ public class PlanService {
                 subPlan.setCompleted(true);
                 subPlan.setDate(plan.getDate());
                 subPlanRepository.save(subPlan);
+                planAggregateService.subplanCompleted(plan, subPlan.getRequiredAmount());
             }
         }
     }
@@ -219,7 +279,7 @@ public class PlanService {
 
     private PlanDTO updatePlanLogic(PlanRequest request, Plan plan) {
         if(!request.currencyId().equals(plan.getCurrency().getCurrencyId())) {
-            Currency currency = currencyRepository.findById(request.currencyId())
+            Currency currency = currencyRegistry.findById(request.currencyId())
                     .orElseThrow(() -> new EntityNotFoundException(String.format("Nie znaleziono waluty o ID %d", request.currencyId())));
             plan.setCurrency(currency);
         }
@@ -244,7 +304,7 @@ public class PlanService {
     }
 
     private void validateSubPlanAmounts(PlanRequest request, Plan plan) {
-        BigDecimal allSubPlansAmount = subPlanRepository.getTotalSubPlanAmount(plan.getPlanId());
+        BigDecimal allSubPlansAmount = plan.getTotalSubplanAmount();
         if (allSubPlansAmount.compareTo(request.amount()) > 0) {
             throw new PlanAmountExceededException("Łączna kwota podplanów przekracza wymaganą kwotę planu");
         }
@@ -252,19 +312,27 @@ public class PlanService {
 
     private BigDecimal calculateCurrentBudget(Plan plan) {
         if (plan.getCompleted()) return plan.getRequiredAmount();
+        return calculateCurrentBudget(plan, convertUserBudget(plan));
+    }
+
+    private BigDecimal calculateCurrentBudget(Plan plan, BigDecimal budgetInPlanCurrency) {
+        if (plan.getCompleted()) return plan.getRequiredAmount();
+        if (budgetInPlanCurrency == null) return BigDecimal.ZERO;
 
+        return budgetInPlanCurrency.add(plan.getCompletedAmount());
+    }
+
+    private BigDecimal convertUserBudget(Plan plan) {
         try {
-            BigDecimal currentBudget = currencyService.convertCurrency(
+            return currencyService.convertCurrency(
                     plan.getUser().getCurrentBudget(),
                     plan.getUser().getCurrency().getIsoCode(),
                     plan.getCurrency().getIsoCode()
             );
-
-            return currentBudget.add(subPlanRepository.getTotalSubPlanAmountCompleted(plan.getPlanId()));
         }
         catch (CurrencyConversionException e) {
             log.error("Nieoczekiwany błąd w CurrencyService", e);
         }
-        return BigDecimal.ZERO;
+        return null;
     }
 }
@@ -1,12 +1,14 @@
 package com.agh.zlotowka.service;
 
+import com.agh.zlotowka.currency.CurrencyRegistry;
 import com.agh.zlotowka.dto.RecurringTransactionDTO;
 import com.agh.zlotowka.dto.RecurringTransactionRequest;
+import com.agh.zlotowka.forecast.Recurrence;
 import com.agh.zlotowka.model.*;
-import com.agh.zlotowka.repository.CurrencyRepository;
 import com.agh.zlotowka.repository.OneTimeTransactionRepository;
 import com.agh.zlotowka.repository.RecurringTransactionRepository;
 import com.agh.zlotowka.repository.UserRepository;
+import com.agh.zlotowka.service.ForecastUpdateService.RecurringCashflow;
 import com.agh.zlotowka.security.CustomUserDetails;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -14,7 +16,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.Period;
 import java.util.ArrayList;
@@ -28,13 +29,14 @@ public class RecurringTransactionService {
     private final UserService userService;
     private final OneTimeTransactionRepository oneTimeTransactionRepository;
     private final UserRepository userRepository;
-    private final CurrencyRepository currencyRepository;
+    private final CurrencyRegistry currencyRegistry;
+    private final ForecastUpdateService forecastUpdateService;
 
     @Transactional
     public RecurringTransactionDTO createTransaction(RecurringTransactionRequest request) {
         User user = userRepository.findById(request.userId())
                 .orElseThrow(() -> new EntityNotFoundException(String.format("Nie znaleziono użytkownika o ID %d", request.userId())));
-        Currency currency = currencyRepository.findById(request.currencyId())
+        Currency currency = currencyRegistry.findById(request.currencyId())
                 .orElseThrow(() -> new EntityNotFoundException(String.format("Nie znaleziono waluty o ID %d", request.currencyId())));
 
         validateFirstAndFinalDates(request.firstPaymentDate(), request.lastPaymentDate());
@@ -54,6 +56,7 @@ public class RecurringTransactionService {
                 .build();
 
         recurringTransactionRepository.save(transaction);
+        forecastUpdateService.recurringTransactionChanged(user, null, RecurringCashflow.of(transaction));
         log.info("New transaction with Id {} has been created", transaction.getTransactionId());
         return getRecurringTransactionDTO(transaction);
     }
@@ -67,6 +70,7 @@ public class RecurringTransactionService {
         RecurringTransaction transaction = findTransactionById(transactionId);
         validateTransactionOwnership(request.userId(), transaction.getUser().getUserId());
         validateTransactionType(request, transaction);
+        RecurringCashflow previous = RecurringCashflow.of(transaction);
 
         PeriodEnum newInterval = PeriodEnum.fromPeriod(Period.parse(request.interval()));
         validateFirstAndFinalDates(request.firstPaymentDate(), request.lastPaymentDate());
@@ -82,6 +86,7 @@ public class RecurringTransactionService {
         transaction.setFinalPaymentDate(request.lastPaymentDate());
 
         recurringTransactionRepository.save(transaction);
+        forecastUpdateService.recurringTransactionChanged(transaction.getUser(), previous, RecurringCashflow.of(transaction));
         return getRecurringTransactionDTO(transaction);
     }
 
@@ -91,6 +96,7 @@ public class RecurringTransactionService {
                 .orElseThrow(() -> new EntityNotFoundException(String.format("Nie znaleziono transakcji o ID %d", id)));
 
         recurringTransactionRepository.delete(transaction);
+        forecastUpdateService.recurringTransactionChanged(transaction.getUser(), RecurringCashflow.of(transaction), null);
     }
 
     private RecurringTransaction findTransactionById(int transactionId) {
@@ -117,11 +123,11 @@ public class RecurringTransactionService {
         if (request.firstPaymentDate().isAfter(LocalDate.now()))
             return request.firstPaymentDate();
 
-        LocalDate nextPaymentDate;
-        LocalDate date = request.firstPaymentDate();
+        Recurrence recurrence = Recurrence.of(interval, request.firstPaymentDate());
+        LocalDate lastDueDate = LocalDate.now().isBefore(request.lastPaymentDate()) ? LocalDate.now() : request.lastPaymentDate();
         List<OneTimeTransaction> transactionsList = new ArrayList<>();
 
-        while (!date.isAfter(LocalDate.now())) {
+        for (LocalDate date : recurrence.occurrencesBetween(request.firstPaymentDate(), lastDueDate)) {
             OneTimeTransaction transaction = OneTimeTransaction.builder()
                     .user(user)
                     .name(request.name())
@@ -133,20 +139,21 @@ public class RecurringTransactionService {
                     .build();
 
             transactionsList.add(transaction);
-            nextPaymentDate  = interval.addToDate(date, request.firstPaymentDate());
-
-            if (!nextPaymentDate.isAfter(request.lastPaymentDate()))
-                date = nextPaymentDate;
-            else
-                break;
         }
         addOverdueTransactionsToBudget(currency, request, transactionsList, user);
-        return date;
+
+        LocalDate nextPaymentDate = recurrence.nextAfter(lastDueDate);
+        if (nextPaymentDate == null || nextPaymentDate.isAfter(request.lastPaymentDate())) {
+            return transactionsList.isEmpty() ? request.firstPaymentDate() : transactionsList.getLast().getDate();
+        }
+        return nextPaymentDate;
     }
 
     private void addOverdueTransactionsToBudget(Currency currency, RecurringTransactionRequest request, List<OneTimeTransaction> transactionsList, User user) {
-        userService.addTransactionAmountToBudget(currency.getCurrencyId(),
-                request.amount().multiply(new BigDecimal(transactionsList.size())), request.isIncome(), user);
+        for (OneTimeTransaction transaction : transactionsList) {
+            userService.addTransactionAmountToBudget(currency.getCurrencyId(), request.amount(), request.isIncome(), user,
+                    transaction.getDate());
+        }
         oneTimeTransactionRepository.saveAll(transactionsList);
     }
 
@@ -181,7 +188,7 @@ public class RecurringTransactionService {
 
     private void updateCurrencyIfNeeded(RecurringTransactionRequest request, RecurringTransaction transaction) {
         if (!request.currencyId().equals(transaction.getCurrency().getCurrencyId())) {
-            Currency currency = currencyRepository.findById(request.currencyId())
+            Currency currency = currencyRegistry.findById(request.currencyId())
                     .orElseThrow(() -> new EntityNotFoundException("Nie znaleziono waluty o ID: " + request.currencyId()));
             transaction.setCurrency(currency);
         }
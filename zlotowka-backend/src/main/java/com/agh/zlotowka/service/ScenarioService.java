@@ -0,0 +1,240 @@
+package com.agh.zlotowka.service;
+
+import com.agh.zlotowka.currency.CurrencyRegistry;
+import com.agh.zlotowka.dto.GeneralPlanDTO;
+import com.agh.zlotowka.dto.ScenarioDefinition;
+import com.agh.zlotowka.dto.ScenarioModification;
+import com.agh.zlotowka.dto.ScenarioPlanDTO;
+import com.agh.zlotowka.dto.ScenarioRequest;
+import com.agh.zlotowka.dto.ScenarioResultDTO;
+import com.agh.zlotowka.exception.CurrencyConversionException;
+import com.agh.zlotowka.forecast.BalanceCurve;
+import com.agh.zlotowka.forecast.CashflowEvent;
+import com.agh.zlotowka.forecast.PlotDownsampler;
+import com.agh.zlotowka.forecast.Recurrence;
+import com.agh.zlotowka.forecast.ScenarioSimulator;
+import com.agh.zlotowka.forecast.ScheduledCashflow;
+import com.agh.zlotowka.model.Currency;
+import com.agh.zlotowka.model.Money;
+import com.agh.zlotowka.model.OneTimeTransaction;
+import com.agh.zlotowka.model.PeriodEnum;
+import com.agh.zlotowka.model.RecurringTransaction;
+import com.agh.zlotowka.model.ScenarioOperation;
+import com.agh.zlotowka.model.User;
+import com.agh.zlotowka.repository.OneTimeTransactionRepository;
+import com.agh.zlotowka.repository.RecurringTransactionRepository;
+import com.agh.zlotowka.repository.UserRepository;
+import com.agh.zlotowka.security.CustomUserDetails;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+@Slf4j
+@Service
+public class ScenarioService {
+    private final UserRepository userRepository;
+    private final OneTimeTransactionRepository oneTimeTransactionRepository;
+    private final RecurringTransactionRepository recurringTransactionRepository;
+    private final CurrencyRegistry currencyRegistry;
+    private final CurrencyService currencyService;
+    private final CashflowTimelineService cashflowTimelineService;
+    private final GeneralPlansService generalPlansService;
+    private final ForkJoinPool executor;
+    private final int plotMaxPoints;
+
+    public ScenarioService(UserRepository userRepository,
+                           OneTimeTransactionRepository oneTimeTransactionRepository,
+                           RecurringTransactionRepository recurringTransactionRepository,
+                           CurrencyRegistry currencyRegistry,
+                           CurrencyService currencyService,
+                           CashflowTimelineService cashflowTimelineService,
+                           GeneralPlansService generalPlansService,
+                           @Value("${scenario.parallelism:0}") int parallelism,
+                           @Value("${plot.max-points:1000}") int plotMaxPoints) {
+        this.userRepository = userRepository;
+        this.oneTimeTransactionRepository = oneTimeTransactionRepository;
+        this.recurringTransactionRepository = recurringTransactionRepository;
+        this.currencyRegistry = currencyRegistry;
+        this.currencyService = currencyService;
+        this.cashflowTimelineService = cashflowTimelineService;
+        this.generalPlansService = generalPlansService;
+        this.executor = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.plotMaxPoints = plotMaxPoints;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public void validateUserId(Integer userId, CustomUserDetails userDetails) {
+        if (!userId.equals(userDetails.getUser().getUserId())) {
+            throw new IllegalArgumentException("Dostęp zabroniony");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<ScenarioResultDTO> simulate(ScenarioRequest request) throws CurrencyConversionException {
+        User user = userRepository.findById(request.userId())
+                .orElseThrow(() -> new EntityNotFoundException(String.format("Nie znaleziono użytkownika o ID %d", request.userId())));
+        LocalDate today = LocalDate.now();
+        LocalDate from = today.plusDays(1);
+        LocalDate to = today.plusYears(5).minusDays(1);
+
+        List<GeneralPlanDTO> plans = generalPlansService.getAllUncompletedPlans(user.getUserId());
+        ScenarioSimulator simulator = new ScenarioSimulator(today, to,
+                cashflowTimelineService.load(user, from, to),
+                Money.toMinorUnits(user.getCurrentBudget()));
+
+        List<ScenarioChanges> scenarios = new ArrayList<>(request.scenarios().size());
+        for (ScenarioDefinition scenario : request.scenarios()) {
+            scenarios.add(resolveChanges(user, scenario, from, to));
+        }
+
+        String currencyIsoCode = user.getCurrency().getIsoCode();
+        List<CompletableFuture<ScenarioResultDTO>> results = scenarios.stream()
+                .map(scenario -> CompletableFuture.supplyAsync(
+                        () -> evaluate(simulator, scenario, plans, currencyIsoCode), executor))
+                .toList();
+        return results.stream().map(CompletableFuture::join).toList();
+    }
+
+    private ScenarioResultDTO evaluate(ScenarioSimulator simulator, ScenarioChanges scenario, List<GeneralPlanDTO> plans,
+                                       String currencyIsoCode) {
+        BalanceCurve curve = simulator.simulate(scenario.events(), scenario.schedules());
+        List<ScenarioPlanDTO> planResults = plans.stream()
+                .map(plan -> new ScenarioPlanDTO(plan.id(), plan.name(), plan.planType(), plan.requiredAmount(),
+                        curve.firstReaching(Money.toMinorUnits(plan.requiredAmount()))))
+                .toList();
+        return new ScenarioResultDTO(scenario.name(), Money.toBigDecimal(curve.finalBalance()), planResults,
+                PlotDownsampler.downsample(curve.points(currencyIsoCode), plotMaxPoints));
+    }
+
+    private ScenarioChanges resolveChanges(User user, ScenarioDefinition scenario, LocalDate from, LocalDate to)
+            throws CurrencyConversionException {
+        List<CashflowEvent> events = new ArrayList<>();
+        List<ScheduledCashflow> schedules = new ArrayList<>();
+
+        for (ScenarioModification modification : scenario.modifications()) {
+            if (modification.recurring()) {
+                schedules.add(resolveRecurring(user, modification, from, to));
+            } else {
+                events.add(resolveOneTime(user, modification));
+            }
+        }
+        return new ScenarioChanges(scenario.name(), events, schedules);
+    }
+
+    private CashflowEvent resolveOneTime(User user, ScenarioModification modification) throws CurrencyConversionException {
+        String userCurrency = user.getCurrency().getIsoCode();
+        switch (modification.operation()) {
+            case ADD -> {
+                requireFields(modification.amount() != null && modification.currencyId() != null
+                        && modification.isIncome() != null && modification.date() != null,
+                        "Dodanie transakcji wymaga kwoty, waluty, typu i daty");
+                BigDecimal amount = currencyService.convertCurrency(modification.amount(),
+                        findCurrency(modification.currencyId()).getIsoCode(), userCurrency);
+                return new CashflowEvent(modification.date(),
+                        ForecastUpdateService.signedMinorUnits(amount, modification.isIncome()));
+            }
+            default -> {
+                OneTimeTransaction transaction = findOneTimeTransaction(user, modification);
+                BigDecimal amount = currencyService.convertCurrency(transaction.getAmount(),
+                        transaction.getCurrency().getIsoCode(), userCurrency);
+                return new CashflowEvent(transaction.getDate(),
+                        change(modification, ForecastUpdateService.signedMinorUnits(amount, transaction.getIsIncome())));
+            }
+        }
+    }
+
+    private ScheduledCashflow resolveRecurring(User user, ScenarioModification modification, LocalDate from, LocalDate to)
+            throws CurrencyConversionException {
+        String userCurrency = user.getCurrency().getIsoCode();
+        switch (modification.operation()) {
+            case ADD -> {
+                requireFields(modification.amount() != null && modification.currencyId() != null
+                        && modification.isIncome() != null && modification.date() != null && modification.interval() != null,
+                        "Dodanie transakcji cyklicznej wymaga kwoty, waluty, typu, okresu i daty pierwszej płatności");
+                BigDecimal amount = currencyService.convertCurrency(modification.amount(),
+                        findCurrency(modification.currencyId()).getIsoCode(), userCurrency);
+                LocalDate lastPayment = modification.lastPaymentDate() == null ? to : modification.lastPaymentDate().minusDays(1);
+                return new ScheduledCashflow(
+                        Recurrence.of(parseInterval(modification.interval()), modification.date()),
+                        modification.date().isBefore(from) ? from : modification.date(),
+                        lastPayment.isAfter(to) ? to : lastPayment,
+                        ForecastUpdateService.signedMinorUnits(amount, modification.isIncome()));
+            }
+            default -> {
+                RecurringTransaction transaction = findRecurringTransaction(user, modification);
+                BigDecimal amount = currencyService.convertCurrency(transaction.getAmount(),
+                        transaction.getCurrency().getIsoCode(), userCurrency);
+                return CashflowTimelineService.scheduledCashflow(transaction,
+                        change(modification, ForecastUpdateService.signedMinorUnits(amount, transaction.getIsIncome())),
+                        from, to);
+            }
+        }
+    }
+
+    private long change(ScenarioModification modification, long amountMinorUnits) {
+        if (modification.operation() == ScenarioOperation.REMOVE) {
+            return Math.negateExact(amountMinorUnits);
+        }
+        requireFields(modification.factor() != null, "Skalowanie transakcji wymaga mnożnika");
+        return Money.toMinorUnits(Money.toBigDecimal(amountMinorUnits).multiply(modification.factor().subtract(BigDecimal.ONE)));
+    }
+
+    private OneTimeTransaction findOneTimeTransaction(User user, ScenarioModification modification) {
+        requireFields(modification.transactionId() != null, "Zmiana istniejącej transakcji wymaga jej ID");
+        OneTimeTransaction transaction = oneTimeTransactionRepository.findById(modification.transactionId())
+                .orElseThrow(() -> new EntityNotFoundException(String.format("Nie znaleziono transakcji o ID %d", modification.transactionId())));
+        validateTransactionOwnership(user.getUserId(), transaction.getUser().getUserId());
+        return transaction;
+    }
+
+    private RecurringTransaction findRecurringTransaction(User user, ScenarioModification modification) {
+        requireFields(modification.transactionId() != null, "Zmiana istniejącej transakcji wymaga jej ID");
+        RecurringTransaction transaction = recurringTransactionRepository.findById(modification.transactionId())
+                .orElseThrow(() -> new EntityNotFoundException(String.format("Nie znaleziono transakcji o ID %d", modification.transactionId())));
+        validateTransactionOwnership(user.getUserId(), transaction.getUser().getUserId());
+        return transaction;
+    }
+
+    private Currency findCurrency(Integer currencyId) {
+        return currencyRegistry.findById(currencyId)
+                .orElseThrow(() -> new EntityNotFoundException(String.format("Nie znaleziono waluty o ID %d", currencyId)));
+    }
+
+    private static PeriodEnum parseInterval(String interval) {
+        try {
+            return PeriodEnum.fromPeriod(Period.parse(interval));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(String.format("Nieprawidłowy okres powtarzania: %s", interval));
+        }
+    }
+
+    private static void requireFields(boolean present, String message) {
+        if (!present) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    private static void validateTransactionOwnership(Integer requestSenderId, Integer transactionOwner) {
+        if (!requestSenderId.equals(transactionOwner))
+            throw new IllegalArgumentException(String.format("ID użytkownika %d nie odpowiada właścicielowi transakcji", requestSenderId));
+    }
+
+    private record ScenarioChanges(String name, List<CashflowEvent> events, List<ScheduledCashflow> schedules) {
+    }
+}
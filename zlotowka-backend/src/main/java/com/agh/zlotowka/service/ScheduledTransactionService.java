@@ -1,7 +1,8 @@
 package com.agh.zlotowka.service;
 
+import com.agh.zlotowka.forecast.ForecastCache;
+import com.agh.zlotowka.forecast.Recurrence;
 import com.agh.zlotowka.model.OneTimeTransaction;
-import com.agh.zlotowka.model.PeriodEnum;
 import com.agh.zlotowka.model.RecurringTransaction;
 import com.agh.zlotowka.repository.OneTimeTransactionRepository;
 import com.agh.zlotowka.repository.RecurringTransactionRepository;
@@ -20,10 +21,12 @@ public class ScheduledTransactionService {
     private final RecurringTransactionRepository recurringTransactionRepository;
     private final OneTimeTransactionRepository oneTimeTransactionRepository;
     private final UserService userService;
+    private final ForecastCache forecastCache;
 
     public void addOneTimeTransactionToUserBudget(List<OneTimeTransaction> oneTimeTransactionsToAdd) {
         for (OneTimeTransaction transaction : oneTimeTransactionsToAdd) {
-            userService.addTransactionAmountToBudget(transaction.getCurrency().getCurrencyId(), transaction.getAmount(), transaction.getIsIncome(), transaction.getUser());
+            userService.addTransactionAmountToBudget(transaction.getCurrency().getCurrencyId(), transaction.getAmount(), transaction.getIsIncome(), transaction.getUser(), transaction.getDate());
+            forecastCache.invalidate(transaction.getUser().getUserId());
         }
     }
 
@@ -31,6 +34,7 @@ public class ScheduledTransactionService {
     public void updateDataWithNewTransaction(RecurringTransaction recurringTransaction) {
         updateRecurringTransaction(recurringTransaction);
         addOneTimeTransactionFromRecurring(recurringTransaction);
+        forecastCache.invalidate(recurringTransaction.getUser().getUserId());
     }
 
     @Transactional
@@ -55,10 +59,10 @@ public class ScheduledTransactionService {
 
     @Transactional
     public void updateRecurringTransaction(RecurringTransaction recurringTransaction) {
-        PeriodEnum interval = recurringTransaction.getInterval();
-        LocalDate newPaymentDate = interval.addToDate(recurringTransaction.getNextPaymentDate(), recurringTransaction.getFirstPaymentDate());
+        Recurrence recurrence = Recurrence.of(recurringTransaction.getInterval(), recurringTransaction.getFirstPaymentDate());
+        LocalDate newPaymentDate = recurrence.nextAfter(recurringTransaction.getNextPaymentDate());
 
-        if (!newPaymentDate.isAfter(recurringTransaction.getFinalPaymentDate()))
+        if (newPaymentDate != null && !newPaymentDate.isAfter(recurringTransaction.getFinalPaymentDate()))
             recurringTransaction.setNextPaymentDate(newPaymentDate);
         recurringTransactionRepository.save(recurringTransaction);
     }
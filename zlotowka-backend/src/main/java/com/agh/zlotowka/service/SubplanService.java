@@ -1,9 +1,11 @@
 package com.agh.zlotowka.service;
 
 
+import com.agh.zlotowka.dto.CurrencyAmount;
 import com.agh.zlotowka.dto.SubplanDTO;
 import com.agh.zlotowka.dto.SubplanRequest;
 import com.agh.zlotowka.exception.*;
+import com.agh.zlotowka.forecast.ForecastCache;
 import com.agh.zlotowka.model.OneTimeTransaction;
 import com.agh.zlotowka.model.Plan;
 import com.agh.zlotowka.model.Subplan;
@@ -11,6 +13,7 @@ import com.agh.zlotowka.repository.OneTimeTransactionRepository;
 import com.agh.zlotowka.repository.PlanRepository;
 import com.agh.zlotowka.repository.SubPlanRepository;
 import com.agh.zlotowka.repository.UserRepository;
+import com.agh.zlotowka.service.GeneralPlansService.CompletionEstimate;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -19,7 +22,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -32,6 +37,9 @@ public class SubplanService {
     private final CurrencyService currencyService;
     private final OneTimeTransactionRepository oneTimeTransactionRepository;
     private final GeneralPlansService generalPlansService;
+    private final BalanceSnapshotService balanceSnapshotService;
+    private final ForecastCache forecastCache;
+    private final PlanAggregateService planAggregateService;
 
     @Transactional
     public SubplanDTO createSubplan(SubplanRequest request) {
@@ -55,17 +63,31 @@ public class SubplanService {
                 .build();
 
         subplan = subPlanRepository.save(subplan);
-        calculatePlanSubplanCompletion(subplan.getPlan());
+        planAggregateService.subplanAdded(plan, subplan.getRequiredAmount());
+        calculatePlanSubplanCompletion(plan);
 
         return getSubplanDTO(subplan);
     }
 
     private SubplanDTO getSubplanDTO(Subplan subplan) {
-        BigDecimal actualAmount = calculateCurrentBudget(subplan);
+        return getSubplanDTO(subplan, calculateCurrentBudget(subplan));
+    }
+
+    private SubplanDTO getSubplanDTO(Subplan subplan, BigDecimal actualAmount) {
+        CompletionEstimate completionEstimate = !subplan.getCompleted() ?
+                generalPlansService.estimateCompletion(subplan.getPlan().getUser(),
+                        List.of(new CurrencyAmount(subplan.getRequiredAmount(), subplan.getPlan().getCurrency().getIsoCode()))).getFirst() :
+                completedEstimate(subplan);
+
+        return getSubplanDTO(subplan, actualAmount, completionEstimate);
+    }
+
+    private static CompletionEstimate completedEstimate(Subplan subplan) {
+        return new CompletionEstimate(subplan.getDate(), null);
+    }
+
+    private SubplanDTO getSubplanDTO(Subplan subplan, BigDecimal actualAmount, CompletionEstimate completionEstimate) {
         boolean canBeCompleted = actualAmount.compareTo(subplan.getRequiredAmount()) >= 0;
-        LocalDate estimatedCompletionDate = !subplan.getCompleted() ?
-                generalPlansService.estimateCompletionDate(subplan.getPlan(), subplan.getRequiredAmount()) :
-                subplan.getDate();
 
         return new SubplanDTO(
                 subplan.getPlan().getPlanId(),
@@ -78,7 +100,8 @@ public class SubplanService {
                 actualAmount,
                 canBeCompleted,
                 subplan.getDate(),
-                estimatedCompletionDate
+                completionEstimate.estimatedCompletionDate(),
+                completionEstimate.distribution()
         );
     }
 
@@ -99,7 +122,7 @@ public class SubplanService {
         validateCompletedSubPlanModification(request, subplan);
         validateSubplanOwnership(request.userId(), subplan.getPlan().getUser().getUserId());
         validateUpdatedSubplanAmount(subplan.getPlan(), request.amount(), subplan);
-
+        planAggregateService.subplanAmountChanged(subplan.getPlan(), subplan.getRequiredAmount(), request.amount(), subplan.getCompleted());
 
         subplan.setName(request.name());
         subplan.setRequiredAmount(request.amount());
@@ -109,6 +132,7 @@ public class SubplanService {
         subplan.setName(request.name());
 
         subPlanRepository.save(subplan);
+        planRepository.save(subplan.getPlan());
         return getSubplanDTO(subplan);
     }
 
@@ -131,7 +155,7 @@ public class SubplanService {
     }
 
     private void validateSubplanAmount(Plan plan, BigDecimal newAmount) {
-        BigDecimal allSubplansAmount = subPlanRepository.getTotalSubPlanAmount(plan.getPlanId());
+        BigDecimal allSubplansAmount = plan.getTotalSubplanAmount();
         if (allSubplansAmount.add(newAmount).compareTo(plan.getRequiredAmount()) > 0) {
             throw new PlanAmountExceededException("Łączna kwota podplanów przekracza wymaganą kwotę planu");
         }
@@ -139,7 +163,7 @@ public class SubplanService {
 
     private void validateUpdatedSubplanAmount(Plan plan, BigDecimal newAmount, Subplan subplan) {
         BigDecimal allSubplansAmountMinusOld =
-                subPlanRepository.getTotalSubPlanAmount(plan.getPlanId()).subtract(subplan.getRequiredAmount());
+                plan.getTotalSubplanAmount().subtract(subplan.getRequiredAmount());
         if (allSubplansAmountMinusOld.add(newAmount).compareTo(plan.getRequiredAmount()) > 0) {
             throw new PlanAmountExceededException("Łączna kwota podplanów przekracza wymaganą kwotę planu");
         }
@@ -170,12 +194,15 @@ public class SubplanService {
                 subplan.getPlan().getUser().setCurrentBudget(
                         subplan.getPlan().getUser().getCurrentBudget().add(correctAmount)
                 );
+                balanceSnapshotService.recordChange(subplan.getPlan().getUser(), transaction.getDate(), correctAmount);
             } catch (CurrencyConversionException e) {
                 log.error("Nieoczekiwany błąd w CurrencyService", e);
             }
         }
         subPlanRepository.save(subplan);
+        planAggregateService.subplanUncompleted(subplan.getPlan(), subplan.getRequiredAmount());
         calculatePlanSubplanCompletion(subplan.getPlan());
+        forecastCache.invalidate(subplan.getPlan().getUser().getUserId());
         return getSubplanDTO(subplan);
     }
 
@@ -196,6 +223,9 @@ public class SubplanService {
 
         Plan plan = subplan.getPlan();
 
+        if (completionDate == null)
+            completionDate = LocalDate.now();
+
         try {
             BigDecimal correctAmount = currencyService.convertCurrency(
                     subplan.getRequiredAmount(),
@@ -204,17 +234,16 @@ public class SubplanService {
             );
 
             plan.getUser().setCurrentBudget(plan.getUser().getCurrentBudget().subtract(correctAmount));
+            balanceSnapshotService.recordChange(plan.getUser(), completionDate, correctAmount.negate());
         }
         catch (CurrencyConversionException e) {
             log.error("Nieoczekiwany błąd z CurrencyService", e);
         }
 
-        if (completionDate == null)
-            completionDate = LocalDate.now();
-
         subplan.setCompleted(true);
         subplan.setDate(completionDate);
 
+        planAggregateService.subplanCompleted(plan, subplan.getRequiredAmount());
         calculatePlanSubplanCompletion(plan);
 
         OneTimeTransaction transaction = OneTimeTransaction.builder()
@@ -233,6 +262,7 @@ public class SubplanService {
 
 
         oneTimeTransactionRepository.save(transaction);
+        forecastCache.invalidate(plan.getUser().getUserId());
         return getSubplanDTO(subplan);
     }
 
@@ -271,10 +301,25 @@ public class SubplanService {
         if (subplans.isEmpty()) {
             planRepository.findById(planId)
                     .orElseThrow(() -> new EntityNotFoundException(String.format("Nie znaleziono planu o ID %d", planId)));
+            return List.of();
+        }
+
+        Plan plan = subplans.getFirst().getPlan();
+        BigDecimal budgetInPlanCurrency = convertUserBudget(plan);
+
+        List<Subplan> uncompletedSubplans = subplans.stream().filter(subplan -> !subplan.getCompleted()).toList();
+        List<CompletionEstimate> estimates = generalPlansService.estimateCompletion(plan.getUser(), uncompletedSubplans.stream()
+                .map(subplan -> new CurrencyAmount(subplan.getRequiredAmount(), plan.getCurrency().getIsoCode()))
+                .toList());
+        Map<Integer, CompletionEstimate> completionEstimates = new HashMap<>();
+        for (int i = 0; i < uncompletedSubplans.size(); i++) {
+            completionEstimates.put(uncompletedSubplans.get(i).getSubplanId(), estimates.get(i));
         }
 
         return subplans.stream()
-                .map(this::getSubplanDTO)
+                .map(subplan -> subplan.getCompleted() ?
+                        getSubplanDTO(subplan, subplan.getRequiredAmount(), completedEstimate(subplan)) :
+                        getSubplanDTO(subplan, budgetInPlanCurrency, completionEstimates.get(subplan.getSubplanId())))
                 .collect(Collectors.toList());
     }
 
@@ -284,6 +329,7 @@ public class SubplanService {
                 .orElseThrow(() -> new EntityNotFoundException(String.format("Nie znaleziono podplanu o ID %d", id)));
 
         subPlanRepository.delete(subplan);
+        planAggregateService.subplanRemoved(subplan.getPlan(), subplan.getRequiredAmount(), subplan.getCompleted());
         calculatePlanSubplanCompletion(subplan.getPlan());
 
         OneTimeTransaction transaction = subplan.getTransaction();
@@ -297,35 +343,39 @@ public class SubplanService {
                         subplan.getPlan().getUser().getCurrency().getIsoCode()
                 );
                 transaction.getUser().setCurrentBudget(transaction.getUser().getCurrentBudget().add(correctAmount));
+                balanceSnapshotService.recordChange(transaction.getUser(), transaction.getDate(), correctAmount);
             }
             catch (CurrencyConversionException e) {
                 log.error("Nieoczekiwany błąd w CurrencyService", e);
             }
         }
+        forecastCache.invalidate(subplan.getPlan().getUser().getUserId());
     }
 
     void calculatePlanSubplanCompletion(Plan plan) {
-        Integer totalSubplans = subPlanRepository.getSubplanCount(plan.getPlanId());
-        Integer completedSubplans = subPlanRepository.getCompletedSubPlanCount(plan.getPlanId());
+        Integer totalSubplans = plan.getSubplanCount();
+        Integer completedSubplans = plan.getCompletedCount();
         plan.setSubplansCompleted((double) completedSubplans / totalSubplans * 100);
         planRepository.save(plan);
     }
 
     private BigDecimal calculateCurrentBudget(Subplan subplan) {
-        BigDecimal currentBudget = BigDecimal.ZERO;
         if (subplan.getCompleted()) {
-            currentBudget = subplan.getRequiredAmount();
+            return subplan.getRequiredAmount();
         }
-        else {
-            try {
-                currentBudget = currencyService.convertCurrency(
-                        subplan.getPlan().getUser().getCurrentBudget(),
-                        subplan.getPlan().getUser().getCurrency().getIsoCode(),
-                        subplan.getPlan().getCurrency().getIsoCode()
-                );
-            } catch (CurrencyConversionException e) {
-                log.error("Nieoczekiwany błąd w CurrencyService", e);
-            }
+        return convertUserBudget(subplan.getPlan());
+    }
+
+    private BigDecimal convertUserBudget(Plan plan) {
+        BigDecimal currentBudget = BigDecimal.ZERO;
+        try {
+            currentBudget = currencyService.convertCurrency(
+                    plan.getUser().getCurrentBudget(),
+                    plan.getUser().getCurrency().getIsoCode(),
+                    plan.getCurrency().getIsoCode()
+            );
+        } catch (CurrencyConversionException e) {
+            log.error("Nieoczekiwany błąd w CurrencyService", e);
         }
         return currentBudget;
     }
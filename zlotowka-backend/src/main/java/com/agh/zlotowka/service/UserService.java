@@ -1,5 +1,6 @@
 package com.agh.zlotowka.service;
 
+import com.agh.zlotowka.currency.CurrencyRegistry;
 import com.agh.zlotowka.dto.RegistrationRequest;
 import com.agh.zlotowka.dto.UpdatePasswordRequest;
 import com.agh.zlotowka.dto.UserDetailsRequest;
@@ -7,7 +8,6 @@ import com.agh.zlotowka.dto.UserResponse;
 import com.agh.zlotowka.exception.CurrencyConversionException;
 import com.agh.zlotowka.model.Currency;
 import com.agh.zlotowka.model.User;
-import com.agh.zlotowka.repository.CurrencyRepository;
 import com.agh.zlotowka.repository.UserRepository;
 import com.agh.zlotowka.security.CustomUserDetails;
 import jakarta.annotation.PostConstruct;
@@ -28,12 +28,13 @@ import java.time.LocalDate;
 public class UserService {
     private final UserRepository userRepository;
     private final CurrencyService currencyService;
-    private final CurrencyRepository currencyRepository;
+    private final CurrencyRegistry currencyRegistry;
     private final PasswordEncoder passwordEncoder;
+    private final BalanceSnapshotService balanceSnapshotService;
 
     @PostConstruct
     public void initializeCurrencies() {
-        if (currencyRepository.findAll().isEmpty()) {
+        if (currencyRegistry.getAll().isEmpty()) {
             currencyService.addCurrencies();
         }
     }
@@ -44,7 +45,7 @@ public class UserService {
             throw new IllegalArgumentException("Użytkownik z podanym adresem e-mail już istnieje");
         }
 
-        Currency defaultCurrency = currencyRepository.findByIsoCode("PLN")
+        Currency defaultCurrency = currencyRegistry.findByIsoCode("PLN")
                 .orElseThrow(() -> new EntityNotFoundException("Domyślna waluta PLN nie została znaleziona"));
 
 
@@ -66,10 +67,14 @@ public class UserService {
     }
 
     public void removeTransactionAmountFromBudget(int currencyId, BigDecimal amount, boolean isIncome, User user) {
+        removeTransactionAmountFromBudget(currencyId, amount, isIncome, user, LocalDate.now());
+    }
+
+    public void removeTransactionAmountFromBudget(int currencyId, BigDecimal amount, boolean isIncome, User user, LocalDate date) {
         BigDecimal budget = user.getCurrentBudget();
         BigDecimal amountInUserCurrency;
 
-        Currency requestCurrency = currencyRepository.findById(currencyId)
+        Currency requestCurrency = currencyRegistry.findById(currencyId)
                 .orElseThrow(() -> new EntityNotFoundException("Usługa walutowa: Waluta o ID: " + currencyId + " nie została znaleziona"));
 
         try {
@@ -78,7 +83,7 @@ public class UserService {
             } else {
                 amountInUserCurrency = currencyService.convertCurrency(amount, requestCurrency.getIsoCode(), user.getCurrency().getIsoCode());
             }
-            addTransactionToBudget(user, budget, amountInUserCurrency, !isIncome);
+            addTransactionToBudget(user, budget, amountInUserCurrency, !isIncome, date);
         } catch (CurrencyConversionException e) {
             log.error("Konwersja waluty nie powiodła się", e);
         }
@@ -105,10 +110,14 @@ public class UserService {
 
 
     public void addTransactionAmountToBudget(int currencyId, BigDecimal amount, boolean isIncome, User user) {
+        addTransactionAmountToBudget(currencyId, amount, isIncome, user, LocalDate.now());
+    }
+
+    public void addTransactionAmountToBudget(int currencyId, BigDecimal amount, boolean isIncome, User user, LocalDate date) {
         BigDecimal budget = user.getCurrentBudget();
         BigDecimal amountInUserCurrency;
 
-        Currency requestCurrency = currencyRepository.findById(currencyId)
+        Currency requestCurrency = currencyRegistry.findById(currencyId)
                 .orElseThrow(() -> new EntityNotFoundException("Usługa walutowa: Waluta o ID: " + currencyId + " nie została znaleziona"));
 
         try {
@@ -117,19 +126,20 @@ public class UserService {
             } else {
                 amountInUserCurrency = currencyService.convertCurrency(amount, requestCurrency.getIsoCode(), user.getCurrency().getIsoCode());
             }
-            addTransactionToBudget(user, budget, amountInUserCurrency, isIncome);
+            addTransactionToBudget(user, budget, amountInUserCurrency, isIncome, date);
         } catch (CurrencyConversionException e) {
             log.error("Konwersja waluty nie powiodła się", e);
         }
     }
 
-    private void addTransactionToBudget(User user, BigDecimal budget, BigDecimal amount, boolean isAddTransaction) {
+    private void addTransactionToBudget(User user, BigDecimal budget, BigDecimal amount, boolean isAddTransaction, LocalDate date) {
         if (isAddTransaction) {
             user.setCurrentBudget(budget.add(amount));
         } else {
             user.setCurrentBudget(budget.subtract(amount));
         }
         userRepository.save(user);
+        balanceSnapshotService.recordChange(user, date, isAddTransaction ? amount : amount.negate());
     }
 
     @Transactional
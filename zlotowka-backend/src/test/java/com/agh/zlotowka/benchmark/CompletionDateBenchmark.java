@@ -0,0 +1,130 @@
+package com.agh.zlotowka.benchmark;
+
+import com.agh.zlotowka.forecast.BalanceCurve;
+import com.agh.zlotowka.forecast.CashflowEvent;
+import com.agh.zlotowka.forecast.CashflowTimeline;
+import com.agh.zlotowka.forecast.Recurrence;
+import com.agh.zlotowka.forecast.ScheduledCashflow;
+import com.agh.zlotowka.model.PeriodEnum;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompletionDateBenchmark {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 1, 1);
+    private static final LocalDate FINAL_DATE = TODAY.plusYears(5);
+
+    @Param({"500"})
+    private int oneTimeTransactions;
+
+    @Param({"20"})
+    private int recurringTransactions;
+
+    @Param({"1", "10"})
+    private int plans;
+
+    @Param({"reachable", "unreachable"})
+    private String goal;
+
+    private List<CashflowEvent> oneTimeEvents;
+    private List<ScheduledCashflow> schedules;
+    private long[] targets;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        oneTimeEvents = new ArrayList<>();
+        for (int i = 0; i < oneTimeTransactions; i++) {
+            oneTimeEvents.add(new CashflowEvent(TODAY.plusDays(1 + random.nextInt(5 * 365)), random.nextInt(40_001) - 20_000));
+        }
+        oneTimeEvents.sort(Comparator.comparing(CashflowEvent::date));
+
+        schedules = new ArrayList<>();
+        for (int i = 0; i < recurringTransactions; i++) {
+            PeriodEnum interval = i % 4 == 0 ? PeriodEnum.DAILY : PeriodEnum.WEEKLY;
+            LocalDate nextPayment = TODAY.plusDays(1 + random.nextInt(30));
+            long amount = i % 2 == 0 ? 5_000 : -4_000;
+            schedules.add(new ScheduledCashflow(Recurrence.of(interval, nextPayment), nextPayment, FINAL_DATE.minusDays(1), amount));
+        }
+
+        targets = new long[plans];
+        for (int i = 0; i < plans; i++) {
+            targets[i] = goal.equals("reachable") ? 2_000_000 + 100_000L * i : Long.MAX_VALUE - i;
+        }
+    }
+
+    @Benchmark
+    public void timelineCrossing(Blackhole blackhole) {
+        CashflowTimeline timeline = timeline();
+        for (long target : targets) {
+            blackhole.consume(firstCrossing(timeline, 0, target, TODAY.plusDays(1)));
+        }
+    }
+
+    @Benchmark
+    public void denseCurve(Blackhole blackhole) {
+        long[] dailyDeltas = timeline().dailyDeltas(TODAY.plusDays(1), FINAL_DATE.minusDays(1));
+        BalanceCurve curve = BalanceCurve.of(TODAY, 0, dailyDeltas);
+        for (long target : targets) {
+            blackhole.consume(curve.firstReaching(target));
+        }
+    }
+
+    private CashflowTimeline timeline() {
+        CashflowTimeline.Builder builder = CashflowTimeline.builder();
+        for (CashflowEvent event : oneTimeEvents) {
+            builder.add(event.date(), event.amountMinorUnits(), event.amountMinorUnits() > 0 ? CashflowTimeline.INCOME : 0);
+        }
+        for (ScheduledCashflow schedule : schedules) {
+            builder.addOccurrences(schedule.recurrence(), schedule.from(), schedule.to(), schedule.amountMinorUnits(),
+                    schedule.amountMinorUnits() > 0 ? CashflowTimeline.INCOME : 0);
+        }
+        return builder.build();
+    }
+
+    private static LocalDate firstCrossing(CashflowTimeline timeline, long openingBalance, long target, LocalDate from) {
+        long balance = openingBalance;
+        for (int i = timeline.indexAfter(from.minusDays(1)); i < timeline.size(); i++) {
+            balance = Math.addExact(balance, timeline.amount(i));
+            if (i + 1 < timeline.size() && timeline.epochDay(i + 1) == timeline.epochDay(i)) {
+                continue;
+            }
+            if (balance >= target) {
+                return LocalDate.ofEpochDay(timeline.epochDay(i));
+            }
+        }
+        return null;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CompletionDateBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
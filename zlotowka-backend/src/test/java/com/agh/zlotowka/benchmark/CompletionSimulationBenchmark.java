@@ -0,0 +1,75 @@
+package com.agh.zlotowka.benchmark;
+
+import com.agh.zlotowka.forecast.CompletionSimulation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompletionSimulationBenchmark {
+
+    private static final int HORIZON_DAYS = 5 * 365;
+
+    @Param({"2000"})
+    private int trials;
+
+    @Param({"5"})
+    private int plans;
+
+    private long[] dailyDeltas;
+    private long[] dailyNoise;
+    private long[] targets;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        dailyDeltas = new long[HORIZON_DAYS];
+        for (int i = 0; i < HORIZON_DAYS; i++) {
+            dailyDeltas[i] = (i % 30 == 0 ? 500_000 : 0) - 12_000;
+        }
+        dailyNoise = new long[365];
+        for (int i = 0; i < dailyNoise.length; i++) {
+            dailyNoise[i] = random.nextInt(4) == 0 ? 4_000 - random.nextInt(40_000) : 4_000;
+        }
+        targets = new long[plans];
+        for (int i = 0; i < plans; i++) {
+            targets[i] = 1_000_000L * (i + 1);
+        }
+    }
+
+    @Benchmark
+    public CompletionSimulation sequential() {
+        return CompletionSimulation.run(0, dailyDeltas, dailyNoise, targets, trials, 42, Runnable::run);
+    }
+
+    @Benchmark
+    public CompletionSimulation parallel() {
+        return CompletionSimulation.run(0, dailyDeltas, dailyNoise, targets, trials, 42, ForkJoinPool.commonPool());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CompletionSimulationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
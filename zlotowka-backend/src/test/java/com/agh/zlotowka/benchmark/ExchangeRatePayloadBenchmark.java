@@ -0,0 +1,98 @@
+package com.agh.zlotowka.benchmark;
+
+import com.agh.zlotowka.currency.ExchangeRatePayloadParser;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExchangeRatePayloadBenchmark {
+
+    @Param({"340"})
+    private int currencies;
+
+    private byte[] payload;
+    private Set<String> snapshotCodes;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        StringBuilder json = new StringBuilder("{\n\t\"date\": \"2025-01-01\",\n\t\"pln\": {");
+        for (int i = 0; i < currencies; i++) {
+            String code = i == currencies / 2 ? "eur" : i == currencies / 3 ? "usd" : "c" + i;
+            json.append(i == 0 ? "\n" : ",\n")
+                    .append("\t\t\"").append(code).append("\": ")
+                    .append(random.nextDouble() * 10_000);
+        }
+        json.append("\n\t}\n}");
+        payload = json.toString().getBytes(StandardCharsets.UTF_8);
+        snapshotCodes = Set.of("pln", "eur", "usd");
+    }
+
+    @Benchmark
+    public BigDecimal jsonObjectSingleRate() throws IOException {
+        JSONObject rates = readJsonObject().optJSONObject("pln");
+        return BigDecimal.valueOf(((Number) rates.get("eur")).doubleValue());
+    }
+
+    @Benchmark
+    public BigDecimal streamingSingleRate() throws Exception {
+        return ExchangeRatePayloadParser.parseRates(payload, "pln", Set.of("eur")).get("eur");
+    }
+
+    @Benchmark
+    public Map<String, BigDecimal> streamingSnapshotRow() throws Exception {
+        return ExchangeRatePayloadParser.parseRates(payload, "pln", snapshotCodes);
+    }
+
+    @Benchmark
+    public Map<String, BigDecimal> streamingAllRates() throws Exception {
+        return ExchangeRatePayloadParser.parseRates(payload, "pln");
+    }
+
+    private JSONObject readJsonObject() throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(payload), StandardCharsets.UTF_8))) {
+            StringBuilder response = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                response.append(line);
+            }
+            return new JSONObject(response.toString());
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ExchangeRatePayloadBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
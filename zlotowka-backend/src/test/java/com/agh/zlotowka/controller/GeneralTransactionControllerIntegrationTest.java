@@ -0,0 +1,139 @@
+package com.agh.zlotowka.controller;
+
+import com.agh.zlotowka.dto.OneTimeTransactionRequest;
+import com.agh.zlotowka.dto.UserDataInDateRangeRequest;
+import com.agh.zlotowka.model.Currency;
+import com.agh.zlotowka.model.User;
+import com.agh.zlotowka.repository.CurrencyRepository;
+import com.agh.zlotowka.repository.UserRepository;
+import com.agh.zlotowka.security.CustomUserDetails;
+import com.agh.zlotowka.service.OneTimeTransactionService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.method.annotation.AuthenticationPrincipalArgumentResolver;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ActiveProfiles("test")
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class GeneralTransactionControllerIntegrationTest {
+
+    @Autowired
+    private GeneralTransactionController generalTransactionController;
+
+    @Autowired
+    private OneTimeTransactionService oneTimeTransactionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private MockMvc mockMvc;
+    private User user;
+    private Currency currency;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setup() {
+        mockMvc = MockMvcBuilders.standaloneSetup(generalTransactionController)
+                .setCustomArgumentResolvers(new AuthenticationPrincipalArgumentResolver())
+                .build();
+
+        currency = currencyRepository.findAll().stream()
+                .filter(candidate -> "PLN".equals(candidate.getIsoCode()))
+                .findFirst()
+                .orElseGet(() -> currencyRepository.save(Currency.builder().isoCode("PLN").build()));
+
+        user = userRepository.save(User.builder()
+                .firstName("Jan")
+                .lastName("Kowalski")
+                .email(UUID.randomUUID().toString().substring(0, 8) + "@example.com")
+                .phoneNumber("+48123456789")
+                .password("securePassword123")
+                .dateOfJoining(today)
+                .currentBudget(new BigDecimal("100.00").setScale(2, RoundingMode.HALF_UP))
+                .currency(currency)
+                .build());
+
+        CustomUserDetails userDetails = new CustomUserDetails(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void streamWritesOnePointPerLineInDateOrderTest() throws Exception {
+        addTransaction("Wypłata", "50.00", true, today.minusDays(10));
+        addTransaction("Zakupy", "30.00", false, today.minusDays(3));
+        addTransaction("Czynsz", "40.00", false, today.plusDays(5));
+
+        UserDataInDateRangeRequest body = new UserDataInDateRangeRequest(user.getUserId(), today.minusDays(30), today.plusDays(30));
+        MvcResult started = mockMvc.perform(post("/general-transactions/plot-data/stream")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String response = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(response.endsWith("\n"));
+        List<LocalDate> dates = new ArrayList<>();
+        List<BigDecimal> amounts = new ArrayList<>();
+        for (String line : response.split("\n")) {
+            JsonNode point = objectMapper.readTree(line);
+            assertTrue(point.isObject(), line);
+            dates.add(LocalDate.parse(point.get("date").asText()));
+            amounts.add(point.get("amount").decimalValue());
+        }
+
+        assertEquals(List.of(today.minusDays(30), today.minusDays(10), today.minusDays(3), today,
+                today.plusDays(5), today.plusDays(30)), dates);
+        assertEquals(0, new BigDecimal("100.00").compareTo(amounts.get(0)));
+        assertEquals(0, new BigDecimal("120.00").compareTo(amounts.get(3)));
+        assertEquals(0, new BigDecimal("80.00").compareTo(amounts.get(5)));
+    }
+
+    private void addTransaction(String name, String amount, boolean isIncome, LocalDate date) {
+        oneTimeTransactionService.createTransaction(new OneTimeTransactionRequest(
+                user.getUserId(), name, new BigDecimal(amount), currency.getCurrencyId(), isIncome, date, name));
+    }
+}
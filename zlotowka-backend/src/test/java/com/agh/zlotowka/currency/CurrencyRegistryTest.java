@@ -0,0 +1,98 @@
+package com.agh.zlotowka.currency;
+
+import com.agh.zlotowka.model.Currency;
+import com.agh.zlotowka.repository.CurrencyRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CurrencyRegistryTest {
+
+    @InjectMocks
+    private CurrencyRegistry registry;
+
+    @Mock
+    private CurrencyRepository currencyRepository;
+
+    private final Currency pln = new Currency(1, "PLN");
+    private final Currency eur = new Currency(3, "EUR");
+
+    @Test
+    void resolvesCurrenciesWithSingleLoadTest() {
+        when(currencyRepository.findAll()).thenReturn(List.of(pln, eur));
+
+        assertEquals(pln, registry.findById(1).orElseThrow());
+        assertEquals(eur, registry.findByIsoCode("eur").orElseThrow());
+        assertEquals(2, registry.getAll().size());
+        assertEquals(eur, registry.findById(3).orElseThrow());
+
+        verify(currencyRepository, times(1)).findAll();
+    }
+
+    @Test
+    void missReloadsFromRepositoryTest() {
+        Currency usd = new Currency(2, "USD");
+        when(currencyRepository.findAll()).thenReturn(List.of(pln), List.of(pln, usd));
+
+        assertEquals(pln, registry.findById(1).orElseThrow());
+        assertEquals(usd, registry.findById(2).orElseThrow());
+        assertEquals(usd, registry.findByIsoCode("USD").orElseThrow());
+
+        verify(currencyRepository, times(2)).findAll();
+    }
+
+    @Test
+    void unknownCurrencyIsEmptyTest() {
+        when(currencyRepository.findAll()).thenReturn(List.of(pln));
+
+        assertTrue(registry.findById(99).isEmpty());
+        assertTrue(registry.findByIsoCode("GBP").isEmpty());
+        assertTrue(registry.findById(null).isEmpty());
+    }
+
+    @Test
+    void repeatedMissDoesNotReloadTest() {
+        when(currencyRepository.findAll()).thenReturn(List.of(pln));
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(registry.findById(99).isEmpty());
+            assertTrue(registry.findByIsoCode("xyz").isEmpty());
+        }
+
+        verify(currencyRepository, times(3)).findAll();
+    }
+
+    @Test
+    void refreshClearsMissesTest() {
+        Currency usd = new Currency(2, "USD");
+        when(currencyRepository.findAll()).thenReturn(List.of(pln), List.of(pln), List.of(pln, usd));
+
+        assertTrue(registry.findById(2).isEmpty());
+        registry.refresh();
+
+        assertEquals(usd, registry.findById(2).orElseThrow());
+    }
+
+    @Test
+    void returnedCurrenciesAreIndependentCopiesTest() {
+        when(currencyRepository.findAll()).thenReturn(List.of(pln));
+
+        Currency first = registry.findById(1).orElseThrow();
+        first.setIsoCode("XXX");
+        registry.getAll().getFirst().setCurrencyId(7);
+        pln.setIsoCode("YYY");
+
+        assertNotSame(first, registry.findById(1).orElseThrow());
+        assertEquals(new Currency(1, "PLN"), registry.findById(1).orElseThrow());
+        assertEquals(new Currency(1, "PLN"), registry.findByIsoCode("pln").orElseThrow());
+        assertThrows(UnsupportedOperationException.class, () -> registry.getAll().add(new Currency(2, "USD")));
+    }
+}
@@ -0,0 +1,96 @@
+package com.agh.zlotowka.currency;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExchangeRateCacheTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+
+    @Test
+    void returnsCachedRatesWithinTtlTest() {
+        ExchangeRateCache cache = new ExchangeRateCache(Duration.ofMinutes(10), 4, clock);
+        cache.put("PLN", Map.of("eur", new BigDecimal("0.23")));
+
+        clock.advance(Duration.ofMinutes(9));
+
+        assertEquals(new BigDecimal("0.23"), cache.get("pln").orElseThrow().get("eur"));
+        assertEquals(1, cache.getStats().hits());
+        assertEquals(0, cache.getStats().misses());
+    }
+
+    @Test
+    void expiredEntryIsAMissTest() {
+        ExchangeRateCache cache = new ExchangeRateCache(Duration.ofMinutes(10), 4, clock);
+        cache.put("pln", Map.of("eur", new BigDecimal("0.23")));
+
+        clock.advance(Duration.ofMinutes(10));
+
+        assertTrue(cache.get("pln").isEmpty());
+        assertEquals(1, cache.getStats().misses());
+        assertEquals(new BigDecimal("0.23"), cache.getStale("pln").orElseThrow().get("eur"));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntryTest() {
+        ExchangeRateCache cache = new ExchangeRateCache(Duration.ofMinutes(10), 2, clock);
+        cache.put("pln", Map.of("eur", BigDecimal.ONE));
+        cache.put("usd", Map.of("eur", BigDecimal.ONE));
+        cache.get("pln");
+        cache.put("eur", Map.of("pln", BigDecimal.ONE));
+
+        assertTrue(cache.get("usd").isEmpty());
+        assertTrue(cache.get("pln").isPresent());
+        assertTrue(cache.get("eur").isPresent());
+        assertEquals(1, cache.getStats().evictions());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void hitRateTest() {
+        ExchangeRateCache cache = new ExchangeRateCache(Duration.ofMinutes(10), 2, clock);
+        cache.get("pln");
+        cache.put("pln", Map.of("eur", BigDecimal.ONE));
+        cache.get("pln");
+        cache.get("pln");
+        cache.get("pln");
+
+        assertEquals(0.75, cache.getStats().hitRate(), 1e-9);
+    }
+
+    static class MutableClock extends Clock {
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
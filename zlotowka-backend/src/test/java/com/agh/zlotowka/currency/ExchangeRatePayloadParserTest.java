@@ -0,0 +1,49 @@
+package com.agh.zlotowka.currency;
+
+import com.agh.zlotowka.exception.CurrencyConversionException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExchangeRatePayloadParserTest {
+
+    private static final byte[] PAYLOAD = ("{\"date\":\"2025-01-01\",\"meta\":{\"pln\":{\"eur\":9}},"
+            + "\"pln\":{\"1inch\":2.3,\"eur\":0.2341,\"note\":\"x\",\"pln\":1,\"usd\":0.2436}}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void parsesAllRatesOfBaseCurrencyTest() throws Exception {
+        Map<String, BigDecimal> rates = ExchangeRatePayloadParser.parseRates(PAYLOAD, "PLN");
+
+        assertEquals(4, rates.size());
+        assertEquals(new BigDecimal("0.2341"), rates.get("eur"));
+        assertEquals(0, BigDecimal.ONE.compareTo(rates.get("pln")));
+        assertFalse(rates.containsKey("note"));
+    }
+
+    @Test
+    void parsesOnlyRequestedTargetsTest() throws Exception {
+        Map<String, BigDecimal> rates = ExchangeRatePayloadParser.parseRates(PAYLOAD, "pln", Set.of("eur", "usd"));
+
+        assertEquals(Map.of("eur", new BigDecimal("0.2341"), "usd", new BigDecimal("0.2436")), rates);
+    }
+
+    @Test
+    void missingBaseCurrencyThrowsExceptionTest() {
+        assertThrows(CurrencyConversionException.class,
+                () -> ExchangeRatePayloadParser.parseRates(PAYLOAD, "gbp"));
+    }
+
+    @Test
+    void malformedPayloadThrowsIOExceptionTest() {
+        byte[] payload = "{\"pln\":{\"eur\":".getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(IOException.class, () -> ExchangeRatePayloadParser.parseRates(payload, "pln"));
+    }
+}
@@ -0,0 +1,147 @@
+package com.agh.zlotowka.currency;
+
+import com.agh.zlotowka.exception.CurrencyConversionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExchangeRateProviderTest {
+
+    private StubRateServer server;
+    private ExchangeRateCacheTest.MutableClock clock;
+    private ExchangeRateProvider provider;
+
+    @BeforeEach
+    void setup() throws IOException {
+        server = new StubRateServer();
+        clock = new ExchangeRateCacheTest.MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+        provider = new ExchangeRateProvider(
+                server.baseUrl(),
+                Duration.ofSeconds(1),
+                Duration.ofMillis(500),
+                2,
+                new CircuitBreaker(3, Duration.ofSeconds(30), clock));
+    }
+
+    @AfterEach
+    void tearDown() {
+        provider.shutdown();
+        server.close();
+    }
+
+    @Test
+    void fetchesRatesFromProviderTest() throws Exception {
+        Map<String, BigDecimal> rates = provider.fetchRates("PLN");
+
+        assertEquals(0, new BigDecimal("0.2341").compareTo(rates.get("eur")));
+        assertEquals(0, new BigDecimal("0.2436").compareTo(rates.get("usd")));
+        assertEquals(1, server.requestCount());
+    }
+
+    @Test
+    void unknownBaseCurrencyThrowsExceptionTest() {
+        assertThrows(CurrencyConversionException.class, () -> provider.fetchRates("xyz"));
+    }
+
+    @Test
+    void serverErrorThrowsIOExceptionTest() {
+        server.respondWith(500);
+
+        IOException e = assertThrows(IOException.class, () -> provider.fetchRates("pln"));
+        assertTrue(e.getMessage().contains("500"));
+    }
+
+    @Test
+    void slowProviderTimesOutTest() {
+        server.delayResponses(Duration.ofSeconds(2));
+
+        assertThrows(IOException.class, () -> provider.fetchRates("pln"));
+    }
+
+    @Test
+    void circuitOpensAfterRepeatedFailuresAndFailsFastTest() {
+        server.respondWith(503);
+        for (int i = 0; i < 3; i++) {
+            assertThrows(IOException.class, () -> provider.fetchRates("pln"));
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, provider.getCircuitState());
+        assertThrows(CurrencyConversionException.class, () -> provider.fetchRates("pln"));
+        assertEquals(3, server.requestCount());
+    }
+
+    @Test
+    void unknownCurrenciesDoNotOpenCircuitTest() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertThrows(CurrencyConversionException.class, () -> provider.fetchRates("xyz"));
+        }
+        server.respondWith(404);
+        for (int i = 0; i < 5; i++) {
+            assertThrows(IOException.class, () -> provider.fetchRates("abc"));
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, provider.getCircuitState());
+        server.respondWith(200);
+        assertFalse(provider.fetchRates("pln").isEmpty());
+    }
+
+    @Test
+    void circuitClosesAfterSuccessfulProbeTest() throws Exception {
+        server.respondWith(503);
+        for (int i = 0; i < 3; i++) {
+            assertThrows(IOException.class, () -> provider.fetchRates("pln"));
+        }
+
+        server.respondWith(200);
+        clock.advance(Duration.ofSeconds(31));
+
+        assertFalse(provider.fetchRates("pln").isEmpty());
+        assertEquals(CircuitBreaker.State.CLOSED, provider.getCircuitState());
+    }
+
+    @Test
+    void requestThatCannotBeSentReleasesPermitsTest() {
+        ExchangeRateProvider misconfigured = new ExchangeRateProvider("http://bad host", Duration.ofSeconds(1),
+                Duration.ofMillis(500), 1, new CircuitBreaker(3, Duration.ofSeconds(30), clock));
+        try {
+            for (int i = 0; i < 3; i++) {
+                ExecutionException e = assertThrows(ExecutionException.class, () -> misconfigured.fetchRatesAsync("pln").get());
+                assertInstanceOf(IllegalArgumentException.class, e.getCause());
+            }
+            assertEquals(CircuitBreaker.State.OPEN, misconfigured.getCircuitState());
+
+            for (int probe = 0; probe < 2; probe++) {
+                clock.advance(Duration.ofSeconds(31));
+                ExecutionException e = assertThrows(ExecutionException.class, () -> misconfigured.fetchRatesAsync("pln").get());
+                assertInstanceOf(IllegalArgumentException.class, e.getCause());
+            }
+        } finally {
+            misconfigured.shutdown();
+        }
+    }
+
+    @Test
+    void bulkheadRejectsRequestsAboveLimitTest() throws Exception {
+        server.delayResponses(Duration.ofMillis(300));
+
+        CompletableFuture<Map<String, BigDecimal>> first = provider.fetchRatesAsync("pln");
+        CompletableFuture<Map<String, BigDecimal>> second = provider.fetchRatesAsync("eur");
+        CompletableFuture<Map<String, BigDecimal>> rejected = provider.fetchRatesAsync("usd");
+
+        ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+        assertInstanceOf(CurrencyConversionException.class, e.getCause());
+        assertFalse(first.get().isEmpty());
+        assertFalse(second.get().isEmpty());
+        assertEquals(CircuitBreaker.State.CLOSED, provider.getCircuitState());
+    }
+}
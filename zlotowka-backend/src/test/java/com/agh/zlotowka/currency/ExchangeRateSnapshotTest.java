@@ -0,0 +1,87 @@
+package com.agh.zlotowka.currency;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExchangeRateSnapshotTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Test
+    void matrixSnapshotReturnsDirectRatesTest() {
+        ExchangeRateSnapshot snapshot = ExchangeRateSnapshot.builder(List.of("PLN", "EUR"))
+                .row("pln", Map.of("eur", new BigDecimal("0.2341")))
+                .build(NOW);
+
+        assertEquals(new BigDecimal("0.2341"), snapshot.getRate("PLN", "EUR"));
+        assertEquals(BigDecimal.ONE, snapshot.getRate("eur", "eur"));
+        assertNull(snapshot.getRate("eur", "pln"));
+        assertNull(snapshot.getRate("pln", "gbp"));
+        assertFalse(snapshot.isPivoted());
+    }
+
+    @Test
+    void pivotSnapshotDerivesCrossRatesTest() {
+        ExchangeRateSnapshot snapshot = ExchangeRateSnapshot.pivot(List.of("PLN", "USD", "EUR"), "eur",
+                Map.of("pln", new BigDecimal("4.2718"), "usd", new BigDecimal("1.0406")), NOW);
+
+        assertTrue(snapshot.isPivoted());
+        assertEquals(0, new BigDecimal("4.2718").compareTo(snapshot.getRate("eur", "pln")));
+        assertEquals(0, new BigDecimal("0.2340933564305445").compareTo(snapshot.getRate("pln", "eur")));
+        assertEquals(0, new BigDecimal("0.2435975467016246").compareTo(snapshot.getRate("pln", "usd")));
+        assertEquals(BigDecimal.ONE, snapshot.getRate("usd", "usd"));
+    }
+
+    @Test
+    void pivotSnapshotWithoutRateReturnsNullTest() {
+        ExchangeRateSnapshot snapshot = ExchangeRateSnapshot.pivot(List.of("PLN", "GBP"), "eur",
+                Map.of("pln", new BigDecimal("4.2718")), NOW);
+
+        assertNull(snapshot.getRate("pln", "gbp"));
+        assertNull(snapshot.getRate("gbp", "pln"));
+    }
+
+    @Test
+    void crossRateDriftAgainstDirectRatesIsBoundedTest() {
+        Random random = new Random(7);
+        List<String> codes = new ArrayList<>();
+        Map<String, BigDecimal> pivotRates = new HashMap<>();
+        for (int i = 0; i < 40; i++) {
+            String code = "c" + i;
+            codes.add(code);
+            double magnitude = Math.pow(10, random.nextInt(9) - 4);
+            pivotRates.put(code, new BigDecimal(magnitude * (1 + random.nextDouble()), new MathContext(10)));
+        }
+        ExchangeRateSnapshot snapshot = ExchangeRateSnapshot.pivot(codes, "eur", pivotRates, NOW);
+
+        MathContext published = new MathContext(8, RoundingMode.HALF_EVEN);
+        BigDecimal maxRelativeDrift = new BigDecimal("1E-7");
+        BigDecimal amount = new BigDecimal("10000.00");
+
+        for (String from : codes) {
+            for (String to : codes) {
+                BigDecimal direct = pivotRates.get(to).divide(pivotRates.get(from), published);
+                BigDecimal triangulated = snapshot.getRate(from, to);
+
+                BigDecimal drift = triangulated.subtract(direct).abs().divide(direct, MathContext.DECIMAL64);
+                assertTrue(drift.compareTo(maxRelativeDrift) <= 0, from + "->" + to + " drift " + drift);
+
+                BigDecimal convertedDirect = amount.multiply(direct).setScale(2, RoundingMode.HALF_UP);
+                BigDecimal convertedTriangulated = amount.multiply(triangulated).setScale(2, RoundingMode.HALF_UP);
+                BigDecimal tolerance = convertedDirect.abs().multiply(maxRelativeDrift).add(new BigDecimal("0.01"));
+                assertTrue(convertedTriangulated.subtract(convertedDirect).abs().compareTo(tolerance) <= 0);
+            }
+        }
+    }
+}
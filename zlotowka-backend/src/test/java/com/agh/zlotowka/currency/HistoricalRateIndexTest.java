@@ -0,0 +1,64 @@
+package com.agh.zlotowka.currency;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoricalRateIndexTest {
+
+    private static final long DAY = LocalDate.of(2025, 1, 10).toEpochDay();
+
+    @Test
+    void returnsRateOfExactDayTest() {
+        HistoricalRateIndex index = new HistoricalRateIndex();
+        index.put("PLN", DAY, new BigDecimal("4.27"));
+        index.put("pln", DAY + 1, new BigDecimal("4.30"));
+
+        assertEquals(new BigDecimal("4.27"), index.getRate("pln", DAY));
+        assertEquals(new BigDecimal("4.30"), index.getRate("PLN", DAY + 1));
+        assertTrue(index.contains("pln", DAY));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void missingDaysCarryLastKnownRateTest() {
+        HistoricalRateIndex index = new HistoricalRateIndex();
+        index.put("pln", DAY, new BigDecimal("4.27"));
+        index.put("pln", DAY + 3, new BigDecimal("4.31"));
+
+        assertEquals(new BigDecimal("4.27"), index.getRate("pln", DAY + 2));
+        assertEquals(new BigDecimal("4.31"), index.getRate("pln", DAY + 100));
+        assertFalse(index.contains("pln", DAY + 2));
+        assertNull(index.getRate("pln", DAY - 1));
+        assertNull(index.getRate("usd", DAY));
+    }
+
+    @Test
+    void backfilledEarlierDaysAreIndexedTest() {
+        HistoricalRateIndex index = new HistoricalRateIndex();
+        index.put("pln", DAY, new BigDecimal("4.27"));
+        index.put("pln", DAY - 200, new BigDecimal("4.50"));
+        index.put("pln", DAY - 1, new BigDecimal("4.28"));
+
+        assertEquals(new BigDecimal("4.50"), index.getRate("pln", DAY - 200));
+        assertEquals(new BigDecimal("4.50"), index.getRate("pln", DAY - 2));
+        assertEquals(new BigDecimal("4.28"), index.getRate("pln", DAY - 1));
+        assertEquals(new BigDecimal("4.27"), index.getRate("pln", DAY));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void laterKnownDayIsNotOverwrittenByFillTest() {
+        HistoricalRateIndex index = new HistoricalRateIndex();
+        index.put("pln", DAY + 5, new BigDecimal("4.35"));
+        index.put("pln", DAY, new BigDecimal("4.27"));
+        index.put("pln", DAY + 2, new BigDecimal("4.29"));
+
+        assertEquals(new BigDecimal("4.27"), index.getRate("pln", DAY + 1));
+        assertEquals(new BigDecimal("4.29"), index.getRate("pln", DAY + 4));
+        assertEquals(new BigDecimal("4.35"), index.getRate("pln", DAY + 5));
+    }
+}
@@ -0,0 +1,148 @@
+package com.agh.zlotowka.currency;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateFetchCoalescerTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    void concurrentFetchesShareOneLoadTest() throws Exception {
+        RateFetchCoalescer coalescer = new RateFetchCoalescer();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        try {
+            List<Future<Map<String, BigDecimal>>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> coalescer.fetch("PLN", () -> {
+                    loads.incrementAndGet();
+                    awaitRelease(release);
+                    return Map.of("eur", new BigDecimal("0.23"));
+                })));
+            }
+
+            waitUntil(() -> coalescer.getExecutedCount() + coalescer.getCoalescedCount() == THREADS);
+            release.countDown();
+
+            for (Future<Map<String, BigDecimal>> result : results) {
+                assertEquals(new BigDecimal("0.23"), result.get(5, TimeUnit.SECONDS).get("eur"));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(1, coalescer.getExecutedCount());
+        assertEquals(THREADS - 1, coalescer.getCoalescedCount());
+    }
+
+    @Test
+    void waitersReceiveSharedFailureTest() throws Exception {
+        RateFetchCoalescer coalescer = new RateFetchCoalescer();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        try {
+            List<Future<Map<String, BigDecimal>>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> coalescer.fetch("usd", () -> {
+                    awaitRelease(release);
+                    throw new IOException("provider down");
+                })));
+            }
+
+            waitUntil(() -> coalescer.getExecutedCount() + coalescer.getCoalescedCount() == THREADS);
+            release.countDown();
+
+            for (Future<Map<String, BigDecimal>> result : results) {
+                Exception e = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(IOException.class, e.getCause());
+                assertEquals("provider down", e.getCause().getMessage());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void sequentialFetchesAreNotCoalescedTest() throws Exception {
+        RateFetchCoalescer coalescer = new RateFetchCoalescer();
+        AtomicInteger loads = new AtomicInteger();
+
+        coalescer.fetch("eur", () -> Map.of("pln", BigDecimal.valueOf(loads.incrementAndGet())));
+        Map<String, BigDecimal> second = coalescer.fetch("eur", () -> Map.of("pln", BigDecimal.valueOf(loads.incrementAndGet())));
+
+        assertEquals(BigDecimal.valueOf(2), second.get("pln"));
+        assertEquals(0, coalescer.getCoalescedCount());
+    }
+
+    @Test
+    void differentTargetSetsAreNotCoalescedTest() {
+        RateFetchCoalescer coalescer = new RateFetchCoalescer();
+        CompletableFuture<Map<String, BigDecimal>> subset = new CompletableFuture<>();
+
+        CompletableFuture<Map<String, BigDecimal>> first = coalescer.fetchAsync("pln", Set.of("eur"), () -> subset);
+        CompletableFuture<Map<String, BigDecimal>> sameSubset = coalescer.fetchAsync("PLN", Set.of("EUR"), CompletableFuture::new);
+        CompletableFuture<Map<String, BigDecimal>> allTargets = coalescer.fetchAsync("pln", CompletableFuture::new);
+
+        assertSame(first, sameSubset);
+        assertNotSame(first, allTargets);
+        assertEquals(2, coalescer.getExecutedCount());
+    }
+
+    @Test
+    void asyncFetchBoundsWaitAndKeepsLoadingTest() throws Exception {
+        RateFetchCoalescer coalescer = new RateFetchCoalescer();
+        CompletableFuture<Map<String, BigDecimal>> response = new CompletableFuture<>();
+
+        CompletableFuture<Map<String, BigDecimal>> first = coalescer.fetchAsync("pln", () -> response);
+        CompletableFuture<Map<String, BigDecimal>> second = coalescer.fetchAsync("PLN", CompletableFuture::new);
+
+        assertSame(first, second);
+        assertThrows(IOException.class, () -> RateFetchCoalescer.await(second, Duration.ofMillis(20)));
+
+        response.complete(Map.of("eur", new BigDecimal("0.23")));
+        assertEquals(new BigDecimal("0.23"), RateFetchCoalescer.await(first, Duration.ofMillis(20)).get("eur"));
+        assertNotSame(first, coalescer.fetchAsync("pln", () -> response));
+        assertEquals(2, coalescer.getExecutedCount());
+        assertEquals(1, coalescer.getCoalescedCount());
+    }
+
+    private static void awaitRelease(CountDownLatch release) {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not met in time");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.agh.zlotowka.currency;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class StubRateServer implements AutoCloseable {
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger requestCount = new AtomicInteger();
+
+    private volatile int statusCode = 200;
+    private volatile Duration delay = Duration.ZERO;
+
+    StubRateServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            requestCount.incrementAndGet();
+            String path = exchange.getRequestURI().getPath();
+            String base = path.substring(path.lastIndexOf('/') + 1).replace(".json", "");
+
+            sleep(delay);
+
+            byte[] body = payload(base).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(statusCode, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    static String payload(String base) {
+        return switch (base) {
+            case "pln" -> "{\"date\":\"2025-01-01\",\"pln\":{\"eur\":0.2341,\"pln\":1,\"usd\":0.2436}}";
+            case "eur" -> "{\"date\":\"2025-01-01\",\"eur\":{\"eur\":1,\"pln\":4.2718,\"usd\":1.0406}}";
+            case "usd" -> "{\"date\":\"2025-01-01\",\"usd\":{\"eur\":0.961,\"pln\":4.1052,\"usd\":1}}";
+            default -> "{\"date\":\"2025-01-01\"}";
+        };
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/currencies";
+    }
+
+    void respondWith(int statusCode) {
+        this.statusCode = statusCode;
+    }
+
+    void delayResponses(Duration delay) {
+        this.delay = delay;
+    }
+
+    int requestCount() {
+        return requestCount.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static void sleep(Duration delay) {
+        if (delay.isZero()) return;
+        try {
+            Thread.sleep(delay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
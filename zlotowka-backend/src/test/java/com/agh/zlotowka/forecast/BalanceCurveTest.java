@@ -0,0 +1,79 @@
+package com.agh.zlotowka.forecast;
+
+import com.agh.zlotowka.model.PeriodEnum;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BalanceCurveTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 3, 1);
+
+    @Test
+    void openingBalanceCountsAsReachedOnStartDayTest() {
+        BalanceCurve curve = BalanceCurve.build(START, START.plusDays(30),
+                List.of(new CashflowEvent(START, 10_000), new CashflowEvent(START.plusDays(4), 700)), List.of(), 500);
+
+        assertEquals(START, curve.firstReaching(500));
+        assertEquals(START.plusDays(4), curve.firstReaching(1_200));
+        assertNull(curve.firstReaching(1_201));
+    }
+
+    @Test
+    void curveKeepsFirstCrossingWhenBalanceDropsAgainTest() {
+        List<CashflowEvent> events = List.of(
+                new CashflowEvent(START.plusDays(2), 1_000),
+                new CashflowEvent(START.plusDays(3), -900),
+                new CashflowEvent(START.plusDays(8), 1_500));
+
+        BalanceCurve curve = BalanceCurve.build(START, START.plusDays(10), events, List.of(), 0);
+
+        assertEquals(START.plusDays(2), curve.firstReaching(1_000));
+        assertEquals(START.plusDays(8), curve.firstReaching(1_001));
+    }
+
+    @Test
+    void curveMatchesDailyWalkForEveryTargetTest() {
+        for (long seed = 1; seed <= 30; seed++) {
+            Random random = new Random(seed);
+            LocalDate end = START.plusDays(800);
+            List<CashflowEvent> events = new ArrayList<>();
+            for (int i = 0; i < 150; i++) {
+                events.add(new CashflowEvent(START.plusDays(random.nextInt(900)), random.nextInt(20_001) - 10_000));
+            }
+            List<ScheduledCashflow> schedules = new ArrayList<>();
+            for (PeriodEnum period : PeriodEnum.values()) {
+                LocalDate anchor = START.plusDays(random.nextInt(60));
+                schedules.add(new ScheduledCashflow(Recurrence.of(period, anchor), anchor, end,
+                        period == PeriodEnum.DAILY ? random.nextInt(201) - 100 : random.nextInt(10_001) - 5_000));
+            }
+
+            long opening = random.nextInt(50_000);
+            long[] deltas = CashflowSweep.dailyDeltas(START.plusDays(1), end, events, schedules);
+            BalanceCurve curve = BalanceCurve.of(START, opening, deltas);
+            for (int i = 0; i < 20; i++) {
+                long target = random.nextInt(400_000);
+                assertEquals(walk(deltas, opening, target), curve.firstReaching(target), "seed " + seed + ", target " + target);
+            }
+        }
+    }
+
+    private static LocalDate walk(long[] deltas, long opening, long target) {
+        long balance = opening;
+        if (balance >= target) {
+            return START;
+        }
+        for (int i = 0; i < deltas.length; i++) {
+            balance += deltas[i];
+            if (balance >= target) {
+                return START.plusDays(i + 1);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,67 @@
+package com.agh.zlotowka.forecast;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BalanceIndexCacheTest {
+
+    private static final LocalDate ORIGIN = LocalDate.of(2024, 1, 1);
+
+    private final BalanceIndexCache cache = new BalanceIndexCache(true, 8);
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Supplier<BalanceIndex> loader = () -> {
+        loads.incrementAndGet();
+        BalanceIndex index = new BalanceIndex(ORIGIN, 10_000, 64);
+        index.add(ORIGIN.plusDays(10), 500);
+        return index;
+    };
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void backDatedEditIsPatchedAsOneChangeTest() {
+        cache.query(1, loader, index -> index.balanceAt(ORIGIN));
+
+        complete(TransactionSynchronization.STATUS_COMMITTED, () -> {
+            cache.recordChange(1, ORIGIN.plusDays(10), -500);
+            cache.recordChange(1, ORIGIN.plusDays(3), 700);
+        });
+
+        assertEquals(10_700, (long) cache.query(1, loader, index -> index.balanceAt(ORIGIN.plusDays(3))));
+        assertEquals(10_700, (long) cache.query(1, loader, index -> index.balanceAt(ORIGIN.plusDays(30))));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void rolledBackChangeDropsIndexTest() {
+        cache.query(1, loader, index -> index.balanceAt(ORIGIN));
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK, () -> cache.recordChange(1, ORIGIN.plusDays(3), 700));
+
+        assertEquals(10_500, (long) cache.query(1, loader, index -> index.balanceAt(ORIGIN.plusDays(30))));
+        assertEquals(2, loads.get());
+    }
+
+    private static void complete(int status, Runnable work) {
+        TransactionSynchronizationManager.initSynchronization();
+        work.run();
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        assertEquals(1, synchronizations.size());
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+}
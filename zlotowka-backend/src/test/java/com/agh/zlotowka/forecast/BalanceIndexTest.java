@@ -0,0 +1,61 @@
+package com.agh.zlotowka.forecast;
+
+import com.agh.zlotowka.dto.SinglePlotData;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BalanceIndexTest {
+
+    private static final LocalDate ORIGIN = LocalDate.of(2024, 1, 1);
+
+    @Test
+    void balanceMatchesNaivePrefixSumsTest() {
+        Random random = new Random(20);
+        BalanceIndex index = new BalanceIndex(ORIGIN, 10_000, 8);
+        long[] deltas = new long[800];
+
+        for (int step = 0; step < 2_000; step++) {
+            int day = random.nextInt(deltas.length);
+            long delta = random.nextInt(20_001) - 10_000;
+            assertTrue(index.add(ORIGIN.plusDays(day), delta));
+            deltas[day] += delta;
+
+            int probe = random.nextInt(deltas.length + 50);
+            long expected = 10_000;
+            for (int i = 0; i <= Math.min(probe, deltas.length - 1); i++) {
+                expected += deltas[i];
+            }
+            assertEquals(expected, index.balanceAt(ORIGIN.plusDays(probe)), "step " + step);
+        }
+    }
+
+    @Test
+    void datesBeforeOriginUseOpeningBalanceTest() {
+        BalanceIndex index = new BalanceIndex(ORIGIN, 5_000, 30);
+        index.add(ORIGIN, 1_000);
+
+        assertEquals(5_000, index.balanceAt(ORIGIN.minusDays(1)));
+        assertEquals(6_000, index.balanceAt(ORIGIN));
+        assertFalse(index.add(ORIGIN.minusDays(3), 100));
+    }
+
+    @Test
+    void pointsListOnlyDaysWithChangesTest() {
+        BalanceIndex index = new BalanceIndex(ORIGIN, 0, 30);
+        index.add(ORIGIN.plusDays(2), 1_500);
+        index.add(ORIGIN.plusDays(5), -500);
+        index.add(ORIGIN.plusDays(9), 250);
+
+        List<SinglePlotData> points = index.points(ORIGIN.plusDays(3), ORIGIN.plusDays(9), "PLN");
+
+        assertEquals(List.of(
+                new SinglePlotData(ORIGIN.plusDays(5), new BigDecimal("10.00"), "PLN"),
+                new SinglePlotData(ORIGIN.plusDays(9), new BigDecimal("12.50"), "PLN")), points);
+    }
+}
@@ -0,0 +1,76 @@
+package com.agh.zlotowka.forecast;
+
+import com.agh.zlotowka.model.PeriodEnum;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CashflowSweepTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 1, 31);
+
+    @Test
+    void monthlyScheduleFollowsCalendarMonthsTest() {
+        List<ScheduledCashflow> schedules = List.of(new ScheduledCashflow(
+                Recurrence.of(PeriodEnum.MONTHLY, START), START, START.plusYears(1), 100_00));
+
+        BalanceCurve curve = BalanceCurve.build(START.minusDays(1), START.plusYears(1), List.of(), schedules, 0);
+
+        assertEquals(LocalDate.of(2025, 3, 31), curve.firstReaching(300_00));
+    }
+
+    @Test
+    void balanceIsCheckedAtEndOfDayTest() {
+        List<CashflowEvent> events = List.of(
+                new CashflowEvent(START, 500),
+                new CashflowEvent(START, -400),
+                new CashflowEvent(START.plusDays(2), 300));
+
+        BalanceCurve curve = BalanceCurve.build(START.minusDays(1), START.plusDays(10), events, List.of(), 0);
+
+        assertEquals(START.plusDays(2), curve.firstReaching(200));
+        assertEquals(START, curve.firstReaching(100));
+        assertEquals(START.minusDays(1), curve.firstReaching(0));
+        assertNull(curve.firstReaching(1_000));
+    }
+
+    @Test
+    void dailyDeltasMatchScheduleOccurrencesTest() {
+        for (long seed = 1; seed <= 50; seed++) {
+            Random random = new Random(seed);
+            LocalDate end = START.plusDays(1000);
+            long[] expected = new long[1001];
+            List<CashflowEvent> events = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                CashflowEvent event = new CashflowEvent(START.plusDays(random.nextInt(1100)), random.nextInt(20_001) - 9_000);
+                events.add(event);
+                addAt(expected, event.date(), event.amountMinorUnits());
+            }
+
+            List<ScheduledCashflow> schedules = new ArrayList<>();
+            for (PeriodEnum period : List.of(PeriodEnum.DAILY, PeriodEnum.WEEKLY, PeriodEnum.MONTHLY, PeriodEnum.YEARLY)) {
+                LocalDate anchor = START.plusDays(random.nextInt(60) - 30);
+                ScheduledCashflow schedule = new ScheduledCashflow(Recurrence.of(period, anchor), anchor, START.plusDays(1100),
+                        period == PeriodEnum.DAILY ? random.nextInt(201) - 100 : random.nextInt(10_001) - 5_000);
+                schedules.add(schedule);
+                for (LocalDate date : schedule.recurrence().occurrencesBetween(schedule.from(), schedule.to())) {
+                    addAt(expected, date, schedule.amountMinorUnits());
+                }
+            }
+
+            assertArrayEquals(expected, CashflowSweep.dailyDeltas(START, end, events, schedules), "seed " + seed);
+        }
+    }
+
+    private static void addAt(long[] deltas, LocalDate date, long amount) {
+        long offset = date.toEpochDay() - START.toEpochDay();
+        if (offset >= 0 && offset < deltas.length) {
+            deltas[(int) offset] += amount;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.agh.zlotowka.forecast;
+
+import com.agh.zlotowka.model.PeriodEnum;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CashflowTimelineTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+
+    @Test
+    void eventsAreSortedByDateTest() {
+        CashflowTimeline timeline = CashflowTimeline.builder()
+                .add(START.plusDays(5), 300, 0)
+                .add(START, 100, CashflowTimeline.INCOME, 4)
+                .add(START.plusDays(5), -50, 0)
+                .build();
+
+        assertEquals(3, timeline.size());
+        assertEquals(START.toEpochDay(), timeline.epochDay(0));
+        assertEquals(4, timeline.eventCount(0));
+        assertEquals(300, timeline.amount(1));
+        assertEquals(-50, timeline.amount(2));
+        assertTrue(timeline.isIncome(0));
+        assertFalse(timeline.isRecurring(0));
+    }
+
+    @Test
+    void rangeSumsSplitIncomeAndExpensesTest() {
+        CashflowTimeline timeline = CashflowTimeline.builder()
+                .add(START, 10_000, CashflowTimeline.INCOME)
+                .add(START.plusDays(1), -2_500, 0)
+                .addOccurrences(Recurrence.of(PeriodEnum.MONTHLY, START), START, START.plusMonths(2), -1_000, 0)
+                .build();
+
+        assertEquals(10_000 - 2_500 - 3_000, timeline.sumBetween(START, START.plusMonths(3)));
+        assertEquals(10_000, timeline.incomeBetween(START, START.plusMonths(3)));
+        assertEquals(-2_500 - 3_000, timeline.expensesBetween(START, START.plusMonths(3)));
+        assertEquals(new CashflowTotals(0, -2_000), timeline.totalsBetween(START.plusDays(2), START.plusMonths(2)));
+        assertEquals(10_000 - 1_000, timeline.sumThrough(START));
+        assertEquals(0, timeline.sumBetween(START.plusDays(3), START.plusDays(2)));
+        assertTrue(timeline.isRecurring(timeline.size() - 1));
+    }
+
+    @Test
+    void indexAfterSkipsWholeDaysTest() {
+        CashflowTimeline timeline = CashflowTimeline.builder()
+                .add(START, 10_000, CashflowTimeline.INCOME)
+                .add(START.plusDays(1), -2_500, 0)
+                .addOccurrences(Recurrence.of(PeriodEnum.MONTHLY, START), START, START.plusMonths(2), -1_000, 0)
+                .build();
+
+        assertEquals(0, timeline.indexAfter(START.minusDays(1)));
+        assertEquals(2, timeline.indexAfter(START));
+        assertEquals(3, timeline.indexAfter(START.plusDays(1)));
+        assertEquals(5, timeline.indexAfter(START.plusMonths(2)));
+    }
+
+    @Test
+    void dailyViewsMatchListSweepTest() {
+        List<CashflowEvent> events = List.of(
+                new CashflowEvent(START.minusDays(3), -700),
+                new CashflowEvent(START.plusDays(2), 5_000),
+                new CashflowEvent(START.plusDays(2), -1_200),
+                new CashflowEvent(START.plusDays(20), -300));
+        List<ScheduledCashflow> schedules = List.of(
+                new ScheduledCashflow(Recurrence.of(PeriodEnum.WEEKLY, START), START, START.plusDays(30), -400));
+        CashflowTimeline.Builder builder = CashflowTimeline.builder();
+        for (CashflowEvent event : events) {
+            builder.add(event.date(), event.amountMinorUnits(), event.amountMinorUnits() > 0 ? CashflowTimeline.INCOME : 0);
+        }
+        for (ScheduledCashflow schedule : schedules) {
+            builder.addOccurrences(schedule.recurrence(), schedule.from(), schedule.to(), schedule.amountMinorUnits(), 0);
+        }
+        CashflowTimeline timeline = builder.build();
+
+        assertArrayEquals(CashflowSweep.dailyDeltas(START, START.plusDays(25), events, schedules),
+                timeline.dailyDeltas(START, START.plusDays(25)));
+
+        long[] expenses = timeline.dailyOneTimeExpenses(START.minusDays(5), START.plusDays(5));
+        assertEquals(11, expenses.length);
+        assertEquals(-700, expenses[2]);
+        assertEquals(-1_200, expenses[7]);
+        assertEquals(-1_900, Arrays.stream(expenses).sum());
+    }
+
+    @Test
+    void forecastSeriesSkipsEventsOutsideRangeTest() {
+        CashflowTimeline timeline = CashflowTimeline.builder()
+                .add(START, 999, CashflowTimeline.INCOME)
+                .add(START.plusDays(2), 500, CashflowTimeline.INCOME, 2)
+                .add(START.plusDays(2), -200, 0)
+                .add(START.plusDays(40), 7, CashflowTimeline.INCOME)
+                .build();
+
+        ForecastSeries series = ForecastSeries.build(START, START.plusDays(30), timeline);
+
+        assertEquals(1, series.size());
+        assertEquals(300, series.cumulativeThrough(START.plusDays(30)));
+    }
+}
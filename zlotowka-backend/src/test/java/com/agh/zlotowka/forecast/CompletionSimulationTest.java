@@ -0,0 +1,73 @@
+package com.agh.zlotowka.forecast;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompletionSimulationTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+
+    @Test
+    void withoutNoiseAllPercentilesMatchDeterministicCurveTest() {
+        long[] deltas = randomDeltas(new Random(7), 700, 1_000);
+        long[] targets = {-5_000, 40_000, 90_000, Long.MAX_VALUE};
+        BalanceCurve curve = BalanceCurve.of(START, 0, deltas);
+
+        CompletionSimulation simulation = CompletionSimulation.run(0, deltas, new long[0], targets, 300, 1, Runnable::run);
+
+        for (int i = 0; i < targets.length; i++) {
+            LocalDate expected = curve.firstReaching(targets[i]);
+            int expectedDay = expected == null ? CompletionSimulation.NEVER : (int) (expected.toEpochDay() - START.toEpochDay());
+            assertEquals(expectedDay, simulation.percentileDay(i, 0.1), "target " + i);
+            assertEquals(expectedDay, simulation.percentileDay(i, 0.9), "target " + i);
+        }
+    }
+
+    @Test
+    void fixedSeedGivesSameResultOnAnyExecutorTest() {
+        Random random = new Random(11);
+        long[] deltas = randomDeltas(random, 1_000, 500);
+        long[] noise = randomDeltas(random, 365, 20_000);
+        long[] targets = {30_000, 10_000, 80_000};
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            CompletionSimulation sequential = CompletionSimulation.run(1_000, deltas, noise, targets, 2_000, 99, Runnable::run);
+            CompletionSimulation parallel = CompletionSimulation.run(1_000, deltas, noise, targets, 2_000, 99, executor);
+
+            assertEquals(sequential, parallel);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void noiseSpreadsCompletionDaysAroundTrendTest() {
+        long[] deltas = new long[1_000];
+        Arrays.fill(deltas, 100);
+        long[] noise = {-1_000, 1_000};
+
+        CompletionSimulation simulation = CompletionSimulation.run(0, deltas, noise, new long[]{50_000}, 4_000, 5, Runnable::run);
+
+        int p10 = simulation.percentileDay(0, 0.1);
+        int p50 = simulation.percentileDay(0, 0.5);
+        int p90 = simulation.percentileDay(0, 0.9);
+        assertTrue(p10 < p50 && p50 < p90 && p90 != CompletionSimulation.NEVER, p10 + " " + p50 + " " + p90);
+        assertTrue(p50 <= 500, "p50 " + p50);
+    }
+
+    private static long[] randomDeltas(Random random, int days, int bound) {
+        long[] deltas = new long[days];
+        for (int i = 0; i < days; i++) {
+            deltas[i] = random.nextInt(2 * bound + 1) - bound + bound / 10;
+        }
+        return deltas;
+    }
+}
@@ -0,0 +1,220 @@
+package com.agh.zlotowka.forecast;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ForecastCacheTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 1, 1);
+    private static final LocalDate HORIZON = TODAY.plusYears(1);
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-01-01T10:00:00Z"));
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void repeatedRequestIsServedFromCacheTest() {
+        ForecastCache cache = new ForecastCache(Duration.ofMinutes(10), 8, clock);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1, "plot-data", List.of(30), loads::incrementAndGet);
+        Integer second = cache.get(1, "plot-data", List.of(30), loads::incrementAndGet);
+
+        assertEquals(1, second);
+        assertEquals(1, loads.get());
+        assertEquals(0.5, cache.getStats().hitRate(), 1e-9);
+    }
+
+    @Test
+    void invalidationOnlyAffectsGivenUserTest() {
+        ForecastCache cache = new ForecastCache(Duration.ofMinutes(10), 8, clock);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1, "end-of-month-balance", null, loads::incrementAndGet);
+        cache.get(2, "end-of-month-balance", null, loads::incrementAndGet);
+        cache.invalidate(1);
+
+        assertEquals(3, (int) cache.get(1, "end-of-month-balance", null, loads::incrementAndGet));
+        assertEquals(2, (int) cache.get(2, "end-of-month-balance", null, loads::incrementAndGet));
+        assertEquals(1, cache.getVersion(1));
+        assertEquals(0, cache.getVersion(2));
+    }
+
+    @Test
+    void entriesExpireAndAreEvictedTest() {
+        ForecastCache cache = new ForecastCache(Duration.ofMinutes(10), 2, clock);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1, "plot-data", List.of(1), loads::incrementAndGet);
+        cache.get(1, "plot-data", List.of(2), loads::incrementAndGet);
+        cache.get(1, "plot-data", List.of(3), loads::incrementAndGet);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getStats().evictions());
+
+        clock.advance(Duration.ofMinutes(10));
+        cache.get(1, "plot-data", List.of(3), loads::incrementAndGet);
+
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void resultLoadedDuringInvalidationIsNotCachedTest() {
+        ForecastCache cache = new ForecastCache(Duration.ofMinutes(10), 8, clock);
+
+        cache.get(1, "plot-data", null, () -> {
+            cache.invalidate(1);
+            return "stale";
+        });
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void patchedSeriesIsServedWithoutReloadTest() {
+        ForecastCache cache = new ForecastCache(Duration.ofMinutes(10), 8, clock);
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<ForecastSeries> loader = () -> {
+            loads.incrementAndGet();
+            return ForecastSeries.build(TODAY, HORIZON, CashflowTimeline.empty());
+        };
+
+        cache.getSeries(1, TODAY, HORIZON, loader);
+        cache.patchSeries(1, () -> ForecastChange.ofEvents(null, new CashflowEvent(TODAY.plusDays(5), 700)));
+        ForecastSeries patched = cache.getSeries(1, TODAY, HORIZON, loader);
+
+        assertEquals(1, loads.get());
+        assertEquals(700, patched.cumulativeThrough(TODAY.plusDays(5)));
+    }
+
+    @Test
+    void invalidatedSeriesIsReloadedTest() {
+        ForecastCache cache = new ForecastCache(Duration.ofMinutes(10), 8, clock);
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<ForecastSeries> loader = () -> {
+            loads.incrementAndGet();
+            return ForecastSeries.build(TODAY, HORIZON, CashflowTimeline.empty());
+        };
+
+        cache.getSeries(1, TODAY, HORIZON, loader);
+        cache.invalidate(1);
+        cache.getSeries(1, TODAY, HORIZON, loader);
+        cache.invalidateAll();
+        cache.getSeries(1, TODAY, HORIZON, loader);
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void patchAfterMissedInvalidationDropsSeriesTest() {
+        ForecastCache cache = new ForecastCache(Duration.ofMinutes(10), 8, clock);
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<ForecastSeries> loader = () -> {
+            loads.incrementAndGet();
+            return ForecastSeries.build(TODAY, HORIZON, CashflowTimeline.empty());
+        };
+
+        cache.getSeries(1, TODAY, HORIZON, loader);
+        cache.invalidate(1);
+        cache.patchSeries(1, () -> ForecastChange.ofEvents(null, new CashflowEvent(TODAY.plusDays(5), 700)));
+        cache.getSeries(1, TODAY, HORIZON, loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void patchesOfOneTransactionAreAppliedTogetherTest() {
+        ForecastCache cache = new ForecastCache(Duration.ofMinutes(10), 8, clock);
+        AtomicInteger loads = new AtomicInteger();
+        AtomicInteger computed = new AtomicInteger();
+        Supplier<ForecastSeries> loader = () -> {
+            loads.incrementAndGet();
+            return ForecastSeries.build(TODAY, HORIZON, CashflowTimeline.empty());
+        };
+
+        cache.getSeries(1, TODAY, HORIZON, loader);
+        TransactionSynchronizationManager.initSynchronization();
+        cache.patchSeries(1, () -> {
+            computed.incrementAndGet();
+            return ForecastChange.ofEvents(null, new CashflowEvent(TODAY.plusDays(5), 700));
+        });
+        cache.patchSeries(1, () -> {
+            computed.incrementAndGet();
+            return ForecastChange.ofEvents(null, new CashflowEvent(TODAY.plusDays(3), -200));
+        });
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertEquals(1, synchronizations.size());
+        assertEquals(0, computed.get());
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        ForecastSeries patched = cache.getSeries(1, TODAY, HORIZON, loader);
+
+        assertEquals(1, loads.get());
+        assertEquals(2, computed.get());
+        assertEquals(-200, patched.cumulativeThrough(TODAY.plusDays(4)));
+        assertEquals(500, patched.cumulativeThrough(TODAY.plusDays(5)));
+    }
+
+    @Test
+    void failedPatchComputationDropsSeriesTest() {
+        ForecastCache cache = new ForecastCache(Duration.ofMinutes(10), 8, clock);
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<ForecastSeries> loader = () -> {
+            loads.incrementAndGet();
+            return ForecastSeries.build(TODAY, HORIZON, CashflowTimeline.empty());
+        };
+
+        cache.getSeries(1, TODAY, HORIZON, loader);
+        cache.patchSeries(1, () -> null);
+        cache.getSeries(1, TODAY, HORIZON, loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    static class MutableClock extends Clock {
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.agh.zlotowka.forecast;
+
+import com.agh.zlotowka.dto.SinglePlotData;
+import com.agh.zlotowka.model.PeriodEnum;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ForecastSeriesTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 3, 15);
+    private static final LocalDate HORIZON = TODAY.plusYears(2);
+    private static final PeriodEnum[] PERIODS = {PeriodEnum.DAILY, PeriodEnum.WEEKLY, PeriodEnum.MONTHLY, PeriodEnum.YEARLY};
+
+    @Test
+    void patchedSeriesMatchesFullRecomputationTest() {
+        for (long seed = 1; seed <= 200; seed++) {
+            Random random = new Random(seed);
+            List<CashflowEvent> events = new ArrayList<>();
+            List<ScheduledCashflow> schedules = new ArrayList<>();
+            ForecastSeries series = ForecastSeries.build(TODAY, HORIZON, CashflowTimeline.empty());
+
+            for (int step = 0; step < 40; step++) {
+                ForecastChange change = randomChange(random, events, schedules);
+                series = series.patch(change);
+
+                ForecastSeries recomputed = ForecastSeries.build(TODAY, HORIZON, timeline(events, schedules));
+                assertEquals(recomputed, series, "seed " + seed + ", step " + step);
+            }
+        }
+    }
+
+    @Test
+    void pointsAreOffsetByOpeningBalanceTest() {
+        ForecastSeries series = ForecastSeries.build(TODAY, HORIZON, timeline(
+                List.of(new CashflowEvent(TODAY, 999), new CashflowEvent(TODAY.plusDays(2), 500), new CashflowEvent(TODAY.plusDays(2), -200)),
+                List.of(new ScheduledCashflow(Recurrence.of(PeriodEnum.MONTHLY, TODAY.minusMonths(1)), TODAY, TODAY.plusMonths(2), -1000))));
+
+        List<SinglePlotData> points = PlotSeries.toList(series.points(10_000, TODAY, HORIZON, "PLN"));
+
+        assertEquals(List.of(TODAY.plusDays(2), TODAY.plusMonths(1), TODAY.plusMonths(2)),
+                points.stream().map(SinglePlotData::date).toList());
+        assertEquals(new BigDecimal("103.00"), points.get(0).amount());
+        assertEquals(new BigDecimal("83.00"), points.get(2).amount());
+        assertEquals(300, series.cumulativeThrough(TODAY.plusMonths(1).minusDays(1)));
+        assertEquals(0, series.cumulativeThrough(TODAY.plusDays(1)));
+    }
+
+    @Test
+    void removingUnknownEventIsRejectedTest() {
+        ForecastSeries series = ForecastSeries.build(TODAY, HORIZON, CashflowTimeline.empty());
+
+        assertThrows(IllegalStateException.class, () -> series.patch(
+                ForecastChange.ofEvents(new CashflowEvent(TODAY.plusDays(3), 100), null)));
+    }
+
+    private static ForecastChange randomChange(Random random, List<CashflowEvent> events, List<ScheduledCashflow> schedules) {
+        switch (random.nextInt(4)) {
+            case 0 -> {
+                CashflowEvent added = randomEvent(random);
+                CashflowEvent removed = events.isEmpty() || random.nextBoolean() ? null : events.remove(random.nextInt(events.size()));
+                events.add(added);
+                return ForecastChange.ofEvents(removed, added);
+            }
+            case 1 -> {
+                if (events.isEmpty()) {
+                    return ForecastChange.ofEvents(null, null);
+                }
+                return ForecastChange.ofEvents(events.remove(random.nextInt(events.size())), null);
+            }
+            case 2 -> {
+                ScheduledCashflow added = randomSchedule(random);
+                ScheduledCashflow removed = schedules.isEmpty() || random.nextBoolean() ? null : schedules.remove(random.nextInt(schedules.size()));
+                schedules.add(added);
+                return ForecastChange.ofSchedules(removed, added);
+            }
+            default -> {
+                if (schedules.isEmpty()) {
+                    return ForecastChange.ofSchedules(null, null);
+                }
+                return ForecastChange.ofSchedules(schedules.remove(random.nextInt(schedules.size())), null);
+            }
+        }
+    }
+
+    private static CashflowEvent randomEvent(Random random) {
+        LocalDate date = TODAY.plusDays(random.nextInt(900) - 60);
+        return new CashflowEvent(date, random.nextInt(200_001) - 100_000);
+    }
+
+    private static ScheduledCashflow randomSchedule(Random random) {
+        LocalDate anchor = TODAY.plusDays(random.nextInt(400) - 200);
+        LocalDate from = anchor.plusDays(random.nextInt(100));
+        LocalDate to = from.plusDays(random.nextInt(1200));
+        Recurrence recurrence = Recurrence.of(PERIODS[random.nextInt(PERIODS.length)], anchor);
+        return new ScheduledCashflow(recurrence, from, to, random.nextInt(20_001) - 10_000);
+    }
+
+    private static CashflowTimeline timeline(List<CashflowEvent> events, List<ScheduledCashflow> schedules) {
+        CashflowTimeline.Builder builder = CashflowTimeline.builder();
+        for (CashflowEvent event : events) {
+            builder.add(event.date(), event.amountMinorUnits(), event.amountMinorUnits() > 0 ? CashflowTimeline.INCOME : 0);
+        }
+        for (ScheduledCashflow schedule : schedules) {
+            builder.addOccurrences(schedule.recurrence(), schedule.from(), schedule.to(), schedule.amountMinorUnits(),
+                    schedule.amountMinorUnits() > 0 ? CashflowTimeline.INCOME : 0);
+        }
+        return builder.build();
+    }
+}
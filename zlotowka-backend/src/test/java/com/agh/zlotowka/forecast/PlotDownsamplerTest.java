@@ -0,0 +1,62 @@
+package com.agh.zlotowka.forecast;
+
+import com.agh.zlotowka.dto.SinglePlotData;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntToDoubleFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlotDownsamplerTest {
+
+    private static final LocalDate START = LocalDate.of(2020, 1, 1);
+
+    @Test
+    void shortSeriesIsReturnedUnchangedTest() {
+        List<SinglePlotData> points = series(10, i -> i);
+
+        assertSame(points, PlotDownsampler.downsample(points, 10));
+    }
+
+    @Test
+    void longSeriesIsBoundedAndKeepsEndpointsTest() {
+        List<SinglePlotData> points = series(3650, i -> Math.sin(i / 50.0) * 1000);
+
+        List<SinglePlotData> sampled = PlotDownsampler.downsample(points, 200);
+
+        assertEquals(200, sampled.size());
+        assertEquals(points.getFirst(), sampled.getFirst());
+        assertEquals(points.getLast(), sampled.getLast());
+        for (int i = 1; i < sampled.size(); i++) {
+            assertTrue(sampled.get(i).date().isAfter(sampled.get(i - 1).date()));
+        }
+    }
+
+    @Test
+    void spikeSurvivesDownsamplingTest() {
+        List<SinglePlotData> points = series(5000, i -> i == 2345 ? -50000 : 1000);
+
+        List<SinglePlotData> sampled = PlotDownsampler.downsample(points, 50);
+
+        SinglePlotData minimum = sampled.stream().min(Comparator.comparing(SinglePlotData::amount)).orElseThrow();
+        assertEquals(START.plusDays(2345), minimum.date());
+    }
+
+    @Test
+    void rejectsTooFewPointsTest() {
+        assertThrows(IllegalArgumentException.class, () -> PlotDownsampler.downsample(series(10, i -> i), 2));
+    }
+
+    private static List<SinglePlotData> series(int size, IntToDoubleFunction value) {
+        List<SinglePlotData> points = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            points.add(new SinglePlotData(START.plusDays(i), BigDecimal.valueOf(value.applyAsDouble(i)), "PLN"));
+        }
+        return points;
+    }
+}
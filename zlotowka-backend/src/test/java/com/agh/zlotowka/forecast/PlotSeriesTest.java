@@ -0,0 +1,78 @@
+package com.agh.zlotowka.forecast;
+
+import com.agh.zlotowka.dto.SinglePlotData;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlotSeriesTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+
+    @Test
+    void mergeMatchesTreeMapOverwriteOrderTest() {
+        List<SinglePlotData> past = List.of(point(1, "10"), point(2, "20"), point(5, "50"));
+        List<SinglePlotData> start = List.of(point(2, "15"));
+        List<SinglePlotData> today = List.of(point(5, "55"));
+        List<SinglePlotData> future = List.of(point(6, "60"), point(6, "61"), point(9, "90"), point(9, "91"));
+
+        Map<LocalDate, SinglePlotData> expected = new TreeMap<>();
+        for (List<SinglePlotData> source : List.of(past, start, today, future)) {
+            source.forEach(p -> expected.put(p.date(), p));
+        }
+
+        List<SinglePlotData> merged = PlotSeries.toList(PlotSeries.mergeByDate(List.of(
+                past.iterator(), start.iterator(), today.iterator(), future.iterator())));
+
+        assertEquals(new ArrayList<>(expected.values()), merged);
+    }
+
+    @Test
+    void sourcesAreOpenedOnlyWhenIteratedTest() {
+        AtomicInteger opened = new AtomicInteger();
+        Iterator<SinglePlotData> merged = PlotSeries.mergeByDate(List.of(
+                PlotSeries.lazy(() -> {
+                    opened.incrementAndGet();
+                    return List.of(point(1, "10")).iterator();
+                }),
+                List.of(point(2, "20")).iterator()));
+
+        assertEquals(0, opened.get());
+        assertEquals(List.of(point(1, "10"), point(2, "20")), PlotSeries.toList(merged));
+        assertEquals(1, opened.get());
+    }
+
+    @Test
+    void pagedSourceWalksConsecutiveWindowsTest() {
+        List<SinglePlotData> snapshots = List.of(point(1, "10"), point(3, "30"), point(4, "40"), point(10, "100"));
+        List<List<LocalDate>> windows = new ArrayList<>();
+
+        Iterator<SinglePlotData> paged = PlotSeries.paged(START, START.plusDays(10), 3, (after, through) -> {
+            windows.add(List.of(after, through));
+            return snapshots.stream()
+                    .filter(p -> p.date().isAfter(after) && !p.date().isAfter(through))
+                    .toList();
+        });
+
+        assertTrue(windows.isEmpty());
+        assertEquals(snapshots, PlotSeries.toList(paged));
+        assertEquals(List.of(
+                List.of(START, START.plusDays(3)),
+                List.of(START.plusDays(3), START.plusDays(6)),
+                List.of(START.plusDays(6), START.plusDays(9)),
+                List.of(START.plusDays(9), START.plusDays(10))), windows);
+    }
+
+    private static SinglePlotData point(int day, String amount) {
+        return new SinglePlotData(START.plusDays(day), new BigDecimal(amount), "PLN");
+    }
+}
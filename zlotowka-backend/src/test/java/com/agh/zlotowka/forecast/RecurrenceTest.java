@@ -0,0 +1,105 @@
+package com.agh.zlotowka.forecast;
+
+import com.agh.zlotowka.model.PeriodEnum;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecurrenceTest {
+
+    private static final PeriodEnum[] PERIODS = {PeriodEnum.DAILY, PeriodEnum.WEEKLY, PeriodEnum.MONTHLY, PeriodEnum.YEARLY};
+    private static final List<LocalDate> ANCHORS = List.of(
+            LocalDate.of(2024, 1, 31),
+            LocalDate.of(2024, 2, 29),
+            LocalDate.of(2023, 3, 30),
+            LocalDate.of(2025, 6, 15),
+            LocalDate.of(2001, 12, 1));
+
+    @Test
+    void occurrencesMatchStepwiseIterationTest() {
+        for (PeriodEnum period : PERIODS) {
+            for (LocalDate anchor : ANCHORS) {
+                Recurrence recurrence = Recurrence.of(period, anchor);
+                LocalDate stepped = anchor;
+                for (int k = 0; k < 60; k++) {
+                    assertEquals(stepped, recurrence.occurrence(k), period + " from " + anchor + " at " + k);
+                    stepped = period.addToDate(stepped, anchor);
+                }
+            }
+        }
+    }
+
+    @Test
+    void monthlyOccurrencesKeepDayOfMonthClampingTest() {
+        Recurrence recurrence = Recurrence.of(PeriodEnum.MONTHLY, LocalDate.of(2025, 1, 31));
+
+        assertEquals(LocalDate.of(2025, 2, 28), recurrence.occurrence(1));
+        assertEquals(LocalDate.of(2025, 3, 31), recurrence.occurrence(2));
+        assertEquals(LocalDate.of(2025, 4, 30), recurrence.occurrence(3));
+    }
+
+    @Test
+    void skipToDateAndCountMatchEnumerationTest() {
+        LocalDate from = LocalDate.of(2024, 3, 1);
+        LocalDate to = LocalDate.of(2026, 8, 17);
+
+        for (PeriodEnum period : PERIODS) {
+            for (LocalDate anchor : ANCHORS) {
+                Recurrence recurrence = Recurrence.of(period, anchor);
+                List<LocalDate> expected = enumerate(period, anchor, from, to);
+
+                List<LocalDate> actual = new ArrayList<>();
+                recurrence.occurrencesBetween(from, to).forEach(actual::add);
+
+                assertEquals(expected, actual, period + " from " + anchor);
+                assertEquals(expected.size(), recurrence.countBetween(from, to), period + " from " + anchor);
+                if (!expected.isEmpty()) {
+                    assertEquals(expected.getFirst(), recurrence.firstOnOrAfter(from));
+                }
+            }
+        }
+    }
+
+    @Test
+    void dailyRecurrenceFromLongAgoSkipsDirectlyTest() {
+        Recurrence recurrence = Recurrence.of(PeriodEnum.DAILY, LocalDate.of(2001, 1, 1));
+
+        assertEquals(LocalDate.of(2025, 5, 10), recurrence.firstOnOrAfter(LocalDate.of(2025, 5, 10)));
+        assertEquals(LocalDate.of(2025, 5, 11), recurrence.nextAfter(LocalDate.of(2025, 5, 10)));
+        assertEquals(365, recurrence.countBetween(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31)));
+    }
+
+    @Test
+    void lazyIterationStartsAtArbitraryDateTest() {
+        Recurrence recurrence = Recurrence.of(PeriodEnum.WEEKLY, LocalDate.of(2025, 1, 6));
+
+        var iterator = recurrence.occurrencesFrom(LocalDate.of(2025, 3, 1)).iterator();
+
+        assertEquals(LocalDate.of(2025, 3, 3), iterator.next());
+        assertEquals(LocalDate.of(2025, 3, 10), iterator.next());
+        assertTrue(iterator.hasNext());
+    }
+
+    @Test
+    void emptyRangeHasNoOccurrencesTest() {
+        Recurrence recurrence = Recurrence.of(PeriodEnum.MONTHLY, LocalDate.of(2025, 1, 15));
+
+        assertEquals(0, recurrence.countBetween(LocalDate.of(2025, 2, 16), LocalDate.of(2025, 3, 14)));
+        assertEquals(0, recurrence.countBetween(LocalDate.of(2025, 5, 1), LocalDate.of(2025, 4, 1)));
+        assertFalse(recurrence.occurrencesBetween(LocalDate.of(2025, 2, 16), LocalDate.of(2025, 3, 14)).iterator().hasNext());
+    }
+
+    private static List<LocalDate> enumerate(PeriodEnum period, LocalDate anchor, LocalDate from, LocalDate to) {
+        List<LocalDate> dates = new ArrayList<>();
+        for (LocalDate date = anchor; !date.isAfter(to); date = period.addToDate(date, anchor)) {
+            if (!date.isBefore(from)) {
+                dates.add(date);
+            }
+        }
+        return dates;
+    }
+}
@@ -0,0 +1,83 @@
+package com.agh.zlotowka.forecast;
+
+import com.agh.zlotowka.model.PeriodEnum;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScenarioSimulatorTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 6, 1);
+    private static final LocalDate END = START.plusDays(900);
+
+    @Test
+    void scenarioChangesAreAppliedOnTopOfBaseTest() {
+        List<CashflowEvent> events = List.of(new CashflowEvent(START.plusDays(10), 50_000));
+        List<ScheduledCashflow> schedules = List.of(new ScheduledCashflow(
+                Recurrence.of(PeriodEnum.MONTHLY, START), START.plusDays(1), END, -5_000));
+        ScenarioSimulator simulator = new ScenarioSimulator(START, END, timeline(events, schedules), 10_000);
+
+        BalanceCurve base = simulator.simulate(List.of(), List.of());
+        BalanceCurve withoutBonus = simulator.simulate(List.of(new CashflowEvent(START.plusDays(10), -50_000)), List.of());
+        BalanceCurve withoutExpense = simulator.simulate(List.of(), List.of(new ScheduledCashflow(
+                Recurrence.of(PeriodEnum.MONTHLY, START), START.plusDays(1), END, 5_000)));
+
+        assertEquals(START.plusDays(10), base.firstReaching(55_000));
+        assertNull(withoutBonus.firstReaching(10_001));
+        assertEquals(60_000, withoutExpense.finalBalance());
+        assertEquals(BalanceCurve.build(START, END, events, schedules, 10_000).finalBalance(), base.finalBalance());
+    }
+
+    @Test
+    void simulationsDoNotChangeSharedBaseTest() throws Exception {
+        Random random = new Random(23);
+        List<CashflowEvent> events = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            events.add(new CashflowEvent(START.plusDays(1 + random.nextInt(900)), random.nextInt(20_001) - 10_000));
+        }
+        ScenarioSimulator simulator = new ScenarioSimulator(START, END, timeline(events, List.of()), 0);
+
+        List<List<CashflowEvent>> scenarios = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            scenarios.add(List.of(new CashflowEvent(START.plusDays(1 + random.nextInt(900)), random.nextInt(100_001))));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<BalanceCurve>> results = new ArrayList<>();
+            for (List<CashflowEvent> scenario : scenarios) {
+                results.add(executor.submit(() -> simulator.simulate(scenario, List.of())));
+            }
+            for (int i = 0; i < scenarios.size(); i++) {
+                List<CashflowEvent> combined = new ArrayList<>(events);
+                combined.addAll(scenarios.get(i));
+                BalanceCurve expected = BalanceCurve.build(START, END, combined, List.of(), 0);
+                assertEquals(expected.points("PLN"), results.get(i).get().points("PLN"), "scenario " + i);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(BalanceCurve.build(START, END, events, List.of(), 0).points("PLN"),
+                simulator.simulate(List.of(), List.of()).points("PLN"));
+    }
+
+    private static CashflowTimeline timeline(List<CashflowEvent> events, List<ScheduledCashflow> schedules) {
+        CashflowTimeline.Builder builder = CashflowTimeline.builder();
+        for (CashflowEvent event : events) {
+            builder.add(event.date(), event.amountMinorUnits(), event.amountMinorUnits() > 0 ? CashflowTimeline.INCOME : 0);
+        }
+        for (ScheduledCashflow schedule : schedules) {
+            builder.addOccurrences(schedule.recurrence(), schedule.from(), schedule.to(), schedule.amountMinorUnits(),
+                    schedule.amountMinorUnits() > 0 ? CashflowTimeline.INCOME : 0);
+        }
+        return builder.build();
+    }
+}
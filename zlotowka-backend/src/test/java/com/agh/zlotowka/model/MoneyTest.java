@@ -0,0 +1,24 @@
+package com.agh.zlotowka.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void roundTripsThroughMinorUnitsTest() {
+        assertEquals(123457, Money.toMinorUnits(new BigDecimal("1234.565")));
+        assertEquals(new BigDecimal("1234.57"), Money.toBigDecimal(123457));
+        assertEquals(new BigDecimal("-0.05"), Money.toBigDecimal(Money.toMinorUnits(new BigDecimal("-0.045"))));
+    }
+
+    @Test
+    void overflowIsDetectedTest() {
+        BigDecimal tooLarge = Money.toBigDecimal(Long.MAX_VALUE).add(BigDecimal.ONE);
+
+        assertThrows(ArithmeticException.class, () -> Money.toMinorUnits(tooLarge));
+    }
+}
@@ -0,0 +1,206 @@
+package com.agh.zlotowka.service;
+
+import com.agh.zlotowka.dto.DailyTransactionSum;
+import com.agh.zlotowka.dto.OneTimeTransactionRequest;
+import com.agh.zlotowka.dto.RecurringTransactionRequest;
+import com.agh.zlotowka.model.Currency;
+import com.agh.zlotowka.model.OneTimeTransaction;
+import com.agh.zlotowka.model.User;
+import com.agh.zlotowka.repository.CurrencyRepository;
+import com.agh.zlotowka.repository.OneTimeTransactionRepository;
+import com.agh.zlotowka.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ActiveProfiles("test")
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class BalanceSnapshotServiceIntegrationTest {
+
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Autowired
+    private OneTimeTransactionService oneTimeTransactionService;
+
+    @Autowired
+    private RecurringTransactionService recurringTransactionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OneTimeTransactionRepository oneTimeTransactionRepository;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    private User user;
+    private Currency currency;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setup() {
+        currency = currencyRepository.findByIsoCode("PLN")
+                .orElseGet(() -> currencyRepository.save(Currency.builder().isoCode("PLN").build()));
+
+        user = userRepository.save(User.builder()
+                .firstName("Jan")
+                .lastName("Kowalski")
+                .email(UUID.randomUUID().toString().substring(0, 8) + "@example.com")
+                .phoneNumber("+48123456789")
+                .password("securePassword123")
+                .dateOfJoining(today)
+                .currentBudget(new BigDecimal("100.00").setScale(2, RoundingMode.HALF_UP))
+                .currency(currency)
+                .build());
+    }
+
+    @Test
+    void rebuildsBalanceHistoryFromTransactionsTest() {
+        addTransaction("Wypłata", "50.00", true, today.minusDays(5));
+        addTransaction("Zakupy", "30.00", false, today.minusDays(2));
+
+        User reloaded = reloadUser();
+
+        assertBalance(reloaded, today.minusDays(6), "100.00");
+        assertBalance(reloaded, today.minusDays(5), "150.00");
+        assertBalance(reloaded, today.minusDays(3), "150.00");
+        assertBalance(reloaded, today.minusDays(2), "120.00");
+        assertBalance(reloaded, today, "120.00");
+        assertEquals(4, balanceSnapshotService.getSnapshotsInRange(reloaded, today.minusDays(30), today).size());
+    }
+
+    @Test
+    void backDatedTransactionShiftsLaterSnapshotsTest() {
+        addTransaction("Wypłata", "50.00", true, today.minusDays(5));
+        balanceSnapshotService.getBalanceAt(reloadUser(), today);
+
+        addTransaction("Zwrot", "20.00", true, today.minusDays(10));
+        addTransaction("Kawa", "5.00", false, today.minusDays(5));
+
+        User reloaded = reloadUser();
+
+        assertEquals(0, new BigDecimal("165.00").compareTo(reloaded.getCurrentBudget()));
+        assertBalance(reloaded, today.minusDays(11), "100.00");
+        assertBalance(reloaded, today.minusDays(10), "120.00");
+        assertBalance(reloaded, today.minusDays(6), "120.00");
+        assertBalance(reloaded, today.minusDays(5), "165.00");
+        assertBalance(reloaded, today, "165.00");
+    }
+
+    @Test
+    void singleOverdueRecurringOccurrenceIsRecordedAtItsDateTest() {
+        addTransaction("Wypłata", "50.00", true, today.minusDays(20));
+        balanceSnapshotService.getBalanceAt(reloadUser(), today);
+
+        recurringTransactionService.createTransaction(new RecurringTransactionRequest(
+                user.getUserId(), "Abonament", new BigDecimal("30.00"), currency.getCurrencyId(), false,
+                "P1M", today.minusDays(10), today.plusMonths(6), "Abonament"));
+
+        User reloaded = reloadUser();
+
+        assertEquals(0, new BigDecimal("120.00").compareTo(reloaded.getCurrentBudget()));
+        assertBalance(reloaded, today.minusDays(11), "150.00");
+        assertBalance(reloaded, today.minusDays(10), "120.00");
+        assertBalance(reloaded, today.minusDays(1), "120.00");
+        assertBalance(reloaded, today, "120.00");
+    }
+
+    @Test
+    void readsDoNotSeedSnapshotsTest() {
+        oneTimeTransactionRepository.save(OneTimeTransaction.builder()
+                .user(user)
+                .name("Wypłata")
+                .amount(new BigDecimal("50.00"))
+                .currency(currency)
+                .isIncome(true)
+                .date(today.minusDays(5))
+                .build());
+
+        assertBalance(reloadUser(), today.minusDays(6), "100.00");
+        assertTrue(balanceSnapshotService.getSnapshotsInRange(reloadUser(), today.minusDays(30), today).isEmpty());
+
+        balanceSnapshotService.seedMissing();
+
+        User reloaded = reloadUser();
+        assertBalance(reloaded, today.minusDays(6), "50.00");
+        assertBalance(reloaded, today.minusDays(5), "100.00");
+        assertEquals(3, balanceSnapshotService.getSnapshotsInRange(reloaded, today.minusDays(30), today).size());
+    }
+
+    @Test
+    void concurrentChangesOnNewDateAreSerializedTest() throws Exception {
+        addTransaction("Wypłata", "50.00", true, today.minusDays(10));
+        User reloaded = reloadUser();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> balanceSnapshotService.recordChange(reloaded, today.minusDays(3), new BigDecimal("10.00"))));
+            }
+            for (Future<?> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertBalance(reloaded, today.minusDays(4), "150.00");
+        assertBalance(reloaded, today.minusDays(3), "230.00");
+        assertBalance(reloaded, today, "230.00");
+    }
+
+    @Test
+    void dailySumsAreGroupedInDatabaseTest() {
+        addTransaction("Obiad", "25.00", false, today.minusDays(3));
+        addTransaction("Kino", "15.50", false, today.minusDays(3));
+        addTransaction("Premia", "40.00", true, today.minusDays(3));
+        addTransaction("Kawa", "5.00", false, today.minusDays(1));
+
+        List<DailyTransactionSum> sums = oneTimeTransactionRepository.sumDailyInRange(user.getUserId(), today.minusDays(7), today);
+
+        assertEquals(3, sums.size());
+        DailyTransactionSum expenses = sums.stream()
+                .filter(sum -> sum.date().equals(today.minusDays(3)) && !sum.isIncome())
+                .findFirst().orElseThrow();
+        assertEquals(0, new BigDecimal("40.50").compareTo(expenses.amount()));
+        assertEquals(2, expenses.transactionCount());
+        assertEquals(currency.getCurrencyId(), expenses.currencyId());
+        assertEquals(today.minusDays(1), sums.getLast().date());
+    }
+
+    private void addTransaction(String name, String amount, boolean isIncome, LocalDate date) {
+        oneTimeTransactionService.createTransaction(new OneTimeTransactionRequest(
+                user.getUserId(), name, new BigDecimal(amount), currency.getCurrencyId(), isIncome, date, name));
+    }
+
+    private User reloadUser() {
+        return userRepository.findById(user.getUserId()).orElseThrow();
+    }
+
+    private void assertBalance(User user, LocalDate date, String expected) {
+        assertEquals(0, new BigDecimal(expected).compareTo(balanceSnapshotService.getBalanceAt(user, date)),
+                "Saldo na dzień " + date);
+    }
+}
@@ -0,0 +1,139 @@
+package com.agh.zlotowka.service;
+
+import com.agh.zlotowka.dto.CurrencyAmount;
+import com.agh.zlotowka.dto.DailyTransactionSum;
+import com.agh.zlotowka.forecast.CashflowTimeline;
+import com.agh.zlotowka.forecast.CashflowTotals;
+import com.agh.zlotowka.model.Currency;
+import com.agh.zlotowka.model.PeriodEnum;
+import com.agh.zlotowka.model.RecurringTransaction;
+import com.agh.zlotowka.model.User;
+import com.agh.zlotowka.repository.OneTimeTransactionRepository;
+import com.agh.zlotowka.repository.RecurringTransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CashflowTimelineServiceUnitTest {
+
+    @InjectMocks
+    private CashflowTimelineService service;
+
+    @Mock
+    private OneTimeTransactionRepository oneTimeTransactionRepository;
+    @Mock
+    private RecurringTransactionRepository recurringTransactionRepository;
+    @Mock
+    private CurrencyService currencyService;
+
+    private final LocalDate today = LocalDate.now();
+    private User user;
+    private Currency currency;
+
+    @BeforeEach
+    void setup() throws Exception {
+        currency = new Currency();
+        currency.setCurrencyId(1);
+        currency.setIsoCode("PLN");
+
+        user = new User();
+        user.setUserId(1);
+        user.setCurrency(currency);
+
+        lenient().when(currencyService.convertAvailableDailySums(anyList(), eq("PLN")))
+                .thenAnswer(invocation -> invocation.<List<DailyTransactionSum>>getArgument(0).stream()
+                        .map(DailyTransactionSum::amount).toList());
+        lenient().when(currencyService.convertAvailable(anyList(), eq("PLN")))
+                .thenAnswer(invocation -> invocation.<List<CurrencyAmount>>getArgument(0).stream()
+                        .map(CurrencyAmount::amount).toList());
+    }
+
+    @Test
+    void totalsMatchTimelineSumsTest() throws Exception {
+        LocalDate start = today.minusDays(10);
+        LocalDate end = today.plusMonths(4);
+
+        when(oneTimeTransactionRepository.sumDailyInRange(1, start, end)).thenReturn(List.of(
+                new DailyTransactionSum(today.minusDays(3), 1, true, new BigDecimal("120.50"), 2L),
+                new DailyTransactionSum(today.minusDays(3), 1, false, new BigDecimal("40.00"), 1L),
+                new DailyTransactionSum(today.plusDays(7), 1, false, new BigDecimal("15.25"), 3L)));
+        when(recurringTransactionRepository.getActiveTransactionsByUser(any(Integer.class), eq(start), eq(end))).thenReturn(List.of(
+                recurring(PeriodEnum.MONTHLY, today, today.plusDays(2), today.plusYears(1), "1000.00", true),
+                recurring(PeriodEnum.WEEKLY, today.minusWeeks(1), today.plusDays(6), today.plusMonths(2), "30.00", false)));
+
+        CashflowTotals totals = service.totals(user, start, end);
+        CashflowTimeline timeline = service.load(user, start, end);
+
+        assertEquals(timeline.incomeBetween(start, end), totals.incomeMinorUnits());
+        assertEquals(timeline.expensesBetween(start, end), totals.expensesMinorUnits());
+        assertEquals(timeline.sumBetween(start, end), totals.netMinorUnits());
+        assertEquals(12_050 + 4 * 100_000, totals.incomeMinorUnits());
+    }
+
+    @Test
+    void recurringOccurrencesBeforeRangeStartAreNotCountedTest() throws Exception {
+        LocalDate start = today.plusMonths(1);
+        LocalDate end = today.plusMonths(3);
+
+        when(oneTimeTransactionRepository.sumDailyInRange(1, start, end)).thenReturn(List.of());
+        when(recurringTransactionRepository.getActiveTransactionsByUser(1, today, end)).thenReturn(List.of(
+                recurring(PeriodEnum.DAILY, today, today, today.plusYears(1), "1.00", false)));
+
+        CashflowTotals totals = service.totals(user, start, end);
+
+        assertEquals(0, totals.incomeMinorUnits());
+        assertEquals(-100L * (end.toEpochDay() - start.toEpochDay() + 1), totals.expensesMinorUnits());
+    }
+
+    @Test
+    void unconvertibleAmountsAreSkippedTest() {
+        LocalDate start = today.plusDays(1);
+        LocalDate end = today.plusMonths(2);
+
+        when(oneTimeTransactionRepository.sumDailyInRange(1, start, end)).thenReturn(List.of(
+                new DailyTransactionSum(today.plusDays(3), 2, true, new BigDecimal("99.00"), 1L),
+                new DailyTransactionSum(today.plusDays(4), 1, false, new BigDecimal("20.00"), 1L)));
+        when(currencyService.convertAvailableDailySums(anyList(), eq("PLN")))
+                .thenReturn(Arrays.asList(null, new BigDecimal("20.00")));
+        when(recurringTransactionRepository.getActiveTransactionsByUser(1, today, end)).thenReturn(List.of(
+                recurring(PeriodEnum.MONTHLY, today, today.plusDays(5), today.plusYears(1), "300.00", true),
+                recurring(PeriodEnum.MONTHLY, today, today.plusDays(6), today.plusYears(1), "50.00", false)));
+        when(currencyService.convertAvailable(anyList(), eq("PLN")))
+                .thenReturn(Arrays.asList(null, new BigDecimal("50.00")));
+
+        CashflowTotals totals = service.totals(user, start, end);
+
+        assertEquals(0, totals.incomeMinorUnits());
+        assertEquals(-2_000 - 5_000L * 2, totals.expensesMinorUnits());
+    }
+
+    private RecurringTransaction recurring(PeriodEnum interval, LocalDate first, LocalDate next, LocalDate last,
+                                           String amount, boolean isIncome) {
+        return RecurringTransaction.builder()
+                .user(user)
+                .currency(currency)
+                .amount(new BigDecimal(amount))
+                .isIncome(isIncome)
+                .interval(interval)
+                .firstPaymentDate(first)
+                .nextPaymentDate(next)
+                .finalPaymentDate(last)
+                .build();
+    }
+}
@@ -0,0 +1,133 @@
+package com.agh.zlotowka.service;
+
+import com.agh.zlotowka.currency.CurrencyRegistry;
+import com.agh.zlotowka.currency.ExchangeRateCache;
+import com.agh.zlotowka.currency.ExchangeRateProvider;
+import com.agh.zlotowka.currency.ExchangeRateSnapshot;
+import com.agh.zlotowka.currency.RateFetchCoalescer;
+import com.agh.zlotowka.dto.CurrencyAmount;
+import com.agh.zlotowka.dto.DailyTransactionSum;
+import com.agh.zlotowka.exception.CurrencyConversionException;
+import com.agh.zlotowka.model.Currency;
+import com.agh.zlotowka.repository.CurrencyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CurrencyServiceUnitTest {
+
+    @Mock
+    private CurrencyRepository currencyRepository;
+    @Mock
+    private CurrencyRegistry currencyRegistry;
+    @Mock
+    private ExchangeRateProvider exchangeRateProvider;
+    @Mock
+    private RateFetchCoalescer rateFetchCoalescer;
+    @Mock
+    private ExchangeRateSnapshotService exchangeRateSnapshotService;
+    @Mock
+    private HistoricalExchangeRateService historicalExchangeRateService;
+
+    private CurrencyService service;
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setup() throws Exception {
+        ExchangeRateCache cache = new ExchangeRateCache(Duration.ofHours(1), 16, Clock.systemUTC());
+        service = new CurrencyService(currencyRepository, currencyRegistry, cache, exchangeRateProvider,
+                rateFetchCoalescer, exchangeRateSnapshotService, historicalExchangeRateService);
+
+        ExchangeRateSnapshot snapshot = ExchangeRateSnapshot.builder(List.of("PLN", "EUR", "USD"))
+                .row("eur", Map.of("pln", new BigDecimal("4.2500")))
+                .row("usd", Map.of("pln", new BigDecimal("3.9000")))
+                .build(Instant.now());
+        lenient().when(exchangeRateSnapshotService.getSnapshot()).thenReturn(snapshot);
+        ReflectionTestUtils.setField(service, "requestWait", Duration.ofMillis(100));
+        lenient().when(rateFetchCoalescer.fetchAsync(eq("gbp"), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IOException("timeout")));
+    }
+
+    @Test
+    void convertAllAppliesRatePerSourceCurrencyTest() throws Exception {
+        List<BigDecimal> converted = service.convertAll(List.of(
+                new CurrencyAmount(new BigDecimal("10.00"), "EUR"),
+                new CurrencyAmount(new BigDecimal("12.34"), "PLN"),
+                new CurrencyAmount(new BigDecimal("0.15"), "USD"),
+                new CurrencyAmount(new BigDecimal("1.00"), "EUR")), "PLN");
+
+        assertEquals(List.of(new BigDecimal("42.50"), new BigDecimal("12.34"), new BigDecimal("0.59"), new BigDecimal("4.25")),
+                converted);
+    }
+
+    @Test
+    void convertAllPrefersHistoricalRateForPastDatesTest() throws Exception {
+        LocalDate yesterday = today.minusDays(1);
+        when(historicalExchangeRateService.getRate("EUR", "PLN", yesterday)).thenReturn(new BigDecimal("4.1000"));
+
+        List<BigDecimal> converted = service.convertAll(List.of(
+                new CurrencyAmount(new BigDecimal("10.00"), "EUR", yesterday),
+                new CurrencyAmount(new BigDecimal("10.00"), "EUR", today)), "PLN");
+
+        assertEquals(List.of(new BigDecimal("41.00"), new BigDecimal("42.50")), converted);
+    }
+
+    @Test
+    void convertAllFailsWhenAnyCurrencyFailsTest() {
+        assertThrows(CurrencyConversionException.class, () -> service.convertAll(List.of(
+                new CurrencyAmount(new BigDecimal("10.00"), "EUR"),
+                new CurrencyAmount(new BigDecimal("10.00"), "GBP")), "PLN"));
+    }
+
+    @Test
+    void convertAvailableSkipsOnlyFailingCurrencyTest() {
+        List<BigDecimal> converted = service.convertAvailable(List.of(
+                new CurrencyAmount(new BigDecimal("10.00"), "EUR"),
+                new CurrencyAmount(new BigDecimal("10.00"), "GBP"),
+                new CurrencyAmount(new BigDecimal("5.00"), "PLN"),
+                new CurrencyAmount(new BigDecimal("3.00"), "GBP")), "PLN");
+
+        assertEquals(Arrays.asList(new BigDecimal("42.50"), null, new BigDecimal("5.00"), null), converted);
+    }
+
+    @Test
+    void convertAvailableDailySumsSkipsUnknownCurrencyTest() {
+        when(currencyRegistry.findById(1)).thenReturn(Optional.of(currency(1, "EUR")));
+        when(currencyRegistry.findById(9)).thenReturn(Optional.empty());
+
+        List<BigDecimal> converted = service.convertAvailableDailySums(List.of(
+                new DailyTransactionSum(today.plusDays(1), 9, true, new BigDecimal("7.00"), 1L),
+                new DailyTransactionSum(today.plusDays(2), 1, false, new BigDecimal("2.00"), 2L)), "PLN");
+
+        assertEquals(Arrays.asList(null, new BigDecimal("8.50")), converted);
+    }
+
+    private Currency currency(int id, String isoCode) {
+        Currency currency = new Currency();
+        currency.setCurrencyId(id);
+        currency.setIsoCode(isoCode);
+        return currency;
+    }
+}
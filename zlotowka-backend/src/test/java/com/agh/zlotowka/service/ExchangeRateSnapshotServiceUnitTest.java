@@ -0,0 +1,92 @@
+package com.agh.zlotowka.service;
+
+import com.agh.zlotowka.currency.CurrencyRegistry;
+import com.agh.zlotowka.currency.ExchangeRateProvider;
+import com.agh.zlotowka.currency.ExchangeRateSnapshot;
+import com.agh.zlotowka.currency.RateFetchCoalescer;
+import com.agh.zlotowka.forecast.ForecastCache;
+import com.agh.zlotowka.model.Currency;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ExchangeRateSnapshotServiceUnitTest {
+
+    @Mock
+    private ExchangeRateProvider exchangeRateProvider;
+    @Mock
+    private CurrencyRegistry currencyRegistry;
+    @Mock
+    private ForecastCache forecastCache;
+
+    private ExchangeRateSnapshotService service;
+
+    @BeforeEach
+    void setup() {
+        service = new ExchangeRateSnapshotService(exchangeRateProvider, new RateFetchCoalescer(), currencyRegistry, forecastCache);
+        ReflectionTestUtils.setField(service, "enabled", true);
+
+        when(currencyRegistry.getAll()).thenReturn(List.of(currency(1, "PLN"), currency(2, "EUR")));
+    }
+
+    @Test
+    void failedCurrencyKeepsPreviousRowTest() throws Exception {
+        when(exchangeRateProvider.fetchRates(eq("PLN"), anySet()))
+                .thenReturn(Map.of("eur", new BigDecimal("0.2300")))
+                .thenThrow(new IOException("timeout"));
+        when(exchangeRateProvider.fetchRates(eq("EUR"), anySet()))
+                .thenReturn(Map.of("pln", new BigDecimal("4.3000")))
+                .thenReturn(Map.of("pln", new BigDecimal("4.2500")));
+
+        service.refreshSnapshot();
+        ExchangeRateSnapshot first = service.getSnapshot();
+        service.refreshSnapshot();
+        ExchangeRateSnapshot second = service.getSnapshot();
+
+        assertNotSame(first, second);
+        assertEquals(new BigDecimal("0.2300"), second.getRate("PLN", "EUR"));
+        assertEquals(new BigDecimal("4.2500"), second.getRate("EUR", "PLN"));
+        assertTrue(second.getRefreshedAt().compareTo(first.getRefreshedAt()) >= 0);
+        verify(forecastCache, times(2)).invalidateAll();
+    }
+
+    @Test
+    void providerOutageKeepsWholeSnapshotTest() throws Exception {
+        when(exchangeRateProvider.fetchRates(eq("PLN"), anySet()))
+                .thenReturn(Map.of("eur", new BigDecimal("0.2300")))
+                .thenThrow(new IOException("timeout"));
+        when(exchangeRateProvider.fetchRates(eq("EUR"), anySet()))
+                .thenReturn(Map.of("pln", new BigDecimal("4.3000")))
+                .thenThrow(new IOException("timeout"));
+
+        service.refreshSnapshot();
+        ExchangeRateSnapshot first = service.getSnapshot();
+        service.refreshSnapshot();
+
+        assertSame(first, service.getSnapshot());
+        verify(forecastCache, times(1)).invalidateAll();
+    }
+
+    private Currency currency(int id, String isoCode) {
+        Currency currency = new Currency();
+        currency.setCurrencyId(id);
+        currency.setIsoCode(isoCode);
+        return currency;
+    }
+}
@@ -0,0 +1,122 @@
+package com.agh.zlotowka.service;
+
+import com.agh.zlotowka.dto.CurrencyAmount;
+import com.agh.zlotowka.dto.DailyTransactionSum;
+import com.agh.zlotowka.forecast.CashflowTimeline;
+import com.agh.zlotowka.forecast.ForecastCache;
+import com.agh.zlotowka.forecast.ForecastSeries;
+import com.agh.zlotowka.model.Currency;
+import com.agh.zlotowka.model.User;
+import com.agh.zlotowka.repository.OneTimeTransactionRepository;
+import com.agh.zlotowka.service.ForecastUpdateService.OneTimeCashflow;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ForecastUpdateServiceUnitTest {
+
+    @Mock
+    private CurrencyService currencyService;
+    @Mock
+    private OneTimeTransactionRepository oneTimeTransactionRepository;
+
+    private final ForecastCache forecastCache = new ForecastCache(Duration.ofMinutes(10), 16);
+    private final LocalDate today = LocalDate.now();
+    private final LocalDate date = today.plusDays(10);
+    private final AtomicInteger loads = new AtomicInteger();
+    private ForecastUpdateService service;
+    private User user;
+
+    @BeforeEach
+    void setup() {
+        service = new ForecastUpdateService(currencyService, forecastCache, oneTimeTransactionRepository);
+        user = new User();
+        user.setUserId(1);
+        user.setCurrency(new Currency(1, "PLN"));
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void sameGroupUpdateIsDiffedAndConvertedAfterCommitTest() throws Exception {
+        when(currencyService.convertAll(anyList(), eq("PLN"))).thenAnswer(invocation -> invocation.<List<CurrencyAmount>>getArgument(0).stream()
+                .map(amount -> amount.amount().multiply(new BigDecimal("4.3")).setScale(2, RoundingMode.HALF_UP))
+                .toList());
+        when(oneTimeTransactionRepository.sumDailyInRange(1, date, date))
+                .thenReturn(List.of(new DailyTransactionSum(date, 2, false, new BigDecimal("200.00"), 2L)));
+        forecastCache.getSeries(1, today, today.plusYears(1), seriesWith(-64_500));
+
+        complete(TransactionSynchronization.STATUS_COMMITTED, () -> {
+            service.oneTimeTransactionChanged(user, eur("100.00"), eur("150.00"));
+            assertTrue(mockingDetails(currencyService).getInvocations().isEmpty());
+        });
+        ForecastSeries patched = forecastCache.getSeries(1, today, today.plusYears(1), seriesWith(0));
+
+        assertEquals(1, loads.get());
+        assertEquals(-86_000, patched.cumulativeThrough(date));
+        assertEquals(1, patched.size());
+    }
+
+    @Test
+    void rolledBackChangeIsNotConvertedTest() throws Exception {
+        when(oneTimeTransactionRepository.sumDailyInRange(1, date, date))
+                .thenReturn(List.of(new DailyTransactionSum(date, 2, false, new BigDecimal("150.00"), 1L)));
+        forecastCache.getSeries(1, today, today.plusYears(1), seriesWith(0));
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK,
+                () -> service.oneTimeTransactionChanged(user, null, eur("150.00")));
+        forecastCache.getSeries(1, today, today.plusYears(1), seriesWith(0));
+
+        verify(currencyService, never()).convertAll(anyList(), eq("PLN"));
+        assertEquals(2, loads.get());
+    }
+
+    private OneTimeCashflow eur(String amount) {
+        return new OneTimeCashflow(date, new BigDecimal(amount), 2, "EUR", false);
+    }
+
+    private Supplier<ForecastSeries> seriesWith(long amount) {
+        return () -> {
+            loads.incrementAndGet();
+            CashflowTimeline timeline = amount == 0
+                    ? CashflowTimeline.empty()
+                    : CashflowTimeline.builder().add(date, amount, 0, 2).build();
+            return ForecastSeries.build(today, today.plusYears(1), timeline);
+        };
+    }
+
+    private static void complete(int status, Runnable work) {
+        TransactionSynchronizationManager.initSynchronization();
+        work.run();
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+}
@@ -0,0 +1,99 @@
+package com.agh.zlotowka.service;
+
+import com.agh.zlotowka.dto.CurrencyAmount;
+import com.agh.zlotowka.forecast.CashflowTimeline;
+import com.agh.zlotowka.forecast.ForecastCache;
+import com.agh.zlotowka.model.Currency;
+import com.agh.zlotowka.model.User;
+import com.agh.zlotowka.repository.PlanRepository;
+import com.agh.zlotowka.repository.SubPlanRepository;
+import com.agh.zlotowka.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class GeneralPlansServiceUnitTest {
+
+    @Mock
+    private PlanRepository planRepository;
+    @Mock
+    private SubPlanRepository subPlanRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private CurrencyService currencyService;
+    @Mock
+    private CashflowTimelineService cashflowTimelineService;
+
+    private final ForecastCache forecastCache = new ForecastCache(Duration.ofMinutes(10), 16);
+    private final LocalDate today = LocalDate.now();
+    private GeneralPlansService service;
+    private User user;
+
+    @BeforeEach
+    void setup() throws Exception {
+        service = new GeneralPlansService(planRepository, subPlanRepository, userRepository, currencyService,
+                cashflowTimelineService, forecastCache, 2);
+        ReflectionTestUtils.setField(service, "monteCarloTrials", 500);
+        ReflectionTestUtils.setField(service, "monteCarloHistory", Period.ofMonths(3));
+
+        Currency currency = new Currency();
+        currency.setCurrencyId(1);
+        currency.setIsoCode("PLN");
+        user = new User();
+        user.setUserId(1);
+        user.setCurrency(currency);
+        user.setCurrentBudget(new BigDecimal("100.00"));
+
+        Random random = new Random(3);
+        CashflowTimeline.Builder timeline = CashflowTimeline.builder()
+                .add(today.plusDays(10), 600_000, CashflowTimeline.INCOME);
+        for (int i = 0; i < 90; i++) {
+            timeline.add(today.minusDays(i), -random.nextInt(10_000), 0);
+        }
+        when(currencyService.convertAll(anyList(), eq("PLN"))).thenReturn(List.of(new BigDecimal("5000.00")));
+        when(cashflowTimelineService.load(eq(user), any(), any())).thenReturn(timeline.build());
+    }
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    @Test
+    void repeatedEstimateIsDeterministicAndCachedTest() throws Exception {
+        List<CurrencyAmount> targets = List.of(new CurrencyAmount(new BigDecimal("5000.00"), "PLN"));
+
+        GeneralPlansService.CompletionEstimate first = service.estimateCompletion(user, targets).getFirst();
+        GeneralPlansService.CompletionEstimate second = service.estimateCompletion(user, targets).getFirst();
+        forecastCache.invalidateAll();
+        GeneralPlansService.CompletionEstimate recomputed = service.estimateCompletion(user, targets).getFirst();
+
+        assertSame(first, second);
+        assertNotNull(first.distribution());
+        assertEquals(today.plusDays(10), first.estimatedCompletionDate());
+        assertNotSame(first, recomputed);
+        assertEquals(first, recomputed);
+        verify(cashflowTimelineService, times(2)).load(eq(user), any(), any());
+    }
+}
@@ -0,0 +1,64 @@
+package com.agh.zlotowka.service;
+
+import com.agh.zlotowka.currency.HistoricalRateIndex;
+import com.agh.zlotowka.repository.HistoricalExchangeRateRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class HistoricalExchangeRateWriterUnitTest {
+
+    private static final long DAY = LocalDate.of(2025, 1, 10).toEpochDay();
+
+    @Mock
+    private HistoricalExchangeRateRepository historicalExchangeRateRepository;
+
+    private final HistoricalRateIndex historicalRateIndex = new HistoricalRateIndex();
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void indexIsUpdatedOnlyAfterCommitTest() {
+        HistoricalExchangeRateWriter writer = new HistoricalExchangeRateWriter(historicalExchangeRateRepository, historicalRateIndex);
+        TransactionSynchronizationManager.initSynchronization();
+
+        int saved = writer.saveMissing(List.of(HistoricalExchangeRateWriter.entry("EUR", DAY, new BigDecimal("4.27"))));
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertEquals(1, saved);
+        assertFalse(historicalRateIndex.contains("eur", DAY));
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        assertEquals(new BigDecimal("4.27"), historicalRateIndex.getRate("eur", DAY));
+    }
+
+    @Test
+    void rolledBackRatesAreNotIndexedTest() {
+        HistoricalExchangeRateWriter writer = new HistoricalExchangeRateWriter(historicalExchangeRateRepository, historicalRateIndex);
+        TransactionSynchronizationManager.initSynchronization();
+
+        writer.saveMissing(List.of(HistoricalExchangeRateWriter.entry("EUR", DAY, new BigDecimal("4.27"))));
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertFalse(historicalRateIndex.contains("eur", DAY));
+        assertEquals(0, historicalRateIndex.size());
+    }
+}
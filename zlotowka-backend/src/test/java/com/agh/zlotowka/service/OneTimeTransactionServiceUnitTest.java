@@ -1,11 +1,11 @@
 package com.agh.zlotowka.service;
 
+import com.agh.zlotowka.currency.CurrencyRegistry;
 import com.agh.zlotowka.dto.OneTimeTransactionDTO;
 import com.agh.zlotowka.dto.OneTimeTransactionRequest;
 import com.agh.zlotowka.model.Currency;
 import com.agh.zlotowka.model.OneTimeTransaction;
 import com.agh.zlotowka.model.User;
-import com.agh.zlotowka.repository.CurrencyRepository;
 import com.agh.zlotowka.repository.OneTimeTransactionRepository;
 import com.agh.zlotowka.repository.UserRepository;
 import org.junit.jupiter.api.Test;
@@ -35,7 +35,9 @@ class OneTimeTransactionServiceUnitTest {
     @Mock
     private UserRepository userRepository;
     @Mock
-    private CurrencyRepository currencyRepository;
+    private CurrencyRegistry currencyRegistry;
+    @Mock
+    private ForecastUpdateService forecastUpdateService;
 
     private final LocalDate today = LocalDate.now();
 
@@ -60,14 +62,14 @@ class OneTimeTransactionServiceUnitTest {
                 .build();
 
         when(userRepository.findById(1)).thenReturn(Optional.of(user));
-        when(currencyRepository.findById(2)).thenReturn(Optional.of(currency));
+        when(currencyRegistry.findById(2)).thenReturn(Optional.of(currency));
         when(transactionRepository.save(any())).thenReturn(transaction);
 
         OneTimeTransactionDTO result = service.createTransaction(request);
 
         assertEquals("Lunch", result.name());
         assertEquals(new BigDecimal(50), result.amount());
-        verify(userService).addTransactionAmountToBudget(2, new BigDecimal(50), true, user);
+        verify(userService).addTransactionAmountToBudget(2, new BigDecimal(50), true, user, today);
         verify(transactionRepository).save(any());
     }
 
@@ -118,7 +120,7 @@ class OneTimeTransactionServiceUnitTest {
 
         service.deleteTransaction(1);
 
-        verify(userService).removeTransactionAmountFromBudget(2, new BigDecimal(100), true, user);
+        verify(userService).removeTransactionAmountFromBudget(2, new BigDecimal(100), true, user, pastDate);
         verify(transactionRepository).delete(transaction);
     }
 
@@ -146,7 +148,7 @@ class OneTimeTransactionServiceUnitTest {
         );
 
         when(transactionRepository.findById(1)).thenReturn(Optional.of(transaction));
-        when(currencyRepository.findById(3)).thenReturn(Optional.of(newCurrency));
+        when(currencyRegistry.findById(3)).thenReturn(Optional.of(newCurrency));
 
         OneTimeTransactionDTO result = service.updateOneTimeTransaction(request, 1);
 
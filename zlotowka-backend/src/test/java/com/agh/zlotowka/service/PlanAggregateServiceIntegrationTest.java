@@ -0,0 +1,199 @@
+package com.agh.zlotowka.service;
+
+import com.agh.zlotowka.dto.PlanRequest;
+import com.agh.zlotowka.dto.SubplanAggregate;
+import com.agh.zlotowka.dto.SubplanRequest;
+import com.agh.zlotowka.model.Currency;
+import com.agh.zlotowka.model.Plan;
+import com.agh.zlotowka.model.User;
+import com.agh.zlotowka.repository.CurrencyRepository;
+import com.agh.zlotowka.repository.PlanRepository;
+import com.agh.zlotowka.repository.SubPlanRepository;
+import com.agh.zlotowka.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ActiveProfiles("test")
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class PlanAggregateServiceIntegrationTest {
+
+    @Autowired
+    private PlanAggregateService planAggregateService;
+
+    @Autowired
+    private PlanService planService;
+
+    @Autowired
+    private SubplanService subplanService;
+
+    @Autowired
+    private PlanRepository planRepository;
+
+    @Autowired
+    private SubPlanRepository subPlanRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    private User user;
+    private Currency currency;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setup() {
+        currency = currencyRepository.findAll().stream()
+                .filter(candidate -> "PLN".equals(candidate.getIsoCode()))
+                .findFirst()
+                .orElseGet(() -> currencyRepository.save(Currency.builder().isoCode("PLN").build()));
+
+        user = userRepository.save(User.builder()
+                .firstName("Jan")
+                .lastName("Kowalski")
+                .email(UUID.randomUUID().toString().substring(0, 8) + "@example.com")
+                .phoneNumber("+48123456789")
+                .password("securePassword123")
+                .dateOfJoining(today)
+                .currentBudget(new BigDecimal("1000.00").setScale(2, RoundingMode.HALF_UP))
+                .currency(currency)
+                .build());
+    }
+
+    @Test
+    void subplanOperationsKeepAggregatesInSyncTest() {
+        Integer planId = createPlan("900.00");
+
+        Integer first = subplanService.createSubplan(subplanRequest(planId, "Bilety", "300.00")).subplanId();
+        Integer second = subplanService.createSubplan(subplanRequest(planId, "Hotel", "250.00")).subplanId();
+        Integer third = subplanService.createSubplan(subplanRequest(planId, "Wycieczki", "100.00")).subplanId();
+        assertAggregates(planId, 3, 0, "650.00", "0.00");
+
+        subplanService.updateSubplan(subplanRequest(planId, "Hotel", "200.00"), second);
+        assertAggregates(planId, 3, 0, "600.00", "0.00");
+
+        subplanService.completeSubplan(first, today);
+        subplanService.completeSubplan(third, today);
+        assertAggregates(planId, 3, 2, "600.00", "400.00");
+        assertEquals(2.0 / 3 * 100, planRepository.findById(planId).orElseThrow().getSubplansCompleted(), 1e-9);
+
+        subplanService.undoCompleteSubplan(third);
+        assertAggregates(planId, 3, 1, "600.00", "300.00");
+
+        subplanService.deleteSubplan(first, true);
+        assertAggregates(planId, 2, 0, "300.00", "0.00");
+
+        assertEquals(0, planAggregateService.reconcileAll());
+    }
+
+    @Test
+    void reconciliationRepairsDriftTest() {
+        Integer planId = createPlan("500.00");
+        subplanService.createSubplan(subplanRequest(planId, "Rower", "120.00"));
+        Integer completed = subplanService.createSubplan(subplanRequest(planId, "Kask", "80.00")).subplanId();
+        subplanService.completeSubplan(completed, today);
+        Integer emptyPlanId = createPlan("50.00");
+
+        Plan plan = planRepository.findById(planId).orElseThrow();
+        plan.setSubplanCount(7);
+        plan.setCompletedAmount(new BigDecimal("1.00"));
+        planRepository.save(plan);
+        Plan emptyPlan = planRepository.findById(emptyPlanId).orElseThrow();
+        emptyPlan.setTotalSubplanAmount(new BigDecimal("10.00"));
+        planRepository.save(emptyPlan);
+
+        assertEquals(2, planAggregateService.reconcileAll());
+        assertAggregates(planId, 2, 1, "200.00", "80.00");
+        assertAggregates(emptyPlanId, 0, 0, "0.00", "0.00");
+        assertEquals(0, planAggregateService.reconcileAll());
+    }
+
+    @Test
+    void concurrentSubplanChangesKeepEveryIncrementTest() throws Exception {
+        Integer planId = createPlan("10000.00");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                String name = "Część " + i;
+                results.add(executor.submit(() -> subplanService.createSubplan(subplanRequest(planId, name, "10.00"))));
+            }
+            for (Future<?> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertAggregates(planId, 12, 0, "120.00", "0.00");
+    }
+
+    @Test
+    void reconciliationDuringSubplanChangesKeepsEveryIncrementTest() throws Exception {
+        Integer planId = createPlan("10000.00");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                String name = "Część " + i;
+                results.add(executor.submit(() -> subplanService.createSubplan(subplanRequest(planId, name, "10.00"))));
+                if (i % 3 == 0) {
+                    results.add(executor.submit(() -> planAggregateService.reconcileAll()));
+                }
+            }
+            for (Future<?> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertAggregates(planId, 12, 0, "120.00", "0.00");
+    }
+
+    private Integer createPlan(String amount) {
+        return planService.createPlan(new PlanRequest(user.getUserId(), "Wakacje", new BigDecimal(amount),
+                currency.getCurrencyId(), null)).planId();
+    }
+
+    private SubplanRequest subplanRequest(Integer planId, String name, String amount) {
+        return new SubplanRequest(user.getUserId(), name, new BigDecimal(amount), null, planId);
+    }
+
+    private void assertAggregates(Integer planId, int subplanCount, int completedCount, String totalAmount, String completedAmount) {
+        Plan plan = planRepository.findById(planId).orElseThrow();
+        assertEquals(subplanCount, plan.getSubplanCount());
+        assertEquals(completedCount, plan.getCompletedCount());
+        assertEquals(0, new BigDecimal(totalAmount).compareTo(plan.getTotalSubplanAmount()), "total " + plan.getTotalSubplanAmount());
+        assertEquals(0, new BigDecimal(completedAmount).compareTo(plan.getCompletedAmount()), "completed " + plan.getCompletedAmount());
+
+        SubplanAggregate aggregate = subPlanRepository.aggregateAllByPlan().stream()
+                .filter(candidate -> candidate.planId().equals(planId))
+                .findFirst()
+                .orElse(new SubplanAggregate(planId, 0L, 0L, BigDecimal.ZERO, BigDecimal.ZERO));
+        assertEquals(subplanCount, aggregate.subplanCount());
+        assertEquals(completedCount, aggregate.completedCount());
+        assertEquals(0, plan.getTotalSubplanAmount().compareTo(aggregate.totalAmount()));
+        assertEquals(0, plan.getCompletedAmount().compareTo(aggregate.completedAmount()));
+    }
+}
@@ -1,9 +1,9 @@
 package com.agh.zlotowka.service;
 
+import com.agh.zlotowka.currency.CurrencyRegistry;
 import com.agh.zlotowka.dto.RecurringTransactionDTO;
 import com.agh.zlotowka.dto.RecurringTransactionRequest;
 import com.agh.zlotowka.model.*;
-import com.agh.zlotowka.repository.CurrencyRepository;
 import com.agh.zlotowka.repository.OneTimeTransactionRepository;
 import com.agh.zlotowka.repository.RecurringTransactionRepository;
 import com.agh.zlotowka.repository.UserRepository;
@@ -37,7 +37,9 @@ class RecurringTransactionServiceUnitTest {
     @Mock
     private UserRepository userRepository;
     @Mock
-    private CurrencyRepository currencyRepository;
+    private CurrencyRegistry currencyRegistry;
+    @Mock
+    private ForecastUpdateService forecastUpdateService;
 
     private User user;
     private Currency currency;
@@ -58,7 +60,7 @@ class RecurringTransactionServiceUnitTest {
                 "P1M", futureDate, futureDate.plusMonths(6), "Monthly salary");
 
         when(userRepository.findById(1)).thenReturn(Optional.of(user));
-        when(currencyRepository.findById(2)).thenReturn(Optional.of(currency));
+        when(currencyRegistry.findById(2)).thenReturn(Optional.of(currency));
 
         RecurringTransactionDTO result = service.createTransaction(request);
 
@@ -75,12 +77,12 @@ class RecurringTransactionServiceUnitTest {
                 "P1M", pastDate, LocalDate.now(), "Spotify");
 
         when(userRepository.findById(1)).thenReturn(Optional.of(user));
-        when(currencyRepository.findById(2)).thenReturn(Optional.of(currency));
+        when(currencyRegistry.findById(2)).thenReturn(Optional.of(currency));
 
         RecurringTransactionDTO result = service.createTransaction(request);
 
         assertEquals("Old Subscription", result.name());
-        verify(userService).addTransactionAmountToBudget(eq(2), any(BigDecimal.class), eq(false), eq(user));
+        verify(userService, times(3)).addTransactionAmountToBudget(eq(2), eq(new BigDecimal("20.00")), eq(false), eq(user), any(LocalDate.class));
         verify(oneTimeTransactionRepository).saveAll(any());
     }
 
@@ -99,7 +101,7 @@ class RecurringTransactionServiceUnitTest {
     @Test
     void createTransactionThrowsIfCurrencyNotFoundTest() {
         when(userRepository.findById(1)).thenReturn(Optional.of(user));
-        when(currencyRepository.findById(2)).thenReturn(Optional.empty());
+        when(currencyRegistry.findById(2)).thenReturn(Optional.empty());
 
         RecurringTransactionRequest request = new RecurringTransactionRequest(
                 1, "Invalid", BigDecimal.TEN, 2, true,
@@ -116,7 +118,7 @@ class RecurringTransactionServiceUnitTest {
                 "P1D", LocalDate.now().plusDays(10), LocalDate.now(), "Date error");
 
         when(userRepository.findById(1)).thenReturn(Optional.of(user));
-        when(currencyRepository.findById(2)).thenReturn(Optional.of(currency));
+        when(currencyRegistry.findById(2)).thenReturn(Optional.of(currency));
 
         Exception exception = assertThrows(IllegalArgumentException.class, () -> service.createTransaction(request));
         assertEquals("Data pierwszej płatności musi być przed datą ostatniej płatności", exception.getMessage());
@@ -156,7 +158,7 @@ class RecurringTransactionServiceUnitTest {
         );
 
         when(recurringTransactionRepository.findById(10)).thenReturn(Optional.of(existingTransaction));
-        when(currencyRepository.findById(2)).thenReturn(Optional.of(currency));
+        when(currencyRegistry.findById(2)).thenReturn(Optional.of(currency));
 
         RecurringTransactionDTO result = service.updateTransaction(request, 10);
 
@@ -176,6 +178,13 @@ class RecurringTransactionServiceUnitTest {
                 .transactionId(5)
                 .user(user)
                 .name("To be deleted")
+                .amount(BigDecimal.valueOf(100))
+                .currency(currency)
+                .isIncome(false)
+                .interval(PeriodEnum.MONTHLY)
+                .firstPaymentDate(LocalDate.now().minusMonths(1))
+                .nextPaymentDate(LocalDate.now().plusMonths(1))
+                .finalPaymentDate(LocalDate.now().plusMonths(6))
                 .build();
 
         when(recurringTransactionRepository.findById(5)).thenReturn(Optional.of(transaction));
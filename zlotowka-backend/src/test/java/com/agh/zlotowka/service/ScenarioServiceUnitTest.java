@@ -0,0 +1,136 @@
+package com.agh.zlotowka.service;
+
+import com.agh.zlotowka.currency.CurrencyRegistry;
+import com.agh.zlotowka.dto.GeneralPlanDTO;
+import com.agh.zlotowka.dto.ScenarioDefinition;
+import com.agh.zlotowka.dto.ScenarioModification;
+import com.agh.zlotowka.dto.ScenarioRequest;
+import com.agh.zlotowka.dto.ScenarioResultDTO;
+import com.agh.zlotowka.forecast.CashflowTimeline;
+import com.agh.zlotowka.model.Currency;
+import com.agh.zlotowka.model.OneTimeTransaction;
+import com.agh.zlotowka.model.PlanType;
+import com.agh.zlotowka.model.ScenarioOperation;
+import com.agh.zlotowka.model.User;
+import com.agh.zlotowka.repository.OneTimeTransactionRepository;
+import com.agh.zlotowka.repository.RecurringTransactionRepository;
+import com.agh.zlotowka.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ScenarioServiceUnitTest {
+
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private OneTimeTransactionRepository oneTimeTransactionRepository;
+    @Mock
+    private RecurringTransactionRepository recurringTransactionRepository;
+    @Mock
+    private CurrencyRegistry currencyRegistry;
+    @Mock
+    private CurrencyService currencyService;
+    @Mock
+    private CashflowTimelineService cashflowTimelineService;
+    @Mock
+    private GeneralPlansService generalPlansService;
+
+    private ScenarioService service;
+    private final LocalDate today = LocalDate.now();
+    private User user;
+    private Currency currency;
+
+    @BeforeEach
+    void setup() throws Exception {
+        service = new ScenarioService(userRepository, oneTimeTransactionRepository, recurringTransactionRepository,
+                currencyRegistry, currencyService, cashflowTimelineService, generalPlansService, 2, 100);
+
+        currency = new Currency();
+        currency.setCurrencyId(1);
+        currency.setIsoCode("PLN");
+
+        user = new User();
+        user.setUserId(1);
+        user.setCurrency(currency);
+        user.setCurrentBudget(new BigDecimal("100.00"));
+
+        OneTimeTransaction bonus = OneTimeTransaction.builder()
+                .transactionId(3)
+                .user(user)
+                .currency(currency)
+                .amount(new BigDecimal("500.00"))
+                .isIncome(true)
+                .date(today.plusDays(10))
+                .build();
+
+        when(userRepository.findById(1)).thenReturn(Optional.of(user));
+        when(generalPlansService.getAllUncompletedPlans(1)).thenReturn(List.of(
+                new GeneralPlanDTO(7, new BigDecimal("400.00"), "Wakacje", PlanType.PLAN)));
+        when(cashflowTimelineService.load(eq(user), any(), any())).thenReturn(CashflowTimeline.builder()
+                .add(today.plusDays(10), 50_000, CashflowTimeline.INCOME)
+                .build());
+        lenient().when(oneTimeTransactionRepository.findById(3)).thenReturn(Optional.of(bonus));
+        lenient().when(currencyRegistry.findById(1)).thenReturn(Optional.of(currency));
+        lenient().when(currencyService.convertCurrency(any(), eq("PLN"), eq("PLN")))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void scenariosAreEvaluatedAgainstSameBaseTest() throws Exception {
+        ScenarioRequest request = new ScenarioRequest(1, List.of(
+                new ScenarioDefinition("Bez zmian", List.of()),
+                new ScenarioDefinition("Bez premii", List.of(
+                        modification(ScenarioOperation.REMOVE, false, 3, null, null, null, null))),
+                new ScenarioDefinition("Połowa premii", List.of(
+                        modification(ScenarioOperation.SCALE, false, 3, null, null, null, new BigDecimal("0.5")))),
+                new ScenarioDefinition("Dodatkowy dochód", List.of(
+                        modification(ScenarioOperation.ADD, true, null, new BigDecimal("300.00"), "P1M", today.plusDays(1), null)))));
+
+        List<ScenarioResultDTO> results = service.simulate(request);
+
+        assertEquals(List.of("Bez zmian", "Bez premii", "Połowa premii", "Dodatkowy dochód"),
+                results.stream().map(ScenarioResultDTO::name).toList());
+        assertEquals(today.plusDays(10), results.get(0).plans().getFirst().estimatedCompletionDate());
+        assertNull(results.get(1).plans().getFirst().estimatedCompletionDate());
+        assertEquals(new BigDecimal("100.00"), results.get(1).finalBalance());
+        assertNull(results.get(2).plans().getFirst().estimatedCompletionDate());
+        assertEquals(new BigDecimal("350.00"), results.get(2).finalBalance());
+        assertEquals(today.plusDays(1), results.get(3).plans().getFirst().estimatedCompletionDate());
+        assertEquals(today, results.get(0).balance().getFirst().date());
+    }
+
+    @Test
+    void addWithoutRequiredFieldsIsRejectedTest() {
+        ScenarioRequest request = new ScenarioRequest(1, List.of(new ScenarioDefinition("Niepełny", List.of(
+                modification(ScenarioOperation.ADD, false, null, new BigDecimal("10.00"), null, null, null)))));
+
+        assertThrows(IllegalArgumentException.class, () -> service.simulate(request));
+    }
+
+    private ScenarioModification modification(ScenarioOperation operation, boolean recurring, Integer transactionId,
+                                              BigDecimal amount, String interval, LocalDate date, BigDecimal factor) {
+        return new ScenarioModification(operation, recurring, transactionId, amount, amount == null ? null : 1,
+                amount == null ? null : true, interval, date, null, factor);
+    }
+}